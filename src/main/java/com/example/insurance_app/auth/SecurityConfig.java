@@ -1,5 +1,6 @@
 package com.example.insurance_app.auth;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -28,6 +29,8 @@ public class SecurityConfig {
    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
        http.csrf(csrf -> csrf.disable())
            .authorizeHttpRequests(auth -> auth
+                   // Async dispatches only complete requests (e.g. SSE streams) that were already authorized
+                   .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                    .requestMatchers("/api/auth/**", "/api/users/register").permitAll()
                    .requestMatchers("/swagger-ui/**").permitAll()
                    .requestMatchers("/swagger-ui.html").permitAll()
@@ -9,6 +9,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -50,6 +51,14 @@ public class Claim {
     @JoinColumn(name = "processed_by")
     private User processedBy;
     
+    // Set for claims accepted through the queued intake endpoint
+    @Column(name = "tracking_id", unique = true, length = 36, updatable = false)
+    private String trackingId;
+    
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
     public enum ClaimStatus {
         PENDING("Pending"),
         APPROVED("Approved"),
@@ -1,17 +1,21 @@
 package com.example.insurance_app.claims;
 
 import com.example.insurance_app.auth.UserPrincipal;
+import com.example.insurance_app.common.DeltaSyncResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -21,6 +25,7 @@ import java.util.List;
 public class ClaimController {
     
     private final ClaimService claimService;
+    private final ClaimIntakeService claimIntakeService;
     
     @PostMapping
     @PreAuthorize("hasRole('CUSTOMER') or (hasRole('ADMIN') and @claimService.isPolicyOwner(#request.userPolicyId, authentication.principal.id))")
@@ -30,16 +35,48 @@ public class ClaimController {
         ClaimDto claim = claimService.submitClaim(request);
         return ResponseEntity.status(HttpStatus.CREATED).body(claim);
     }
+    
+    @PostMapping("/intake")
+    @PreAuthorize("hasRole('CUSTOMER') or (hasRole('ADMIN') and @claimService.isPolicyOwner(#request.userPolicyId, authentication.principal.id))")
+    @Operation(summary = "Queue a new claim", description = "Accepts a claim for asynchronous, batched persistence and returns a tracking ID. Responds 429 when the intake queue is full")
+    public ResponseEntity<ClaimIntakeStatusDto> queueClaim(
+            @Valid @RequestBody ClaimCreateRequest request) {
+        ClaimIntakeStatusDto status = claimIntakeService.enqueue(request);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/claims/intake/" + status.getTrackingId()))
+                .body(status);
+    }
+    
+    @GetMapping("/intake/{trackingId}")
+    @PreAuthorize("hasRole('CUSTOMER') or hasRole('ADMIN') or hasRole('AGENT')")
+    @Operation(summary = "Get queued claim status", description = "Retrieve the outcome of a queued claim by its tracking ID")
+    public ResponseEntity<ClaimIntakeStatusDto> getIntakeStatus(
+            @Parameter(description = "Tracking ID") @PathVariable String trackingId) {
+        ClaimIntakeStatusDto status = claimIntakeService.getStatus(trackingId);
+        return ResponseEntity.ok(status);
+    }
         
     @GetMapping("/user/{userId}")
     @PreAuthorize("hasRole('ADMIN') or (hasRole('CUSTOMER') and #userId == authentication.principal.id)")
-    @Operation(summary = "Get claims by user", description = "Retrieve all claims for a specific user")
+    @Operation(summary = "Get claims by user", description = "Retrieve claims for a specific user, oldest first. Pass the claimDate and id of the last row to fetch the next page")
     public ResponseEntity<List<ClaimDto>> getClaimsByUserId(
-            @Parameter(description = "User ID") @PathVariable Long userId) {
-        List<ClaimDto> claims = claimService.getClaimsByUserId(userId);
+            @Parameter(description = "User ID") @PathVariable Long userId,
+            @Parameter(description = "Claim date of the last claim on the previous page") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterDate,
+            @Parameter(description = "ID of the last claim on the previous page") @RequestParam(required = false) Long afterId,
+            @Parameter(description = "Maximum number of claims to return") @RequestParam(defaultValue = "100") int limit) {
+        List<ClaimDto> claims = claimService.getClaimsByUserId(userId, afterDate, afterId, limit);
         return ResponseEntity.ok(claims);
     }
     
+    @GetMapping(value = "/user/{userId}", params = "since")
+    @PreAuthorize("hasRole('ADMIN') or (hasRole('CUSTOMER') and #userId == authentication.principal.id)")
+    @Operation(summary = "Sync claims for a user", description = "Delta sync: an empty since returns all claims and a token; passing that token returns only claims changed or removed since")
+    public ResponseEntity<DeltaSyncResponse<ClaimDto>> syncClaims(
+            @Parameter(description = "User ID") @PathVariable Long userId,
+            @Parameter(description = "Token from the previous sync, empty for the first") @RequestParam String since) {
+        return ResponseEntity.ok(claimService.getClaimChanges(userId, since));
+    }
+    
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('AGENT') or @claimService.isClaimOwner(#id, authentication.principal.id)")
     @Operation(summary = "Get claim by ID", description = "Retrieve a specific claim by its ID")
@@ -51,12 +88,23 @@ public class ClaimController {
     
     @GetMapping("/pending")
     @PreAuthorize("hasRole('ADMIN') or hasRole('AGENT')")
-    @Operation(summary = "Get pending claims", description = "Retrieve all pending claims for review")
-    public ResponseEntity<List<ClaimDto>> getPendingClaims() {
-        List<ClaimDto> pendingClaims = claimService.getPendingClaims();
+    @Operation(summary = "Get pending claims", description = "Retrieve pending claims for review, oldest first. Pass the claimDate and id of the last row to fetch the next page")
+    public ResponseEntity<List<ClaimDto>> getPendingClaims(
+            @Parameter(description = "Claim date of the last claim on the previous page") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterDate,
+            @Parameter(description = "ID of the last claim on the previous page") @RequestParam(required = false) Long afterId,
+            @Parameter(description = "Maximum number of claims to return") @RequestParam(defaultValue = "100") int limit) {
+        List<ClaimDto> pendingClaims = claimService.getPendingClaims(afterDate, afterId, limit);
         return ResponseEntity.ok(pendingClaims);
     }
     
+    @GetMapping("/pending/escalated")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('AGENT')")
+    @Operation(summary = "Get escalated claims", description = "Retrieve pending claims that breached their SLA, most overdue first")
+    public ResponseEntity<List<ClaimDto>> getEscalatedClaims() {
+        List<ClaimDto> escalatedClaims = claimService.getEscalatedClaims();
+        return ResponseEntity.ok(escalatedClaims);
+    }
+    
     @PutMapping("/{id}/approve")
     @PreAuthorize("hasRole('ADMIN') or hasRole('AGENT')")
     @Operation(summary = "Approve a claim", description = "Approve a pending claim")
@@ -79,9 +127,12 @@ public class ClaimController {
     
     @GetMapping("/all")
     @PreAuthorize("hasRole('ADMIN')")
-    @Operation(summary = "Get all claims", description = "Admin endpoint to retrieve all claims in the system")
-    public ResponseEntity<List<ClaimDto>> getAllClaims() {
-        List<ClaimDto> allClaims = claimService.getAllClaims();
+    @Operation(summary = "Get all claims", description = "Admin endpoint to retrieve claims in the system, oldest first. Pass the claimDate and id of the last row to fetch the next page")
+    public ResponseEntity<List<ClaimDto>> getAllClaims(
+            @Parameter(description = "Claim date of the last claim on the previous page") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterDate,
+            @Parameter(description = "ID of the last claim on the previous page") @RequestParam(required = false) Long afterId,
+            @Parameter(description = "Maximum number of claims to return") @RequestParam(defaultValue = "100") int limit) {
+        List<ClaimDto> allClaims = claimService.getAllClaims(afterDate, afterId, limit);
         return ResponseEntity.ok(allClaims);
     }
 }
@@ -1,12 +1,17 @@
 package com.example.insurance_app.claims;
 
+import com.example.insurance_app.policies.Policy;
+import com.example.insurance_app.policies.PolicyDto;
+import com.example.insurance_app.user_policies.UserPolicy;
 import com.example.insurance_app.user_policies.UserPolicyDto;
+import com.example.insurance_app.users.User;
 import com.example.insurance_app.users.UserDto;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Data
@@ -21,4 +26,40 @@ public class ClaimDto {
     private Claim.ClaimStatus status;
     private String description;
     private UserDto processedBy;
+    
+    // Flat constructor used by the JPQL projection queries in ClaimRepository
+    public ClaimDto(Long id, BigDecimal claimAmount, LocalDateTime claimDate, Claim.ClaimStatus status,
+                    String description, Long userPolicyId, LocalDate startDate, LocalDate endDate,
+                    UserPolicy.Status userPolicyStatus, LocalDate nextPremiumDue, LocalDateTime userPolicyCreatedAt,
+                    Long userId, String userName, String userEmail,
+                    Long policyId, String policyNumber, Policy.PolicyType policyType,
+                    BigDecimal coverageAmount, BigDecimal premiumAmount, Integer termYears,
+                    Policy.PremiumFrequency premiumFrequency,
+                    Long processedById, String processedByName, String processedByEmail, User.Role processedByRole) {
+        this.id = id;
+        this.claimAmount = claimAmount;
+        this.claimDate = claimDate;
+        this.status = status;
+        this.description = description;
+        
+        this.userPolicy = new UserPolicyDto(userPolicyId, userId, userName, userEmail,
+                policyId, policyNumber, policyType.name(),
+                startDate, endDate, userPolicyStatus, nextPremiumDue, userPolicyCreatedAt);
+        PolicyDto policy = this.userPolicy.getPolicy();
+        policy.setType(policyType);
+        policy.setTypeDisplayName(policyType.getDisplayName());
+        policy.setCoverageAmount(coverageAmount);
+        policy.setPremiumAmount(premiumAmount);
+        policy.setTermYears(termYears);
+        policy.setPremiumFrequency(premiumFrequency);
+        policy.setPremiumFrequencyDisplayName(premiumFrequency.getDisplayName());
+        
+        if (processedById != null) {
+            this.processedBy = new UserDto();
+            this.processedBy.setId(processedById);
+            this.processedBy.setName(processedByName);
+            this.processedBy.setEmail(processedByEmail);
+            this.processedBy.setRole(processedByRole);
+        }
+    }
 }
@@ -0,0 +1,9 @@
+package com.example.insurance_app.claims;
+
+import java.time.LocalDateTime;
+
+// Published when a pending claim passes its SLA deadline
+public record ClaimEscalatedEvent(Long claimId,
+                                  LocalDateTime claimDate,
+                                  LocalDateTime deadline) {
+}
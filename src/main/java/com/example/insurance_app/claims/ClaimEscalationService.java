@@ -0,0 +1,171 @@
+package com.example.insurance_app.claims;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks the SLA deadline of every pending claim in a DelayQueue. Timers are rebuilt
+ * from the pending claims on startup and then kept current from claim status events,
+ * so finding breached claims never requires scanning the claims table.
+ */
+@Service
+@Slf4j
+public class ClaimEscalationService {
+    
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+    
+    private final ClaimRepository claimRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration pendingSla;
+    private final Duration discoveryLookback;
+    
+    private final DelayQueue<ClaimDeadline> timers = new DelayQueue<>();
+    // Live timer per pending claim; a timer no longer in this map is skipped when it fires
+    private final Map<Long, ClaimDeadline> tracked = new ConcurrentHashMap<>();
+    // Escalated pending claims, most overdue first
+    private final ConcurrentSkipListSet<ClaimDeadline> escalated = new ConcurrentSkipListSet<>(
+            Comparator.comparingLong(ClaimDeadline::deadlineMillis).thenComparingLong(ClaimDeadline::claimId));
+    
+    private Thread worker;
+    
+    public ClaimEscalationService(ClaimRepository claimRepository,
+                                  ApplicationEventPublisher eventPublisher,
+                                  @Value("${claims.sla.pending-hours:72}") long pendingSlaHours,
+                                  @Value("${claims.sla.discovery-lookback-minutes:10}") long discoveryLookbackMinutes) {
+        this.claimRepository = claimRepository;
+        this.eventPublisher = eventPublisher;
+        this.pendingSla = Duration.ofHours(pendingSlaHours);
+        this.discoveryLookback = Duration.ofMinutes(discoveryLookbackMinutes);
+    }
+    
+    // Rebuild timers for all pending claims and start the escalation worker
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        List<Object[]> pending = claimRepository.findIdsAndClaimDatesByStatus(Claim.ClaimStatus.PENDING);
+        pending.forEach(row -> track((Long) row[0], (LocalDateTime) row[1]));
+        log.info("Tracking SLA deadlines for {} pending claims", pending.size());
+        
+        worker = Thread.ofPlatform().name("claim-sla-escalation").daemon().start(this::runEscalations);
+    }
+    
+    @PreDestroy
+    public void stop() {
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+    
+    @TransactionalEventListener
+    public void onClaimStatusChanged(ClaimStatusChangedEvent event) {
+        if (event.newStatus() == Claim.ClaimStatus.PENDING) {
+            track(event.claimId(), event.claimDate());
+        } else {
+            untrack(event.claimId());
+        }
+    }
+    
+    // Pick up pending claims written on other nodes. A window on updated_at rather than an id watermark,
+    // because ids are assigned at insert but become visible at commit, which can happen out of id order
+    @Scheduled(fixedDelayString = "${claims.sla.discovery-interval-ms:60000}")
+    public void discoverNewPendingClaims() {
+        if (worker == null) {
+            return;
+        }
+        LocalDateTime since = LocalDateTime.now().minus(discoveryLookback);
+        claimRepository.findIdsAndClaimDatesByStatusUpdatedSince(Claim.ClaimStatus.PENDING, since)
+                .forEach(row -> track((Long) row[0], (LocalDateTime) row[1]));
+    }
+    
+    // Pending claims past their SLA, most overdue first
+    public List<Long> getEscalatedClaimIds() {
+        List<Long> claimIds = new ArrayList<>(escalated.size());
+        escalated.forEach(deadline -> claimIds.add(deadline.claimId()));
+        return claimIds;
+    }
+    
+    public int getTrackedCount() {
+        return tracked.size();
+    }
+    
+    private void track(Long claimId, LocalDateTime claimDate) {
+        LocalDateTime submittedAt = claimDate != null ? claimDate : LocalDateTime.now();
+        long deadlineMillis = submittedAt.plus(pendingSla).atZone(ZONE).toInstant().toEpochMilli();
+        ClaimDeadline deadline = new ClaimDeadline(claimId, submittedAt, deadlineMillis);
+        if (tracked.putIfAbsent(claimId, deadline) == null) {
+            timers.put(deadline);
+        }
+    }
+    
+    private void untrack(Long claimId) {
+        ClaimDeadline deadline = tracked.remove(claimId);
+        if (deadline != null) {
+            escalated.remove(deadline);
+        }
+    }
+    
+    private void runEscalations() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                ClaimDeadline deadline = timers.take();
+                if (tracked.get(deadline.claimId()) == deadline) {
+                    escalate(deadline);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.error("Error escalating claim: {}", e.getMessage(), e);
+            }
+        }
+    }
+    
+    private void escalate(ClaimDeadline deadline) {
+        // The claim may have been processed on another node since its timer was armed
+        boolean stillPending = claimRepository.findStatusById(deadline.claimId())
+                .map(status -> status == Claim.ClaimStatus.PENDING)
+                .orElse(false);
+        if (!stillPending) {
+            untrack(deadline.claimId());
+            return;
+        }
+        
+        escalated.add(deadline);
+        LocalDateTime deadlineTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(deadline.deadlineMillis()), ZONE);
+        log.warn("Claim {} breached its {}h pending SLA (submitted {})",
+                deadline.claimId(), pendingSla.toHours(), deadline.claimDate());
+        eventPublisher.publishEvent(new ClaimEscalatedEvent(deadline.claimId(), deadline.claimDate(), deadlineTime));
+    }
+    
+    private record ClaimDeadline(long claimId, LocalDateTime claimDate, long deadlineMillis) implements Delayed {
+        
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadlineMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+        
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(deadlineMillis, ((ClaimDeadline) other).deadlineMillis);
+        }
+    }
+}
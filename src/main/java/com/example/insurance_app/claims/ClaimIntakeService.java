@@ -0,0 +1,322 @@
+package com.example.insurance_app.claims;
+
+import com.example.insurance_app.exceptions.ClaimIntakeQueueFullException;
+import com.example.insurance_app.exceptions.ClaimNotFoundException;
+import com.example.insurance_app.user_policies.UserPolicy;
+import com.example.insurance_app.user_policies.UserPolicyRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Queued claim intake for submission spikes. A submission is written to the claim_intake
+ * staging table before it is acknowledged, so an accepted claim survives a restart; a
+ * dedicated drain thread then validates staged rows and persists them as claims in JDBC
+ * batches. Rows are claimed with SKIP LOCKED and deleted in the same transaction that
+ * inserts the claims, so a row left behind by a crash or another node's restart is picked
+ * up exactly once by the periodic recovery sweep. The caller polls the tracking ID.
+ */
+@Service
+@Slf4j
+public class ClaimIntakeService {
+    
+    private static final String INSERT_INTAKE_SQL =
+            "INSERT INTO claim_intake (tracking_id, user_policy_id, claim_amount, description, submitted_at) " +
+            "VALUES (?, ?, ?, ?, ?)";
+    private static final String SELECT_STAGED_SQL =
+            "SELECT id, tracking_id, user_policy_id, claim_amount, description, submitted_at FROM claim_intake " +
+            "WHERE id IN (%s) AND state = 'QUEUED' FOR UPDATE SKIP LOCKED";
+    private static final String SELECT_STRANDED_SQL =
+            "SELECT id FROM claim_intake WHERE state = 'QUEUED' AND submitted_at < ? ORDER BY id LIMIT ?";
+    private static final String INSERT_CLAIM_SQL =
+            "INSERT INTO claims (user_policy_id, claim_amount, claim_date, status, description, tracking_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String REJECT_SQL =
+            "UPDATE claim_intake SET state = 'REJECTED', message = ? WHERE id = ?";
+    // state and message are assigned before attempts, so they see the attempt count before this failure
+    private static final String RECORD_FAILURE_SQL =
+            "UPDATE claim_intake SET state = CASE WHEN attempts + 1 >= ? THEN 'FAILED' ELSE state END, " +
+            "message = CASE WHEN attempts + 1 >= ? THEN 'Claim could not be saved, please resubmit' ELSE message END, " +
+            "attempts = attempts + 1 WHERE id IN (%s)";
+    private static final String PURGE_FINISHED_SQL =
+            "DELETE FROM claim_intake WHERE state <> 'QUEUED' AND updated_at < ?";
+    
+    private final ClaimRepository claimRepository;
+    private final UserPolicyRepository userPolicyRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    private final int queueCapacity;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long recoveryIntervalMillis;
+    private final int maxAttempts;
+    private final long statusRetentionMinutes;
+    
+    // Staging row ids waiting for the drain thread; the rows themselves are the durable record
+    private final BlockingQueue<Long> queue;
+    private volatile boolean accepting = true;
+    private Thread drainer;
+    
+    public ClaimIntakeService(ClaimRepository claimRepository,
+                              UserPolicyRepository userPolicyRepository,
+                              JdbcTemplate jdbcTemplate,
+                              TransactionTemplate transactionTemplate,
+                              ApplicationEventPublisher eventPublisher,
+                              @Value("${claims.intake.queue-capacity:10000}") int queueCapacity,
+                              @Value("${claims.intake.batch-size:500}") int batchSize,
+                              @Value("${claims.intake.flush-interval-ms:200}") long flushIntervalMillis,
+                              @Value("${claims.intake.recovery-interval-ms:30000}") long recoveryIntervalMillis,
+                              @Value("${claims.intake.max-attempts:3}") int maxAttempts,
+                              @Value("${claims.intake.status-retention-minutes:60}") long statusRetentionMinutes) {
+        this.claimRepository = claimRepository;
+        this.userPolicyRepository = userPolicyRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.recoveryIntervalMillis = recoveryIntervalMillis;
+        this.maxAttempts = maxAttempts;
+        this.statusRetentionMinutes = statusRetentionMinutes;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+    
+    // Stage a claim durably and queue it for the drain thread; throws when the queue is full
+    public ClaimIntakeStatusDto enqueue(ClaimCreateRequest request) {
+        if (!accepting || queue.remainingCapacity() == 0) {
+            throw new ClaimIntakeQueueFullException(queueCapacity);
+        }
+        String trackingId = UUID.randomUUID().toString();
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_INTAKE_SQL, new String[]{"id"});
+            ps.setString(1, trackingId);
+            ps.setLong(2, request.getUserPolicyId());
+            ps.setBigDecimal(3, request.getClaimAmount());
+            ps.setString(4, request.getDescription());
+            ps.setTimestamp(5, Timestamp.valueOf(LocalDateTime.now()));
+            return ps;
+        }, keyHolder);
+        // If the queue filled up since the check, the staged row is still picked up by the recovery sweep
+        queue.offer(keyHolder.getKey().longValue());
+        return ClaimIntakeStatusDto.of(trackingId, ClaimIntakeStatusDto.IntakeState.QUEUED, null, null);
+    }
+    
+    // Get the intake outcome for a tracking ID
+    public ClaimIntakeStatusDto getStatus(String trackingId) {
+        return claimRepository.findIdByTrackingId(trackingId)
+                .map(claimId -> ClaimIntakeStatusDto.of(trackingId, ClaimIntakeStatusDto.IntakeState.PERSISTED, claimId, null))
+                .or(() -> jdbcTemplate.query("SELECT state, message, updated_at FROM claim_intake WHERE tracking_id = ?",
+                        (rs, rowNum) -> new ClaimIntakeStatusDto(trackingId,
+                                ClaimIntakeStatusDto.IntakeState.valueOf(rs.getString(1)), null, rs.getString(2),
+                                rs.getTimestamp(3).toLocalDateTime()),
+                        trackingId).stream().findFirst())
+                .orElseThrow(() -> new ClaimNotFoundException("No claim intake found with tracking ID: " + trackingId));
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        drainer = Thread.ofPlatform().name("claim-intake-drain").daemon().start(this::runDrain);
+    }
+    
+    // Stop accepting, let the drain thread finish its batch, then persist whatever is still queued
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        accepting = false;
+        if (drainer != null) {
+            drainer.interrupt();
+            drainer.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        List<Long> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            persistBatch(batch);
+            batch.clear();
+        }
+    }
+    
+    private void runDrain() {
+        // Recover rows staged before a restart right away, then periodically
+        long nextRecovery = 0L;
+        List<Long> batch = new ArrayList<>(batchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Long first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    persistBatch(batch);
+                }
+                if (System.currentTimeMillis() >= nextRecovery) {
+                    nextRecovery = System.currentTimeMillis() + recoveryIntervalMillis;
+                    recoverStranded();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                // The staged rows stay QUEUED and are retried by the recovery sweep
+                log.error("Error draining claim intake: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+    
+    // Rows staged but never drained: queued on a node that stopped, overflowed, or a failed batch awaiting retry
+    private void recoverStranded() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(recoveryIntervalMillis));
+        List<Long> stranded;
+        boolean persisted = true;
+        do {
+            stranded = jdbcTemplate.queryForList(SELECT_STRANDED_SQL, Long.class, Timestamp.valueOf(cutoff), batchSize);
+            if (!stranded.isEmpty()) {
+                log.info("Recovering {} stranded claim intake rows", stranded.size());
+                persisted = persistBatch(stranded);
+            }
+            // After a failure, wait for the next sweep rather than burning the retry budget now
+        } while (persisted && stranded.size() == batchSize && !Thread.currentThread().isInterrupted());
+        jdbcTemplate.update(PURGE_FINISHED_SQL,
+                Timestamp.valueOf(LocalDateTime.now().minusMinutes(statusRetentionMinutes)));
+    }
+    
+    private boolean persistBatch(List<Long> stagedIds) {
+        try {
+            transactionTemplate.executeWithoutResult(tx -> persistStaged(stagedIds));
+            return true;
+        } catch (DataAccessException e) {
+            if (stagedIds.size() == 1) {
+                recordFailure(stagedIds, e);
+                return false;
+            }
+            log.warn("Batch of {} queued claims failed, retrying row by row: {}", stagedIds.size(), e.getMessage());
+        }
+        // One bad row shouldn't use up the retry budget of every other row in its batch
+        List<Long> failed = new ArrayList<>();
+        DataAccessException lastFailure = null;
+        for (Long stagedId : stagedIds) {
+            try {
+                transactionTemplate.executeWithoutResult(tx -> persistStaged(List.of(stagedId)));
+            } catch (DataAccessException e) {
+                failed.add(stagedId);
+                lastFailure = e;
+            }
+        }
+        if (failed.isEmpty()) {
+            return true;
+        }
+        recordFailure(failed, lastFailure);
+        return false;
+    }
+    
+    private void recordFailure(List<Long> stagedIds, DataAccessException cause) {
+        log.error("Failed to persist {} queued claims: {}", stagedIds.size(), cause.getMessage(), cause);
+        jdbcTemplate.update(String.format(RECORD_FAILURE_SQL, placeholders(stagedIds.size())), failureArgs(stagedIds));
+    }
+    
+    private void persistStaged(List<Long> stagedIds) {
+        // Rows already taken by another node or a concurrent sweep are skipped
+        List<StagedClaim> staged = jdbcTemplate.query(String.format(SELECT_STAGED_SQL, placeholders(stagedIds.size())),
+                (rs, rowNum) -> new StagedClaim(rs.getLong(1), rs.getString(2), rs.getLong(3), rs.getBigDecimal(4),
+                        rs.getString(5), rs.getTimestamp(6).toLocalDateTime()),
+                stagedIds.toArray());
+        if (staged.isEmpty()) {
+            return;
+        }
+        
+        // One query validates every user policy referenced by the batch
+        Set<Long> userPolicyIds = staged.stream().map(StagedClaim::userPolicyId).collect(Collectors.toSet());
+        Map<Long, Object[]> policyRows = new HashMap<>();
+        for (Object[] row : userPolicyRepository.findStatusesByIds(userPolicyIds)) {
+            policyRows.put((Long) row[0], row);
+        }
+        
+        List<StagedClaim> accepted = new ArrayList<>(staged.size());
+        List<Object[]> rejected = new ArrayList<>();
+        for (StagedClaim claim : staged) {
+            Object[] policyRow = policyRows.get(claim.userPolicyId());
+            if (policyRow == null) {
+                rejected.add(new Object[]{"User policy not found with ID: " + claim.userPolicyId(), claim.id()});
+            } else if (policyRow[2] != UserPolicy.Status.ACTIVE) {
+                rejected.add(new Object[]{"Cannot submit claim for inactive policy", claim.id()});
+            } else {
+                accepted.add(claim);
+            }
+        }
+        if (!rejected.isEmpty()) {
+            jdbcTemplate.batchUpdate(REJECT_SQL, rejected);
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+        
+        jdbcTemplate.batchUpdate(INSERT_CLAIM_SQL, accepted, accepted.size(), (ps, claim) -> {
+            ps.setLong(1, claim.userPolicyId());
+            ps.setBigDecimal(2, claim.claimAmount());
+            ps.setTimestamp(3, Timestamp.valueOf(claim.submittedAt()));
+            ps.setString(4, Claim.ClaimStatus.PENDING.name());
+            ps.setString(5, claim.description());
+            ps.setString(6, claim.trackingId());
+        });
+        List<Long> acceptedIds = accepted.stream().map(StagedClaim::id).toList();
+        jdbcTemplate.update("DELETE FROM claim_intake WHERE id IN (" + placeholders(acceptedIds.size()) + ")",
+                acceptedIds.toArray());
+        publishCreated(accepted, policyRows);
+        log.info("Persisted {} queued claims ({} rejected)", accepted.size(), rejected.size());
+    }
+    
+    // Resolve the generated IDs in one query so listeners see the same events as for single submissions
+    private void publishCreated(List<StagedClaim> accepted, Map<Long, Object[]> policyRows) {
+        Map<String, StagedClaim> byTrackingId = accepted.stream()
+                .collect(Collectors.toMap(StagedClaim::trackingId, claim -> claim));
+        for (Object[] row : claimRepository.findIdsByTrackingIds(byTrackingId.keySet())) {
+            StagedClaim claim = byTrackingId.get((String) row[1]);
+            Long userId = (Long) policyRows.get(claim.userPolicyId())[1];
+            eventPublisher.publishEvent(new ClaimStatusChangedEvent((Long) row[0], userId, claim.userPolicyId(),
+                    null, Claim.ClaimStatus.PENDING, claim.submittedAt()));
+        }
+    }
+    
+    private Object[] failureArgs(List<Long> stagedIds) {
+        List<Object> args = new ArrayList<>(stagedIds.size() + 2);
+        args.add(maxAttempts);
+        args.add(maxAttempts);
+        args.addAll(stagedIds);
+        return args.toArray();
+    }
+    
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+    
+    private record StagedClaim(long id, String trackingId, Long userPolicyId, BigDecimal claimAmount,
+                               String description, LocalDateTime submittedAt) {
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.insurance_app.claims;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClaimIntakeStatusDto {
+    
+    private String trackingId;
+    private IntakeState state;
+    private Long claimId;
+    private String message;
+    private LocalDateTime updatedAt;
+    
+    public enum IntakeState {
+        QUEUED("Queued"),
+        PERSISTED("Persisted"),
+        REJECTED("Rejected"),
+        FAILED("Failed");
+        
+        private final String displayName;
+        
+        IntakeState(String displayName) {
+            this.displayName = displayName;
+        }
+        
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+    
+    public static ClaimIntakeStatusDto of(String trackingId, IntakeState state, Long claimId, String message) {
+        return new ClaimIntakeStatusDto(trackingId, state, claimId, message, LocalDateTime.now());
+    }
+}
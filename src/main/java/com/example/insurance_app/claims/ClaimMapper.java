@@ -1,11 +1,13 @@
 package com.example.insurance_app.claims;
 
+import com.example.insurance_app.user_policies.UserPolicyMapper;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
 import java.util.List;
 
-@Mapper(componentModel = "spring")
+// The holding goes through UserPolicyMapper so it carries its pinned version and computed fields
+@Mapper(componentModel = "spring", uses = UserPolicyMapper.class)
 public interface ClaimMapper {
     
     ClaimDto toDto(Claim claim);
@@ -17,5 +19,7 @@ public interface ClaimMapper {
     @Mapping(target = "claimDate", ignore = true)
     @Mapping(target = "status", ignore = true)
     @Mapping(target = "processedBy", ignore = true)
+    @Mapping(target = "trackingId", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
     Claim toEntity(ClaimCreateRequest request);
 }
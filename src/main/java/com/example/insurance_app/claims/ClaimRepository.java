@@ -1,15 +1,34 @@
 package com.example.insurance_app.claims;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ClaimRepository extends JpaRepository<Claim, Long> {
     
+    // Shared projection for listings: every ClaimDto field in one joined SELECT, no lazy loading
+    String CLAIM_DTO_SELECT = "SELECT new com.example.insurance_app.claims.ClaimDto(" +
+            "c.id, c.claimAmount, c.claimDate, c.status, c.description, " +
+            "up.id, up.startDate, up.endDate, up.status, up.nextPremiumDue, up.createdAt, " +
+            "u.id, u.name, u.email, " +
+            "p.id, p.policyNumber, p.type, p.coverageAmount, p.premiumAmount, p.termYears, p.premiumFrequency, " +
+            "pb.id, pb.name, pb.email, pb.role) " +
+            "FROM Claim c JOIN c.userPolicy up JOIN up.user u JOIN up.policy p LEFT JOIN c.processedBy pb ";
+    
+    // Keyset condition on (claim_date, id); a null cursor starts from the first row
+    String AFTER_CURSOR = "(:afterDate IS NULL OR c.claimDate > :afterDate " +
+            "OR (c.claimDate = :afterDate AND c.id > :afterId)) ";
+    
+    String CURSOR_ORDER = "ORDER BY c.claimDate ASC, c.id ASC";
+    
     // Find claims by user ID
     @Query("SELECT c FROM Claim c JOIN c.userPolicy up WHERE up.user.id = :userId")
     List<Claim> findByUserId(@Param("userId") Long userId);
@@ -26,4 +45,63 @@ public interface ClaimRepository extends JpaRepository<Claim, Long> {
     // Count claims by user
     @Query("SELECT COUNT(c) FROM Claim c JOIN c.userPolicy up WHERE up.user.id = :userId")
     long countByUserId(@Param("userId") Long userId);
+    
+    // Resolve the claim persisted for an intake tracking ID
+    @Query("SELECT c.id FROM Claim c WHERE c.trackingId = :trackingId")
+    Optional<Long> findIdByTrackingId(@Param("trackingId") String trackingId);
+    
+    // Claim IDs for a set of intake tracking IDs, as (id, trackingId) pairs
+    @Query("SELECT c.id, c.trackingId FROM Claim c WHERE c.trackingId IN :trackingIds")
+    List<Object[]> findIdsByTrackingIds(@Param("trackingIds") Collection<String> trackingIds);
+    
+    // Current status of a claim without loading it
+    @Query("SELECT c.status FROM Claim c WHERE c.id = :id")
+    Optional<Claim.ClaimStatus> findStatusById(@Param("id") Long id);
+    
+    // (id, claimDate) of every claim in a status, used to rebuild SLA timers on startup
+    @Query("SELECT c.id, c.claimDate FROM Claim c WHERE c.status = :status")
+    List<Object[]> findIdsAndClaimDatesByStatus(@Param("status") Claim.ClaimStatus status);
+    
+    // (id, claimDate) of claims in a status written since the given time
+    @Query("SELECT c.id, c.claimDate FROM Claim c WHERE c.status = :status AND c.updatedAt >= :since")
+    List<Object[]> findIdsAndClaimDatesByStatusUpdatedSince(@Param("status") Claim.ClaimStatus status,
+                                                            @Param("since") LocalDateTime since);
+    
+    // Claim DTOs for a set of IDs, unordered
+    @Query(CLAIM_DTO_SELECT + "WHERE c.id IN :ids")
+    List<ClaimDto> findDtosByIds(@Param("ids") Collection<Long> ids);
+    
+    // Claim counts per (userId, status), used to reconcile the in-memory counters
+    @Query("SELECT up.user.id, c.status, COUNT(c) FROM Claim c JOIN c.userPolicy up GROUP BY up.user.id, c.status")
+    List<Object[]> countByUserIdAndStatus();
+    
+    // Page of claim DTOs for a user, keyset-ordered by (claim_date, id)
+    @Query(CLAIM_DTO_SELECT + "WHERE u.id = :userId AND " + AFTER_CURSOR + CURSOR_ORDER)
+    List<ClaimDto> findDtosByUserId(@Param("userId") Long userId,
+                                    @Param("afterDate") LocalDateTime afterDate,
+                                    @Param("afterId") Long afterId,
+                                    Limit limit);
+    
+    // Claim DTOs for a user created or changed since the given time, for delta sync
+    @Query(CLAIM_DTO_SELECT + "WHERE u.id = :userId AND c.updatedAt >= :since ORDER BY c.updatedAt ASC, c.id ASC")
+    List<ClaimDto> findDtosChangedByUserId(@Param("userId") Long userId, @Param("since") LocalDateTime since);
+    
+    // Claim DTOs for a user in the given status, oldest first
+    @Query(CLAIM_DTO_SELECT + "WHERE u.id = :userId AND c.status = :status " + CURSOR_ORDER)
+    List<ClaimDto> findDtosByUserIdAndStatus(@Param("userId") Long userId,
+                                             @Param("status") Claim.ClaimStatus status,
+                                             Limit limit);
+    
+    // Page of claim DTOs with the given status, keyset-ordered by (claim_date, id)
+    @Query(CLAIM_DTO_SELECT + "WHERE c.status = :status AND " + AFTER_CURSOR + CURSOR_ORDER)
+    List<ClaimDto> findDtosByStatus(@Param("status") Claim.ClaimStatus status,
+                                    @Param("afterDate") LocalDateTime afterDate,
+                                    @Param("afterId") Long afterId,
+                                    Limit limit);
+    
+    // Page of all claim DTOs, keyset-ordered by (claim_date, id)
+    @Query(CLAIM_DTO_SELECT + "WHERE " + AFTER_CURSOR + CURSOR_ORDER)
+    List<ClaimDto> findAllDtos(@Param("afterDate") LocalDateTime afterDate,
+                               @Param("afterId") Long afterId,
+                               Limit limit);
 }
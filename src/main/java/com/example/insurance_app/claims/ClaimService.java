@@ -1,5 +1,7 @@
 package com.example.insurance_app.claims;
 
+import com.example.insurance_app.common.DeltaSyncResponse;
+import com.example.insurance_app.common.SyncTombstoneService;
 import com.example.insurance_app.exceptions.ClaimNotFoundException;
 import com.example.insurance_app.exceptions.PolicyOperationException;
 import com.example.insurance_app.user_policies.UserPolicy;
@@ -8,10 +10,17 @@ import com.example.insurance_app.users.User;
 import com.example.insurance_app.users.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -22,6 +31,12 @@ public class ClaimService {
     private final UserPolicyRepository userPolicyRepository;
     private final UserRepository userRepository;
     private final ClaimMapper claimMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ClaimEscalationService claimEscalationService;
+    private final SyncTombstoneService syncTombstoneService;
+    
+    // Upper bound for a single keyset page on the listing endpoints
+    private static final int MAX_PAGE_SIZE = 500;
     
     // Submit a new claim
     @Transactional
@@ -41,15 +56,30 @@ public class ClaimService {
         claim.setStatus(Claim.ClaimStatus.PENDING);
         
         Claim savedClaim = claimRepository.save(claim);
+        publishStatusChange(savedClaim, null);
         log.info("Claim submitted successfully with ID {}", savedClaim.getId());
         return claimMapper.toDto(savedClaim);
     }
     
-    // Get claims for a specific user
+    // Get claims for a specific user, one page after the (claimDate, id) cursor
+    @Transactional(readOnly = true)
+    public List<ClaimDto> getClaimsByUserId(Long userId, LocalDateTime afterDate, Long afterId, int limit) {
+        validateCursor(afterDate, afterId);
+        return claimRepository.findDtosByUserId(userId, afterDate, afterId, pageLimit(limit));
+    }
+    
+    // Delta sync of a user's claims: everything for an empty token, otherwise changes and removals since it
+    @Transactional(readOnly = true)
+    public DeltaSyncResponse<ClaimDto> getClaimChanges(Long userId, String since) {
+        return syncTombstoneService.delta(userId, SyncTombstoneService.EntityType.CLAIM, since,
+                () -> claimRepository.findDtosByUserId(userId, null, null, Limit.unlimited()),
+                changedSince -> claimRepository.findDtosChangedByUserId(userId, changedSince));
+    }
+    
+    // Get a user's claims still awaiting a decision, oldest first
     @Transactional(readOnly = true)
-    public List<ClaimDto> getClaimsByUserId(Long userId) {
-        List<Claim> claims = claimRepository.findByUserId(userId);
-        return claimMapper.toDtoList(claims);
+    public List<ClaimDto> getOpenClaimsByUserId(Long userId, int limit) {
+        return claimRepository.findDtosByUserIdAndStatus(userId, Claim.ClaimStatus.PENDING, pageLimit(limit));
     }
     
     // Get claim by ID
@@ -60,11 +90,27 @@ public class ClaimService {
         return claimMapper.toDto(claim);
     }
     
-    // Get all pending claims (for admin/agent review)
+    // Get pending claims oldest first (for admin/agent review), one page after the cursor
     @Transactional(readOnly = true)
-    public List<ClaimDto> getPendingClaims() {
-        List<Claim> pendingClaims = claimRepository.findByStatusOrderByClaimDateAsc(Claim.ClaimStatus.PENDING);
-        return claimMapper.toDtoList(pendingClaims);
+    public List<ClaimDto> getPendingClaims(LocalDateTime afterDate, Long afterId, int limit) {
+        validateCursor(afterDate, afterId);
+        return claimRepository.findDtosByStatus(Claim.ClaimStatus.PENDING, afterDate, afterId, pageLimit(limit));
+    }
+    
+    // Get pending claims that breached their SLA, most overdue first (agents work these before the regular queue)
+    @Transactional(readOnly = true)
+    public List<ClaimDto> getEscalatedClaims() {
+        List<Long> escalatedIds = claimEscalationService.getEscalatedClaimIds();
+        if (escalatedIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, ClaimDto> claimsById = claimRepository.findDtosByIds(escalatedIds).stream()
+                .collect(Collectors.toMap(ClaimDto::getId, Function.identity()));
+        return escalatedIds.stream()
+                .map(claimsById::get)
+                .filter(Objects::nonNull)
+                .filter(claim -> claim.getStatus() == Claim.ClaimStatus.PENDING)
+                .collect(Collectors.toList());
     }
     
     // Approve a claim
@@ -80,10 +126,12 @@ public class ClaimService {
         User processedBy = userRepository.findById(processedByUserId)
                 .orElseThrow(() -> new PolicyOperationException("User not found with ID: " + processedByUserId));
         
+        Claim.ClaimStatus previousStatus = claim.getStatus();
         claim.setStatus(Claim.ClaimStatus.APPROVED);
         claim.setProcessedBy(processedBy);
         
         Claim updatedClaim = claimRepository.save(claim);
+        publishStatusChange(updatedClaim, previousStatus);
         return claimMapper.toDto(updatedClaim);
     }
     
@@ -100,10 +148,12 @@ public class ClaimService {
         User processedBy = userRepository.findById(processedByUserId)
                 .orElseThrow(() -> new PolicyOperationException("User not found with ID: " + processedByUserId));
         
+        Claim.ClaimStatus previousStatus = claim.getStatus();
         claim.setStatus(Claim.ClaimStatus.REJECTED);
         claim.setProcessedBy(processedBy);
         
         Claim updatedClaim = claimRepository.save(claim);
+        publishStatusChange(updatedClaim, previousStatus);
         return claimMapper.toDto(updatedClaim);
     }
     
@@ -115,11 +165,11 @@ public class ClaimService {
                 .orElse(false);
     }
     
-    // Get all claims (admin only)
+    // Get all claims (admin only), one page after the cursor
     @Transactional(readOnly = true)
-    public List<ClaimDto> getAllClaims() {
-        List<Claim> allClaims = claimRepository.findAll();
-        return claimMapper.toDtoList(allClaims);
+    public List<ClaimDto> getAllClaims(LocalDateTime afterDate, Long afterId, int limit) {
+        validateCursor(afterDate, afterId);
+        return claimRepository.findAllDtos(afterDate, afterId, pageLimit(limit));
     }
 
     // Check if user is the owner of the policy
@@ -129,4 +179,24 @@ public class ClaimService {
                 .map(userPolicy -> userPolicy.getUser().getId().equals(userId))
                 .orElse(false);
     }
+    
+    private void publishStatusChange(Claim claim, Claim.ClaimStatus previousStatus) {
+        UserPolicy userPolicy = claim.getUserPolicy();
+        eventPublisher.publishEvent(new ClaimStatusChangedEvent(claim.getId(), userPolicy.getUser().getId(),
+                userPolicy.getId(), previousStatus, claim.getStatus(), claim.getClaimDate()));
+    }
+    
+    private Limit pageLimit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page limit must be at least 1");
+        }
+        return Limit.of(Math.min(limit, MAX_PAGE_SIZE));
+    }
+    
+    // The (claimDate, id) cursor only works as a pair; a date alone would skip rows sharing that timestamp
+    private static void validateCursor(LocalDateTime afterDate, Long afterId) {
+        if ((afterDate == null) != (afterId == null)) {
+            throw new IllegalArgumentException("afterDate and afterId must be passed together");
+        }
+    }
 }
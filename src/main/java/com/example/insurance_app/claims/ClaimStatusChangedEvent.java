@@ -0,0 +1,12 @@
+package com.example.insurance_app.claims;
+
+import java.time.LocalDateTime;
+
+// Published inside the writing transaction; listeners use @TransactionalEventListener to act after commit
+public record ClaimStatusChangedEvent(Long claimId,
+                                      Long userId,
+                                      Long userPolicyId,
+                                      Claim.ClaimStatus previousStatus,
+                                      Claim.ClaimStatus newStatus,
+                                      LocalDateTime claimDate) {
+}
@@ -0,0 +1,25 @@
+package com.example.insurance_app.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeltaSyncResponse<T> {
+    
+    // Rows created or changed since the token; clients upsert them by id
+    private List<T> changed;
+    
+    // Ids of rows removed since the token; clients delete them locally
+    private List<Long> removedIds;
+    
+    // Pass as ?since= on the next sync
+    private String nextToken;
+    
+    // The token is older than tombstone retention; the client must discard its copy and reload the full list
+    private boolean fullResyncRequired;
+}
@@ -0,0 +1,64 @@
+package com.example.insurance_app.common;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Lease-based locks in the job_locks table. A node holds a job's lock until it releases
+ * it or the lease runs out, so a crashed node cannot block the job for longer than one lease.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class JobLockService {
+    
+    private static final String NODE_ID = resolveNodeId();
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    // Try to take (or extend) the lease on a job; true if this node now holds it
+    public boolean tryAcquire(String jobName, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp lockedUntil = Timestamp.valueOf(now.plus(lease));
+        int updated = jdbcTemplate.update(
+                "UPDATE job_locks SET locked_by = ?, locked_until = ? " +
+                "WHERE job_name = ? AND (locked_until IS NULL OR locked_until < ? OR locked_by = ?)",
+                NODE_ID, lockedUntil, jobName, Timestamp.valueOf(now), NODE_ID);
+        if (updated == 1) {
+            return true;
+        }
+        try {
+            jdbcTemplate.update("INSERT INTO job_locks (job_name, locked_by, locked_until) VALUES (?, ?, ?)",
+                    jobName, NODE_ID, lockedUntil);
+            return true;
+        } catch (DuplicateKeyException e) {
+            log.debug("Job {} is locked by another node", jobName);
+            return false;
+        }
+    }
+    
+    // Give up the lease early if this node still holds it
+    public void release(String jobName) {
+        jdbcTemplate.update("UPDATE job_locks SET locked_by = NULL, locked_until = NULL WHERE job_name = ? AND locked_by = ?",
+                jobName, NODE_ID);
+    }
+    
+    private static String resolveNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + ":" + UUID.randomUUID();
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.insurance_app.common;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Named single-flight groups shared across the application, so their counters can be reported in one place
+@Component
+public class SingleFlightRegistry {
+    
+    private final Map<String, SingleFlight<?, ?>> flights = new ConcurrentHashMap<>();
+    
+    @SuppressWarnings("unchecked")
+    public <K, V> SingleFlight<K, V> get(String name) {
+        return (SingleFlight<K, V>) flights.computeIfAbsent(name, SingleFlight::new);
+    }
+    
+    public List<SingleFlightStatsDto> stats() {
+        return flights.values().stream()
+                .map(SingleFlight::stats)
+                .sorted(Comparator.comparing(SingleFlightStatsDto::name))
+                .toList();
+    }
+}
@@ -0,0 +1,5 @@
+package com.example.insurance_app.common;
+
+// Loads actually run, callers that joined an in-flight load instead, and loads running now
+public record SingleFlightStatsDto(String name, long loads, long coalesced, int inFlight) {
+}
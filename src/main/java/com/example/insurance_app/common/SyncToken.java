@@ -0,0 +1,43 @@
+package com.example.insurance_app.common;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+
+// Opaque delta-sync cursor: the server time at which a sync response was produced
+public record SyncToken(Instant issuedAt) {
+    
+    // Rows committed by transactions still in flight when a token was issued can carry an
+    // earlier updated_at, so every delta re-reads this window; clients upsert by id
+    private static final Duration OVERLAP = Duration.ofSeconds(5);
+    private static final String PREFIX = "v1:";
+    
+    public static SyncToken now() {
+        return new SyncToken(Instant.now());
+    }
+    
+    public static SyncToken parse(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(PREFIX)) {
+                throw new IllegalArgumentException("Invalid sync token");
+            }
+            return new SyncToken(Instant.ofEpochMilli(Long.parseLong(decoded.substring(PREFIX.length()))));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid sync token", e);
+        }
+    }
+    
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + issuedAt.toEpochMilli()).getBytes(StandardCharsets.UTF_8));
+    }
+    
+    // Lower bound for updated_at / deleted_at when reading changes since this token
+    public LocalDateTime changedSince() {
+        return LocalDateTime.ofInstant(issuedAt.minus(OVERLAP), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.insurance_app.common;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Records removals for delta sync. Deleted rows leave no trace in their own tables, so
+ * callers record a tombstone per removed row in the same transaction as the delete.
+ * Tombstones older than the retention period are purged daily.
+ */
+@Service
+@Slf4j
+public class SyncTombstoneService {
+    
+    public enum EntityType {
+        USER_POLICY,
+        PAYMENT,
+        CLAIM
+    }
+    
+    public record Removal(long entityId, long userId) {
+    }
+    
+    private static final int PURGE_BATCH_SIZE = 10000;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration retention;
+    
+    public SyncTombstoneService(JdbcTemplate jdbcTemplate,
+                                @Value("${sync.tombstone-retention-days:90}") long retentionDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.retention = Duration.ofDays(retentionDays);
+    }
+    
+    // Tombstone a batch of rows of one type that are being deleted
+    public void recordRemovals(EntityType entityType, List<Removal> removals) {
+        if (removals.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO sync_tombstones (user_id, entity_type, entity_id) VALUES (?, ?, ?)",
+                removals, removals.size(), (ps, removal) -> {
+                    ps.setLong(1, removal.userId());
+                    ps.setString(2, entityType.name());
+                    ps.setLong(3, removal.entityId());
+                });
+    }
+    
+    // Ids of a user's rows of the given type removed since the token
+    public List<Long> findRemovedIds(Long userId, EntityType entityType, SyncToken since) {
+        return jdbcTemplate.queryForList(
+                "SELECT entity_id FROM sync_tombstones WHERE user_id = ? AND entity_type = ? AND deleted_at >= ?",
+                Long.class, userId, entityType.name(), Timestamp.valueOf(since.changedSince()));
+    }
+    
+    // Build a delta response: the full list for an empty or expired token, otherwise changed rows plus tombstones
+    public <T> DeltaSyncResponse<T> delta(Long userId, EntityType entityType, String since,
+                                          Supplier<List<T>> fullList,
+                                          Function<LocalDateTime, List<T>> changedSince) {
+        // Issued before reading so nothing committed during the read is skipped next time
+        SyncToken next = SyncToken.now();
+        if (since == null || since.isBlank()) {
+            return new DeltaSyncResponse<>(fullList.get(), List.of(), next.encode(), false);
+        }
+        SyncToken token = SyncToken.parse(since);
+        if (isExpired(token)) {
+            return new DeltaSyncResponse<>(fullList.get(), List.of(), next.encode(), true);
+        }
+        return new DeltaSyncResponse<>(changedSince.apply(token.changedSince()),
+                findRemovedIds(userId, entityType, token), next.encode(), false);
+    }
+    
+    // Tokens older than retention may have missed purged tombstones
+    public boolean isExpired(SyncToken since) {
+        return since.issuedAt().isBefore(Instant.now().minus(retention));
+    }
+    
+    @Scheduled(cron = "${sync.tombstone-purge-cron:0 45 3 * * ?}")
+    public void purgeExpired() {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minus(retention));
+        int purged = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update("DELETE FROM sync_tombstones WHERE deleted_at < ? LIMIT " + PURGE_BATCH_SIZE, cutoff);
+            purged += deleted;
+        } while (deleted == PURGE_BATCH_SIZE);
+        log.info("Purged {} expired sync tombstones", purged);
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.insurance_app.exceptions;
+
+public class ClaimIntakeQueueFullException extends RuntimeException {
+    
+    public ClaimIntakeQueueFullException(int capacity) {
+        super("Claim intake queue is full (capacity " + capacity + "). Please retry shortly");
+    }
+}
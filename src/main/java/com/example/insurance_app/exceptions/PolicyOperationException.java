@@ -18,6 +18,18 @@ public class PolicyOperationException extends RuntimeException {
         return new PolicyOperationException("Cannot renew policy: " + reason);
     }
     
+    public static PolicyOperationException cannotPurge(String reason) {
+        return new PolicyOperationException("Cannot purge policy: " + reason);
+    }
+    
+    public static PolicyOperationException cannotReprice(String reason) {
+        return new PolicyOperationException("Cannot reprice policies: " + reason);
+    }
+    
+    public static PolicyOperationException alreadyHeld(Long userId, Long policyId) {
+        return new PolicyOperationException("User " + userId + " already has an active or pending holding of policy " + policyId);
+    }
+    
     public static PolicyOperationException invalidStatusTransition(String from, String to) {
         return new PolicyOperationException("Invalid status transition from " + from + " to " + to);
     }
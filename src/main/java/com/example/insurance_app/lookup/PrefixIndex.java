@@ -0,0 +1,181 @@
+package com.example.insurance_app.lookup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Prefix lookup over lower-cased keys. The base is an array of entries sorted by key, searched
+ * with a binary search to the first key at or after the prefix and a forward scan. Writes since
+ * the base was built go to a small sorted delta, and the ids they replace or remove are masked
+ * out of the base; the delta is folded into a new base once it passes the compaction threshold.
+ */
+final class PrefixIndex {
+    
+    private static final Comparator<Entry> ORDER = Comparator.comparing(Entry::key).thenComparingLong(Entry::id);
+    
+    private final int compactThreshold;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    // Guarded by lock
+    private Entry[] base = new Entry[0];
+    // Id -> its delta entry, or null when removed; either way the base entry of that id is masked
+    private final Map<Long, Entry> overrides = new HashMap<>();
+    private final TreeSet<Entry> delta = new TreeSet<>(ORDER);
+    
+    PrefixIndex(int compactThreshold) {
+        this.compactThreshold = compactThreshold;
+    }
+    
+    // One indexed row; groupId ties rows to a parent so they can be dropped together
+    record Entry(String key, long id, long groupId, String value, String label) {
+        
+        static Entry of(long id, long groupId, String value, String label) {
+            return new Entry(normalize(value), id, groupId, value, label);
+        }
+    }
+    
+    static String normalize(String text) {
+        return text.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    // First entries whose key starts with the (normalized) prefix, in key order
+    List<Entry> find(String prefix, int limit) {
+        List<Entry> result = new ArrayList<>(Math.min(limit, 64));
+        Entry probe = new Entry(prefix, Long.MIN_VALUE, 0L, null, null);
+        lock.readLock().lock();
+        try {
+            int slot = Arrays.binarySearch(base, probe, ORDER);
+            slot = nextBaseSlot(slot >= 0 ? slot : -slot - 1, prefix);
+            Iterator<Entry> recent = delta.tailSet(probe).iterator();
+            Entry fromDelta = nextFromDelta(recent, prefix);
+            while (result.size() < limit && (slot >= 0 || fromDelta != null)) {
+                if (fromDelta == null || (slot >= 0 && ORDER.compare(base[slot], fromDelta) < 0)) {
+                    result.add(base[slot]);
+                    slot = nextBaseSlot(slot + 1, prefix);
+                } else {
+                    result.add(fromDelta);
+                    fromDelta = nextFromDelta(recent, prefix);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // Next unmasked base slot at or after from whose key still matches the prefix, or -1
+    private int nextBaseSlot(int from, String prefix) {
+        for (int i = from; i < base.length && base[i].key().startsWith(prefix); i++) {
+            if (!overrides.containsKey(base[i].id())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    private static Entry nextFromDelta(Iterator<Entry> recent, String prefix) {
+        if (recent.hasNext()) {
+            Entry entry = recent.next();
+            return entry.key().startsWith(prefix) ? entry : null;
+        }
+        return null;
+    }
+    
+    // Swap in a freshly loaded set of entries and drop the delta
+    void replaceAll(List<Entry> entries) {
+        Entry[] sorted = entries.toArray(new Entry[0]);
+        Arrays.sort(sorted, ORDER);
+        lock.writeLock().lock();
+        try {
+            base = sorted;
+            overrides.clear();
+            delta.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    void upsert(Entry entry) {
+        lock.writeLock().lock();
+        try {
+            Entry previous = overrides.put(entry.id(), entry);
+            if (previous != null) {
+                delta.remove(previous);
+            }
+            delta.add(entry);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            Entry previous = overrides.put(id, null);
+            if (previous != null) {
+                delta.remove(previous);
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    // Remove every entry of a group; a scan, meant for rare parent deletions
+    void removeGroup(long groupId) {
+        lock.writeLock().lock();
+        try {
+            for (Entry entry : base) {
+                if (entry.groupId() == groupId) {
+                    overrides.put(entry.id(), null);
+                }
+            }
+            delta.removeIf(entry -> {
+                if (entry.groupId() == groupId) {
+                    overrides.put(entry.id(), null);
+                    return true;
+                }
+                return false;
+            });
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    // Merge the unmasked base and the delta, both already sorted, into a new base
+    private void compactIfNeeded() {
+        if (overrides.size() <= compactThreshold) {
+            return;
+        }
+        Entry[] merged = new Entry[base.length + delta.size()];
+        int size = 0;
+        int slot = 0;
+        for (Entry recent : delta) {
+            for (; slot < base.length && ORDER.compare(base[slot], recent) < 0; slot++) {
+                if (!overrides.containsKey(base[slot].id())) {
+                    merged[size++] = base[slot];
+                }
+            }
+            merged[size++] = recent;
+        }
+        for (; slot < base.length; slot++) {
+            if (!overrides.containsKey(base[slot].id())) {
+                merged[size++] = base[slot];
+            }
+        }
+        base = Arrays.copyOf(merged, size);
+        overrides.clear();
+        delta.clear();
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.insurance_app.lookup;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/lookup")
+@RequiredArgsConstructor
+@Tag(name = "Lookup", description = "Typeahead over policy numbers, user policy ids and customer emails from in-memory prefix indexes")
+public class TypeaheadController {
+    
+    private final TypeaheadService typeaheadService;
+    
+    @GetMapping("/typeahead")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('AGENT')")
+    @Operation(summary = "Suggest matches for a partial identifier", description = "Policy numbers, user policy ids and user emails starting with the query (case-insensitive), in key order (max 50)")
+    public ResponseEntity<List<TypeaheadMatchDto>> suggest(
+            @Parameter(description = "Typed prefix") @RequestParam String q,
+            @Parameter(description = "Kinds to search, all when omitted") @RequestParam(required = false) Set<TypeaheadMatchDto.Kind> kinds,
+            @Parameter(description = "Number of suggestions (max 50)") @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(typeaheadService.suggest(q, kinds, limit));
+    }
+}
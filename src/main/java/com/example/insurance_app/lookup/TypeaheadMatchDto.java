@@ -0,0 +1,11 @@
+package com.example.insurance_app.lookup;
+
+// One typeahead suggestion: value is the matched text, label a short description for the dropdown
+public record TypeaheadMatchDto(Kind kind, Long id, String value, String label) {
+    
+    public enum Kind {
+        POLICY_NUMBER,
+        USER_POLICY,
+        USER_EMAIL
+    }
+}
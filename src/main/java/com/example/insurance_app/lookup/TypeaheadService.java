@@ -0,0 +1,284 @@
+package com.example.insurance_app.lookup;
+
+import com.example.insurance_app.policies.Policy;
+import com.example.insurance_app.policies.PolicyCatalogChangedEvent;
+import com.example.insurance_app.user_policies.UserPolicyStatusChangedEvent;
+import com.example.insurance_app.users.UserRegisteredEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongConsumer;
+
+/**
+ * Typeahead over policy numbers, user policy ids and user emails for agents on the phone.
+ * Each kind is a {@link PrefixIndex}: a sorted array answered by binary search plus a small
+ * delta. All three are loaded on a background thread after startup and rebuilt periodically;
+ * policies, users and user policies touched by committed writes are re-read in batches shortly
+ * after the commit, the way the user policy index is kept current. Until the first load
+ * completes, lookups fall back to prefix LIKE queries.
+ */
+@Service
+@Slf4j
+public class TypeaheadService {
+    
+    private static final String SELECT_POLICIES =
+            "SELECT id, policy_number, type, retired_at FROM policies ";
+    private static final String SELECT_USERS =
+            "SELECT id, email, name FROM users ";
+    private static final String SELECT_USER_POLICIES =
+            "SELECT up.id, up.policy_id, p.policy_number, u.email, up.status FROM user_policies up " +
+            "JOIN policies p ON p.id = up.policy_id JOIN users u ON u.id = up.user_id ";
+    private static final int MAX_LIMIT = 50;
+    private static final int REFRESH_CHUNK_SIZE = 1000;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final int loadChunkSize;
+    private final Map<TypeaheadMatchDto.Kind, PrefixIndex> indexes = new EnumMap<>(TypeaheadMatchDto.Kind.class);
+    
+    private final Set<Long> dirtyPolicyIds = ConcurrentHashMap.newKeySet();
+    private final Set<Long> dirtyUserIds = ConcurrentHashMap.newKeySet();
+    private final Set<Long> dirtyUserPolicyIds = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean allPoliciesDirty = new AtomicBoolean();
+    private final ExecutorService rebuilder =
+            Executors.newSingleThreadExecutor(Thread.ofPlatform().name("typeahead-rebuild").daemon().factory());
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    private volatile boolean ready;
+    
+    public TypeaheadService(JdbcTemplate jdbcTemplate,
+                            @Value("${lookup.typeahead.load-chunk-size:50000}") int loadChunkSize,
+                            @Value("${lookup.typeahead.compact-threshold:4096}") int compactThreshold) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.loadChunkSize = loadChunkSize;
+        for (TypeaheadMatchDto.Kind kind : TypeaheadMatchDto.Kind.values()) {
+            indexes.put(kind, new PrefixIndex(compactThreshold));
+        }
+    }
+    
+    // Top matches across the requested kinds, in key order
+    public List<TypeaheadMatchDto> suggest(String query, Set<TypeaheadMatchDto.Kind> kinds, int limit) {
+        String prefix = query != null ? PrefixIndex.normalize(query) : "";
+        if (prefix.isEmpty()) {
+            return List.of();
+        }
+        int cappedLimit = Math.min(Math.max(limit, 1), MAX_LIMIT);
+        Set<TypeaheadMatchDto.Kind> selected = kinds == null || kinds.isEmpty()
+                ? EnumSet.allOf(TypeaheadMatchDto.Kind.class) : kinds;
+    
+        List<Match> matches = new ArrayList<>();
+        for (TypeaheadMatchDto.Kind kind : selected) {
+            List<PrefixIndex.Entry> entries = ready
+                    ? indexes.get(kind).find(prefix, cappedLimit)
+                    : findInDatabase(kind, prefix, cappedLimit);
+            entries.forEach(entry -> matches.add(new Match(kind, entry)));
+        }
+        return matches.stream()
+                .sorted(Comparator.comparing((Match match) -> match.entry().key()).thenComparing(Match::kind))
+                .limit(cappedLimit)
+                .map(match -> new TypeaheadMatchDto(match.kind(), match.entry().id(), match.entry().value(),
+                        match.entry().label()))
+                .toList();
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        requestRebuild();
+    }
+    
+    @Scheduled(cron = "${lookup.typeahead.rebuild-cron:0 15 */6 * * ?}")
+    public void scheduledRebuild() {
+        requestRebuild();
+    }
+    
+    // Queue a full reload on the rebuild thread; false if one is already queued
+    public boolean requestRebuild() {
+        if (!rebuildQueued.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            rebuilder.execute(() -> {
+                rebuildQueued.set(false);
+                rebuild();
+            });
+        } catch (RejectedExecutionException e) {
+            rebuildQueued.set(false);
+            return false;
+        }
+        return true;
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+    
+    // Full reload of all three kinds; also drops the deltas
+    private synchronized void rebuild() {
+        try {
+            long started = System.nanoTime();
+            List<PrefixIndex.Entry> policies = jdbcTemplate.query(SELECT_POLICIES, this::policyEntry);
+            List<PrefixIndex.Entry> users = loadInChunks(SELECT_USERS + "WHERE id > ? ORDER BY id LIMIT ?",
+                    this::userEntry);
+            List<PrefixIndex.Entry> userPolicies = loadInChunks(
+                    SELECT_USER_POLICIES + "WHERE up.id > ? ORDER BY up.id LIMIT ?", this::userPolicyEntry);
+            indexes.get(TypeaheadMatchDto.Kind.POLICY_NUMBER).replaceAll(policies);
+            indexes.get(TypeaheadMatchDto.Kind.USER_EMAIL).replaceAll(users);
+            indexes.get(TypeaheadMatchDto.Kind.USER_POLICY).replaceAll(userPolicies);
+            ready = true;
+            log.info("Built typeahead indexes with {} policies, {} users and {} user policies in {} ms",
+                    policies.size(), users.size(), userPolicies.size(), (System.nanoTime() - started) / 1_000_000);
+        } catch (Exception e) {
+            log.error("Failed to build typeahead indexes: {}", e.getMessage(), e);
+        }
+    }
+    
+    private List<PrefixIndex.Entry> loadInChunks(String sql, RowMapper<PrefixIndex.Entry> mapper) {
+        List<PrefixIndex.Entry> entries = new ArrayList<>();
+        long lastId = 0L;
+        int loaded;
+        do {
+            List<PrefixIndex.Entry> chunk = jdbcTemplate.query(sql, mapper, lastId, loadChunkSize);
+            entries.addAll(chunk);
+            loaded = chunk.size();
+            if (loaded > 0) {
+                lastId = chunk.get(loaded - 1).id();
+            }
+        } while (loaded == loadChunkSize);
+        return entries;
+    }
+    
+    // A null policy id is a bulk change; purged policies take their holdings with them
+    @TransactionalEventListener
+    public void onPolicyCatalogChanged(PolicyCatalogChangedEvent event) {
+        if (event.policyId() == null) {
+            allPoliciesDirty.set(true);
+        } else {
+            dirtyPolicyIds.add(event.policyId());
+        }
+    }
+    
+    @TransactionalEventListener
+    public void onUserPolicyStatusChanged(UserPolicyStatusChangedEvent event) {
+        dirtyUserPolicyIds.add(event.userPolicyId());
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserRegistered(UserRegisteredEvent event) {
+        dirtyUserIds.add(event.userId());
+    }
+    
+    // Re-read rows touched since the last flush
+    @Scheduled(fixedDelayString = "${lookup.typeahead.refresh-interval-ms:500}")
+    public synchronized void refreshDirty() {
+        if (!ready) {
+            return;
+        }
+        try {
+            if (allPoliciesDirty.getAndSet(false)) {
+                // The policy table is small; reading it whole also covers any single-policy changes
+                dirtyPolicyIds.clear();
+                indexes.get(TypeaheadMatchDto.Kind.POLICY_NUMBER)
+                        .replaceAll(jdbcTemplate.query(SELECT_POLICIES, this::policyEntry));
+            }
+            refresh(dirtyPolicyIds, SELECT_POLICIES + "WHERE id IN (%s)", this::policyEntry,
+                    TypeaheadMatchDto.Kind.POLICY_NUMBER, removedPolicyId ->
+                            indexes.get(TypeaheadMatchDto.Kind.USER_POLICY).removeGroup(removedPolicyId));
+            refresh(dirtyUserIds, SELECT_USERS + "WHERE id IN (%s)", this::userEntry,
+                    TypeaheadMatchDto.Kind.USER_EMAIL, removedUserId -> { });
+            refresh(dirtyUserPolicyIds, SELECT_USER_POLICIES + "WHERE up.id IN (%s)", this::userPolicyEntry,
+                    TypeaheadMatchDto.Kind.USER_POLICY, removedUserPolicyId -> { });
+        } catch (Exception e) {
+            log.error("Failed to refresh typeahead indexes: {}", e.getMessage(), e);
+        }
+    }
+    
+    private void refresh(Set<Long> dirtyIds, String sql, RowMapper<PrefixIndex.Entry> mapper,
+                         TypeaheadMatchDto.Kind kind, LongConsumer onRemoved) {
+        if (dirtyIds.isEmpty()) {
+            return;
+        }
+        List<Long> batch = new ArrayList<>(dirtyIds);
+        dirtyIds.removeAll(batch);
+        PrefixIndex index = indexes.get(kind);
+        try {
+            for (int from = 0; from < batch.size(); from += REFRESH_CHUNK_SIZE) {
+                List<Long> chunk = batch.subList(from, Math.min(from + REFRESH_CHUNK_SIZE, batch.size()));
+                String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+                List<PrefixIndex.Entry> rows = jdbcTemplate.query(String.format(sql, placeholders), mapper, chunk.toArray());
+                Set<Long> found = new HashSet<>();
+                for (PrefixIndex.Entry row : rows) {
+                    index.upsert(row);
+                    found.add(row.id());
+                }
+                for (Long id : chunk) {
+                    if (!found.contains(id)) {
+                        // Deleted in the database
+                        index.remove(id);
+                        onRemoved.accept(id);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            dirtyIds.addAll(batch);
+            throw e;
+        }
+    }
+    
+    // Startup only: prefix LIKE queries against the unique indexes (case-insensitive collation) until the first load completes
+    private List<PrefixIndex.Entry> findInDatabase(TypeaheadMatchDto.Kind kind, String prefix, int limit) {
+        String pattern = prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        return switch (kind) {
+            case POLICY_NUMBER -> jdbcTemplate.query(SELECT_POLICIES + "WHERE policy_number LIKE ? " +
+                    "ORDER BY policy_number LIMIT ?", this::policyEntry, pattern, limit);
+            case USER_EMAIL -> jdbcTemplate.query(SELECT_USERS + "WHERE email LIKE ? ORDER BY email LIMIT ?",
+                    this::userEntry, pattern, limit);
+            case USER_POLICY -> prefix.chars().allMatch(Character::isDigit)
+                    ? jdbcTemplate.query(SELECT_USER_POLICIES + "WHERE CAST(up.id AS CHAR) LIKE ? " +
+                    "ORDER BY CAST(up.id AS CHAR) LIMIT ?", this::userPolicyEntry, pattern, limit)
+                    : List.of();
+        };
+    }
+    
+    private PrefixIndex.Entry policyEntry(ResultSet rs, int rowNum) throws SQLException {
+        Policy.PolicyType type = Policy.PolicyType.valueOf(rs.getString(3));
+        String label = rs.getTimestamp(4) != null ? type.getDisplayName() + " (retired)" : type.getDisplayName();
+        return PrefixIndex.Entry.of(rs.getLong(1), 0L, rs.getString(2), label);
+    }
+    
+    private PrefixIndex.Entry userEntry(ResultSet rs, int rowNum) throws SQLException {
+        return PrefixIndex.Entry.of(rs.getLong(1), 0L, rs.getString(2), rs.getString(3));
+    }
+    
+    // Keyed by the id as typed; grouped by policy so a purge drops the policy's holdings
+    private PrefixIndex.Entry userPolicyEntry(ResultSet rs, int rowNum) throws SQLException {
+        long id = rs.getLong(1);
+        String label = rs.getString(3) + " / " + rs.getString(4) + " / " + rs.getString(5);
+        return PrefixIndex.Entry.of(id, rs.getLong(2), Long.toString(id), label);
+    }
+    
+    private record Match(TypeaheadMatchDto.Kind kind, PrefixIndex.Entry entry) {
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.insurance_app.notifications;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequiredArgsConstructor
+@Tag(name = "Status Notifications", description = "Server-Sent Events stream of claim and payment status changes")
+public class StatusStreamController {
+    
+    private final StatusStreamService statusStreamService;
+    
+    @GetMapping(path = "/api/users/{userId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('ADMIN') or (hasRole('CUSTOMER') and #userId == authentication.principal.id)")
+    @Operation(summary = "Stream status changes", description = "Pushes claim-status and payment-status events for the user as they are committed, with a periodic heartbeat comment")
+    public SseEmitter streamStatusChanges(
+            @Parameter(description = "User ID") @PathVariable Long userId) {
+        return statusStreamService.subscribe(userId);
+    }
+}
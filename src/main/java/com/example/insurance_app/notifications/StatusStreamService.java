@@ -0,0 +1,217 @@
+package com.example.insurance_app.notifications;
+
+import com.example.insurance_app.claims.ClaimStatusChangedEvent;
+import com.example.insurance_app.payments.PaymentStatusChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes committed claim and payment status transitions to the owning user's open
+ * Server-Sent Events connections. Each connection has a bounded buffer; when a slow
+ * client falls behind, the oldest undelivered updates are dropped.
+ */
+@Service
+@Slf4j
+public class StatusStreamService {
+    
+    private final long timeoutMillis;
+    private final int bufferSize;
+    private final int maxConnectionsPerUser;
+    
+    private final Map<Long, Set<Connection>> connections = new ConcurrentHashMap<>();
+    private final ExecutorService sender = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicLong eventIds = new AtomicLong();
+    
+    public StatusStreamService(@Value("${notifications.stream.timeout-ms:1800000}") long timeoutMillis,
+                               @Value("${notifications.stream.buffer-size:64}") int bufferSize,
+                               @Value("${notifications.stream.max-connections-per-user:5}") int maxConnectionsPerUser) {
+        this.timeoutMillis = timeoutMillis;
+        this.bufferSize = bufferSize;
+        this.maxConnectionsPerUser = maxConnectionsPerUser;
+    }
+    
+    // Open a stream for a user, closing their oldest stream when over the per-user limit
+    public SseEmitter subscribe(Long userId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Connection connection = new Connection(userId, emitter);
+        // Add and remove both run inside compute on the user's key, so a concurrent remove can't
+        // drop the set while a new connection is being added to it
+        Connection[] evicted = new Connection[1];
+        connections.compute(userId, (id, userConnections) -> {
+            Set<Connection> current = userConnections != null ? userConnections : ConcurrentHashMap.newKeySet();
+            current.add(connection);
+            if (current.size() > maxConnectionsPerUser) {
+                current.stream()
+                        .filter(other -> other != connection)
+                        .min((a, b) -> Long.compare(a.openedAt, b.openedAt))
+                        .ifPresent(oldest -> {
+                            current.remove(oldest);
+                            evicted[0] = oldest;
+                        });
+            }
+            return current;
+        });
+        // Closed outside compute, since close() removes through the same key
+        if (evicted[0] != null) {
+            evicted[0].close();
+        }
+        
+        emitter.onCompletion(() -> remove(connection));
+        emitter.onTimeout(connection::close);
+        emitter.onError(error -> remove(connection));
+        return emitter;
+    }
+    
+    @TransactionalEventListener
+    public void onClaimStatusChanged(ClaimStatusChangedEvent event) {
+        publish(event.userId(), new StatusUpdateDto(StatusUpdateDto.Kind.CLAIM, event.claimId(), event.userPolicyId(),
+                nameOf(event.previousStatus()), nameOf(event.newStatus()), LocalDateTime.now()));
+    }
+    
+    @TransactionalEventListener
+    public void onPaymentStatusChanged(PaymentStatusChangedEvent event) {
+        // Late fees and reprices publish the same event for amount-only changes; those aren't transitions
+        if (event.previousStatus() == event.newStatus()) {
+            return;
+        }
+        publish(event.userId(), new StatusUpdateDto(StatusUpdateDto.Kind.PAYMENT, event.paymentId(), event.userPolicyId(),
+                nameOf(event.previousStatus()), nameOf(event.newStatus()), LocalDateTime.now()));
+    }
+    
+    // Keep idle connections open through proxies and detect dead clients
+    @Scheduled(fixedDelayString = "${notifications.stream.heartbeat-ms:15000}")
+    public void sendHeartbeats() {
+        connections.values().forEach(userConnections -> userConnections.forEach(Connection::heartbeat));
+    }
+    
+    public int getOpenConnectionCount() {
+        return connections.values().stream().mapToInt(Set::size).sum();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        connections.values().forEach(userConnections -> userConnections.forEach(Connection::close));
+        sender.shutdownNow();
+    }
+    
+    private void publish(Long userId, StatusUpdateDto update) {
+        Set<Connection> userConnections = connections.get(userId);
+        if (userConnections == null) {
+            return;
+        }
+        OutgoingEvent event = new OutgoingEvent(eventIds.incrementAndGet(),
+                update.getKind() == StatusUpdateDto.Kind.CLAIM ? "claim-status" : "payment-status", update);
+        userConnections.forEach(connection -> connection.enqueue(event));
+    }
+    
+    private void remove(Connection connection) {
+        connections.compute(connection.userId, (id, userConnections) -> {
+            if (userConnections == null) {
+                return null;
+            }
+            userConnections.remove(connection);
+            return userConnections.isEmpty() ? null : userConnections;
+        });
+    }
+    
+    private static String nameOf(Enum<?> status) {
+        return status != null ? status.name() : null;
+    }
+    
+    // A null name marks a heartbeat comment
+    private record OutgoingEvent(long id, String name, StatusUpdateDto data) {
+        
+        private static final OutgoingEvent HEARTBEAT = new OutgoingEvent(0, null, null);
+        
+        // SseEventBuilder is single-use, so one is built per connection at send time
+        private SseEmitter.SseEventBuilder toSse() {
+            if (name == null) {
+                return SseEmitter.event().comment("heartbeat");
+            }
+            return SseEmitter.event().id(Long.toString(id)).name(name).data(data);
+        }
+    }
+    
+    private final class Connection {
+        
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final long openedAt = System.nanoTime();
+        private final BlockingQueue<OutgoingEvent> buffer = new ArrayBlockingQueue<>(bufferSize);
+        // Set while a sender task is draining this connection, so sends stay ordered
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicLong dropped = new AtomicLong();
+        
+        private Connection(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+        
+        private void enqueue(OutgoingEvent event) {
+            while (!buffer.offer(event)) {
+                if (buffer.poll() != null) {
+                    dropped.incrementAndGet();
+                }
+            }
+            scheduleDrain();
+        }
+        
+        private void heartbeat() {
+            if (buffer.isEmpty()) {
+                enqueue(OutgoingEvent.HEARTBEAT);
+            }
+        }
+        
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+        
+        private void drain() {
+            try {
+                OutgoingEvent event;
+                while ((event = buffer.poll()) != null) {
+                    emitter.send(event.toSse());
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Closing status stream for user {}: {}", userId, e.getMessage());
+                close();
+                return;
+            } finally {
+                draining.set(false);
+            }
+            // An update may have arrived after the last poll but before the flag was cleared
+            if (!buffer.isEmpty()) {
+                scheduleDrain();
+            }
+            long droppedCount = dropped.getAndSet(0);
+            if (droppedCount > 0) {
+                log.warn("Dropped {} status updates for slow stream of user {}", droppedCount, userId);
+            }
+        }
+        
+        private void close() {
+            remove(this);
+            buffer.clear();
+            emitter.complete();
+        }
+    }
+}
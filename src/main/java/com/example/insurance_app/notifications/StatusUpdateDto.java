@@ -0,0 +1,25 @@
+package com.example.insurance_app.notifications;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatusUpdateDto {
+    
+    private Kind kind;
+    // Claim ID or payment ID, depending on kind
+    private Long id;
+    private Long userPolicyId;
+    private String previousStatus;
+    private String status;
+    private LocalDateTime occurredAt;
+    
+    public enum Kind {
+        CLAIM, PAYMENT
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.insurance_app.payments;
 
+import com.example.insurance_app.common.DeltaSyncResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -41,6 +42,15 @@ public class PaymentController {
         return ResponseEntity.ok(paymentHistory);
     }
     
+    @GetMapping(value = "/user/{userId}", params = "since")
+    @Operation(summary = "Sync payments for a user", description = "Delta sync: an empty since returns the full history and a token; passing that token returns only payments changed or removed since")
+    @PreAuthorize("hasRole('ADMIN') or (hasRole('CUSTOMER') and #userId == authentication.principal.id)")
+    public ResponseEntity<DeltaSyncResponse<PaymentDto>> syncPayments(
+            @Parameter(description = "User ID") @PathVariable Long userId,
+            @Parameter(description = "Token from the previous sync, empty for the first") @RequestParam String since) {
+        return ResponseEntity.ok(paymentService.getPaymentChanges(userId, since));
+    }
+    
     @GetMapping("/user-policy/{userPolicyId}")
     @Operation(summary = "Get payment history by user policy", description = "Get payment history for a specific user policy")
     @PreAuthorize("hasRole('ADMIN') or hasRole('AGENT') or @userPolicyService.isUserPolicyOwner(#userPolicyId, authentication.principal.userId)")
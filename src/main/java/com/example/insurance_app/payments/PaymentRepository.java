@@ -1,11 +1,13 @@
 package com.example.insurance_app.payments;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -30,6 +32,21 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     @Query("SELECT p FROM Payment p JOIN p.userPolicy up WHERE up.user.id = :userId AND p.paymentType = :paymentType ORDER BY p.paymentDate DESC")
     List<Payment> findByUserIdAndPaymentType(@Param("userId") Long userId, @Param("paymentType") Payment.PaymentType paymentType);
     
+    // A user's pending payments, earliest due first, with policy and user fetched for mapping
+    @Query("SELECT p FROM Payment p JOIN FETCH p.userPolicy up JOIN FETCH up.user u JOIN FETCH up.policy " +
+           "WHERE u.id = :userId AND p.status = 'PENDING' ORDER BY p.dueDate ASC, p.id ASC")
+    List<Payment> findUpcomingDuesByUserId(@Param("userId") Long userId, Limit limit);
+    
+    // A user's settled (successful or failed) payments, newest first, with policy and user fetched for mapping
+    @Query("SELECT p FROM Payment p JOIN FETCH p.userPolicy up JOIN FETCH up.user u JOIN FETCH up.policy " +
+           "WHERE u.id = :userId AND p.status <> 'PENDING' ORDER BY p.paymentDate DESC, p.id DESC")
+    List<Payment> findRecentSettledByUserId(@Param("userId") Long userId, Limit limit);
+    
+    // A user's payments created or changed since the given time, for delta sync
+    @Query("SELECT p FROM Payment p JOIN FETCH p.userPolicy up JOIN FETCH up.user u JOIN FETCH up.policy " +
+           "WHERE u.id = :userId AND p.updatedAt >= :since ORDER BY p.updatedAt ASC, p.id ASC")
+    List<Payment> findChangedByUserId(@Param("userId") Long userId, @Param("since") LocalDateTime since);
+    
     // Find payment by transaction ID
     Optional<Payment> findByTransactionId(String transactionId);
     
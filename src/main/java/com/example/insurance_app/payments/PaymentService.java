@@ -1,10 +1,18 @@
 package com.example.insurance_app.payments;
 
+import com.example.insurance_app.common.DeltaSyncResponse;
+import com.example.insurance_app.common.SyncTombstoneService;
 import com.example.insurance_app.exceptions.PolicyNotFoundException;
+import com.example.insurance_app.policies.Policy;
+import com.example.insurance_app.policies.PolicyVersionDto;
+import com.example.insurance_app.policies.PolicyVersionService;
 import com.example.insurance_app.user_policies.UserPolicy;
 import com.example.insurance_app.user_policies.UserPolicyRepository;
+import com.example.insurance_app.user_policies.UserPolicyStatusChangedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,6 +31,9 @@ public class PaymentService {
     private final PaymentRepository paymentRepository;
     private final UserPolicyRepository userPolicyRepository;
     private final PaymentMapper paymentMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SyncTombstoneService syncTombstoneService;
+    private final PolicyVersionService policyVersionService;
     
     // Late fee configuration
     private static final BigDecimal LATE_FEE_PERCENTAGE = new BigDecimal("0.05"); // 5%
@@ -61,6 +72,7 @@ public class PaymentService {
         }
         
         Payment savedPayment = paymentRepository.save(payment);
+        eventPublisher.publishEvent(PaymentStatusChangedEvent.of(savedPayment, null));
         return paymentMapper.toDto(savedPayment);
     }
     
@@ -71,6 +83,26 @@ public class PaymentService {
         return paymentMapper.toDtoList(payments);
     }
     
+    // Delta sync of a user's payments: everything for an empty token, otherwise changes and removals since it
+    @Transactional(readOnly = true)
+    public DeltaSyncResponse<PaymentDto> getPaymentChanges(Long userId, String since) {
+        return syncTombstoneService.delta(userId, SyncTombstoneService.EntityType.PAYMENT, since,
+                () -> getPaymentHistory(userId),
+                changedSince -> paymentMapper.toDtoList(paymentRepository.findChangedByUserId(userId, changedSince)));
+    }
+    
+    // Get a user's pending payments, earliest due first
+    @Transactional(readOnly = true)
+    public List<PaymentDto> getUpcomingDues(Long userId, int limit) {
+        return paymentMapper.toDtoList(paymentRepository.findUpcomingDuesByUserId(userId, Limit.of(limit)));
+    }
+    
+    // Get a user's most recent settled payments
+    @Transactional(readOnly = true)
+    public List<PaymentDto> getRecentPayments(Long userId, int limit) {
+        return paymentMapper.toDtoList(paymentRepository.findRecentSettledByUserId(userId, Limit.of(limit)));
+    }
+    
     // Get payment history for a specific user policy
     @Transactional(readOnly = true)
     public List<PaymentDto> getPaymentHistoryByUserPolicy(Long userPolicyId) {        
@@ -94,6 +126,7 @@ public class PaymentService {
                 if (overdueCount >= 2) { // Policy lapses after 2 overdue payments
                     userPolicy.setStatus(UserPolicy.Status.LAPSED);
                     userPolicyRepository.save(userPolicy);
+                    eventPublisher.publishEvent(UserPolicyStatusChangedEvent.of(userPolicy, UserPolicy.Status.ACTIVE));
                     log.info("User policy {} marked as LAPSED due to overdue payments", userPolicy.getId());
                 }
             }
@@ -125,6 +158,7 @@ public class PaymentService {
         }
         payment.setLateFeeAmount(lateFee);
         Payment savedPayment = paymentRepository.save(payment);
+        eventPublisher.publishEvent(PaymentStatusChangedEvent.of(savedPayment, savedPayment.getStatus()));
         return paymentMapper.toDto(savedPayment);
     }
     
@@ -140,12 +174,14 @@ public class PaymentService {
         Payment payment = paymentRepository.findById(paymentId)
             .orElseThrow(() -> new RuntimeException("Payment not found with ID: " + paymentId));
         
+        Payment.PaymentStatus previousStatus = payment.getStatus();
         payment.setStatus(Payment.PaymentStatus.SUCCESS);
         if (transactionId != null && !transactionId.isEmpty()) {
             payment.setTransactionId(transactionId);
         }
         
         Payment savedPayment = paymentRepository.save(payment);
+        eventPublisher.publishEvent(PaymentStatusChangedEvent.of(savedPayment, previousStatus));
         updateNextPremiumDue(payment.getUserPolicy());
         activatePolicyIfPending(payment.getUserPolicy());  // Activate policy if it's in pending status
         return paymentMapper.toDto(savedPayment);
@@ -168,7 +204,7 @@ public class PaymentService {
     
     private void updateNextPremiumDue(UserPolicy userPolicy) {
         // Calculate next premium due date based on policy frequency from current due date
-        int monthsBetweenPayments = userPolicy.getPolicy().getPremiumFrequency().getMonthsBetweenPayments();
+        int monthsBetweenPayments = premiumFrequency(userPolicy).getMonthsBetweenPayments();
         LocalDate currentDueDate = userPolicy.getNextPremiumDue();
         if (currentDueDate == null) {
             currentDueDate = LocalDate.now();
@@ -192,16 +228,24 @@ public class PaymentService {
     }
     
     private BigDecimal calculatePremiumAmount(UserPolicy userPolicy) {
-        BigDecimal annualPremium = userPolicy.getPolicy().getPremiumAmount();
-        int paymentsPerYear = userPolicy.getPolicy().getPremiumFrequency().getPaymentsPerYear();
+        PolicyVersionDto version = policyVersionService.getVersion(userPolicy.getPolicyVersionId());
+        BigDecimal annualPremium = version != null ? version.premiumAmount() : userPolicy.getPolicy().getPremiumAmount();
+        int paymentsPerYear = premiumFrequency(userPolicy).getPaymentsPerYear();
         
         return annualPremium.divide(BigDecimal.valueOf(paymentsPerYear), 2, RoundingMode.HALF_UP);
     }
     
+    // Terms come from the version the holding is pinned to, not the policy's latest edit
+    private Policy.PremiumFrequency premiumFrequency(UserPolicy userPolicy) {
+        PolicyVersionDto version = policyVersionService.getVersion(userPolicy.getPolicyVersionId());
+        return version != null ? version.premiumFrequency() : userPolicy.getPolicy().getPremiumFrequency();
+    }
+    
     private void activatePolicyIfPending(UserPolicy userPolicy) {
         if (userPolicy.isPending()) {
             userPolicy.activatePolicy();
             userPolicyRepository.save(userPolicy);
+            eventPublisher.publishEvent(UserPolicyStatusChangedEvent.of(userPolicy, UserPolicy.Status.PENDING));
             log.info("Policy {} successfully activated", userPolicy.getId());
         }
     }
@@ -0,0 +1,20 @@
+package com.example.insurance_app.payments;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Published inside the writing transaction; listeners use @TransactionalEventListener to act after commit
+public record PaymentStatusChangedEvent(Long paymentId,
+                                        Long userId,
+                                        Long userPolicyId,
+                                        Payment.PaymentStatus previousStatus,
+                                        Payment.PaymentStatus newStatus,
+                                        BigDecimal amount,
+                                        LocalDate dueDate) {
+    
+    public static PaymentStatusChangedEvent of(Payment payment, Payment.PaymentStatus previousStatus) {
+        return new PaymentStatusChangedEvent(payment.getId(), payment.getUserPolicy().getUser().getId(),
+                payment.getUserPolicy().getId(), previousStatus, payment.getStatus(),
+                payment.getAmount(), payment.getDueDate());
+    }
+}
@@ -66,6 +66,18 @@ public class Policy {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // Set when the policy is retired: hidden from the catalog and closed to new purchases
+    @Column(name = "retired_at")
+    private LocalDateTime retiredAt;
+    
+    // Version new purchases are pinned to; replaced whenever the terms change
+    @Column(name = "current_version_id")
+    private Long currentVersionId;
+    
+    public boolean isRetired() {
+        return retiredAt != null;
+    }
+    
     public enum PolicyType {
         HEALTH("Health Insurance"),
         LIFE("Life Insurance"),
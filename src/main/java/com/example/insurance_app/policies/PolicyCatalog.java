@@ -0,0 +1,175 @@
+package com.example.insurance_app.policies;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory copy of the policy catalog. Reads go to an immutable snapshot held in a volatile
+ * field, so they are plain map lookups with no locking and no database traffic. Policy writes
+ * publish a PolicyCatalogChangedEvent and the whole snapshot, including its description
+ * search and range indexes, is rebuilt and swapped after commit; a cheap periodic fingerprint check picks
+ * up writes made on other nodes. The DTOs inside a snapshot are shared between callers and
+ * must be treated as read-only.
+ */
+@Component
+@Slf4j
+public class PolicyCatalog {
+    
+    private static final String FINGERPRINT_SQL = "SELECT COUNT(*), MAX(updated_at) FROM policies";
+    
+    private final PolicyRepository policyRepository;
+    private final PolicyMapper policyMapper;
+    private final JdbcTemplate jdbcTemplate;
+    
+    private volatile Snapshot snapshot;
+    
+    public PolicyCatalog(PolicyRepository policyRepository, PolicyMapper policyMapper, JdbcTemplate jdbcTemplate) {
+        this.policyRepository = policyRepository;
+        this.policyMapper = policyMapper;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+    
+    // Current snapshot, loaded on first use
+    public Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = reload();
+                }
+            }
+        }
+        return current;
+    }
+    
+    @TransactionalEventListener
+    public void onCatalogChanged(PolicyCatalogChangedEvent event) {
+        log.debug("Policy {} changed, reloading catalog", event.policyId() == null ? "catalog" : event.policyId());
+        synchronized (this) {
+            reload();
+        }
+    }
+    
+    // Reload when another node has changed the catalog since the current snapshot was built
+    @Scheduled(fixedDelayString = "${policies.catalog.refresh-interval-ms:60000}",
+               initialDelayString = "${policies.catalog.refresh-interval-ms:60000}")
+    public void refreshIfStale() {
+        Snapshot current = snapshot;
+        if (current != null && !current.fingerprint.equals(fingerprint())) {
+            synchronized (this) {
+                reload();
+            }
+        }
+    }
+    
+    // Callers hold the monitor; fingerprint is read first so a write racing the load triggers another reload
+    private Snapshot reload() {
+        String fingerprint = fingerprint();
+        List<PolicyDto> policies = policyRepository.findAll().stream()
+                .map(policyMapper::toDto)
+                .toList();
+        long version = snapshot == null ? 1 : snapshot.version + 1;
+        Snapshot loaded = new Snapshot(version, fingerprint, policies);
+        snapshot = loaded;
+        log.info("Loaded policy catalog version {} with {} policies", version, policies.size());
+        return loaded;
+    }
+    
+    private String fingerprint() {
+        return jdbcTemplate.queryForObject(FINGERPRINT_SQL, (rs, rowNum) -> rs.getLong(1) + "|" + rs.getTimestamp(2));
+    }
+    
+    public static final class Snapshot {
+        
+        private static final Comparator<PolicyDto> BY_PREMIUM =
+                Comparator.comparing(PolicyDto::getPremiumAmount).thenComparing(PolicyDto::getId);
+        private static final Comparator<PolicyDto> NEWEST_FIRST =
+                Comparator.comparing(PolicyDto::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+                        .thenComparing(PolicyDto::getId, Comparator.reverseOrder());
+        
+        private final long version;
+        private final String fingerprint;
+        private final Map<Long, PolicyDto> byId;
+        private final Map<String, PolicyDto> byPolicyNumber;
+        private final Map<Policy.PolicyType, List<PolicyDto>> byTypeByPremium;
+        private final List<PolicyDto> newestFirst;
+        private final PolicyTextIndex textIndex;
+        private final PolicyRangeIndex rangeIndex;
+        
+        private Snapshot(long version, String fingerprint, List<PolicyDto> policies) {
+            this.version = version;
+            this.fingerprint = fingerprint;
+            Map<Long, PolicyDto> ids = new HashMap<>();
+            Map<String, PolicyDto> numbers = new HashMap<>();
+            Map<Policy.PolicyType, List<PolicyDto>> types = new EnumMap<>(Policy.PolicyType.class);
+            List<PolicyDto> catalog = new ArrayList<>();
+            for (PolicyDto policy : policies) {
+                // Retired policies stay reachable by id and number for existing holders but leave the listings
+                ids.put(policy.getId(), policy);
+                numbers.put(policy.getPolicyNumber(), policy);
+                if (policy.getRetiredAt() == null) {
+                    catalog.add(policy);
+                    types.computeIfAbsent(policy.getType(), type -> new ArrayList<>()).add(policy);
+                }
+            }
+            types.replaceAll((type, list) -> list.stream().sorted(BY_PREMIUM).toList());
+            this.byId = Map.copyOf(ids);
+            this.byPolicyNumber = Map.copyOf(numbers);
+            this.byTypeByPremium = types;
+            this.newestFirst = catalog.stream().sorted(NEWEST_FIRST).toList();
+            this.textIndex = new PolicyTextIndex(newestFirst);
+            this.rangeIndex = new PolicyRangeIndex(newestFirst);
+        }
+        
+        // Increases with every reload; lets callers key derived data to a catalog state
+        public long version() {
+            return version;
+        }
+        
+        // Every policy including retired ones, in no particular order
+        public Collection<PolicyDto> allPolicies() {
+            return byId.values();
+        }
+        
+        public Optional<PolicyDto> findById(Long id) {
+            return Optional.ofNullable(byId.get(id));
+        }
+        
+        public Optional<PolicyDto> findByPolicyNumber(String policyNumber) {
+            return Optional.ofNullable(byPolicyNumber.get(policyNumber));
+        }
+        
+        // Catalog policies of a type, cheapest first
+        public List<PolicyDto> byType(Policy.PolicyType type) {
+            return byTypeByPremium.getOrDefault(type, List.of());
+        }
+        
+        // All catalog policies, newest first
+        public List<PolicyDto> newestFirst() {
+            return newestFirst;
+        }
+        
+        // Full-text search over catalog policy descriptions
+        public PolicyTextIndex textIndex() {
+            return textIndex;
+        }
+        
+        // Range and attribute filters over catalog policies
+        public PolicyRangeIndex rangeIndex() {
+            return rangeIndex;
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.example.insurance_app.policies;
+
+// Published inside the writing transaction; the catalog reloads its snapshot after commit. policyId is null for bulk changes
+public record PolicyCatalogChangedEvent(Long policyId) {
+}
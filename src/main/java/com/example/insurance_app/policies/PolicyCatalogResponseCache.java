@@ -0,0 +1,141 @@
+package com.example.insurance_app.policies;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Pre-serialized catalog list responses. Each variant (all policies, policies of one type) is
+ * serialized and gzipped once per catalog snapshot version and kept as byte arrays, so a 200
+ * writes cached bytes and a conditional GET whose If-None-Match matches gets a bodiless 304.
+ * The strong ETag is a hash of the JSON rather than the local version number, so it is the
+ * same on every node serving the same catalog.
+ */
+@Component
+@Slf4j
+public class PolicyCatalogResponseCache {
+    
+    private final PolicyCatalog policyCatalog;
+    private final ObjectMapper objectMapper;
+    private final Map<String, CachedResponse> responses = new ConcurrentHashMap<>();
+    
+    public PolicyCatalogResponseCache(PolicyCatalog policyCatalog, ObjectMapper objectMapper) {
+        this.policyCatalog = policyCatalog;
+        this.objectMapper = objectMapper;
+    }
+    
+    private record CachedResponse(long version, String etag, String gzipEtag, byte[] json, byte[] gzip) {
+    }
+    
+    // GET /api/policies
+    public ResponseEntity<byte[]> allPolicies(String ifNoneMatch, String acceptEncoding) {
+        return respond(cached("all", PolicyCatalog.Snapshot::newestFirst), ifNoneMatch, acceptEncoding);
+    }
+    
+    // GET /api/policies/type/{type}
+    public ResponseEntity<byte[]> policiesByType(Policy.PolicyType type, String ifNoneMatch, String acceptEncoding) {
+        return respond(cached("type:" + type, snapshot -> snapshot.byType(type)), ifNoneMatch, acceptEncoding);
+    }
+    
+    // Current bytes for a variant, rebuilt the first time it is asked for after a catalog reload
+    private CachedResponse cached(String variant, Function<PolicyCatalog.Snapshot, List<PolicyDto>> body) {
+        PolicyCatalog.Snapshot snapshot = policyCatalog.snapshot();
+        CachedResponse current = responses.get(variant);
+        if (current != null && current.version() == snapshot.version()) {
+            return current;
+        }
+        // Concurrent rebuilds of the same variant produce identical bytes, so the last put wins harmlessly
+        CachedResponse built = build(snapshot.version(), body.apply(snapshot));
+        responses.put(variant, built);
+        log.debug("Serialized catalog variant {} for version {} ({} bytes, {} gzipped)",
+                variant, snapshot.version(), built.json().length, built.gzip().length);
+        return built;
+    }
+    
+    private CachedResponse build(long version, List<PolicyDto> policies) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(policies);
+            String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json), 0, 16);
+            return new CachedResponse(version, "\"" + hash + "\"", "\"" + hash + "-gzip\"", json, gzip(json));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not serialize policy catalog", e);
+        }
+    }
+    
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+    
+    private static ResponseEntity<byte[]> respond(CachedResponse cached, String ifNoneMatch, String acceptEncoding) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        String etag = gzip ? cached.gzipEtag() : cached.etag();
+        // Either encoding's tag identifies the same content
+        boolean notModified = matches(ifNoneMatch, cached.etag()) || matches(ifNoneMatch, cached.gzipEtag());
+        // no-cache lets browsers keep the body but makes them revalidate on every use
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(notModified ? HttpStatus.NOT_MODIFIED : HttpStatus.OK)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (notModified) {
+            return builder.build();
+        }
+        builder.contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(cached.gzip());
+        }
+        return builder.body(cached.json());
+    }
+    
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length < 2 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+}
@@ -1,9 +1,15 @@
 package com.example.insurance_app.policies;
 
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -19,6 +25,10 @@ import java.util.List;
 public class PolicyController {
     
     private final PolicyService policyService;
+    private final PolicyPurgeService policyPurgeService;
+    private final PolicyCatalogResponseCache policyCatalogResponseCache;
+    private final PolicyRepriceService policyRepriceService;
+    private final PolicyVersionService policyVersionService;
 
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
@@ -37,15 +47,49 @@ public class PolicyController {
         return ResponseEntity.ok(updatedPolicy);
     }
     
-    // Delete a policy (Admin only)
+    // Delete a policy (Admin only): retires it; dependents are removed only by an explicit purge
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Void> deletePolicy(
             @Parameter(description = "Policy ID") @PathVariable Long id) {
-        policyService.deletePolicy(id);
+        policyService.retirePolicy(id);
         return ResponseEntity.noContent().build();
     }
     
+    // Reprice a policy type or a list of policies and carry the change to not-yet-due pending premiums (Admin only)
+    @PostMapping("/reprice")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<PolicyRepriceResultDto> repricePolicies(
+            @Valid @RequestBody PolicyRepriceRequest request) {
+        return ResponseEntity.ok(policyRepriceService.reprice(request));
+    }
+    
+    // Retire a policy (Admin only)
+    @PostMapping("/{id}/retire")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<PolicyDto> retirePolicy(
+            @Parameter(description = "Policy ID") @PathVariable Long id) {
+        return ResponseEntity.ok(policyService.retirePolicy(id));
+    }
+    
+    // Queue a background purge of a retired policy and all of its holdings, payments and claims (Admin only)
+    @PostMapping("/{id}/purge")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<PolicyPurgeJobDto> purgePolicy(
+            @Parameter(description = "Policy ID") @PathVariable Long id) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(policyPurgeService.requestPurge(id));
+    }
+    
+    // Progress of a purge job (Admin only)
+    @GetMapping("/purge-jobs/{jobId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<PolicyPurgeJobDto> getPurgeJob(
+            @Parameter(description = "Purge job ID") @PathVariable Long jobId) {
+        return policyPurgeService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+    
     // Get policy by ID (Admin and Customer)
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('CUSTOMER')")
@@ -55,6 +99,14 @@ public class PolicyController {
         return ResponseEntity.ok(policy);
     }
     
+    // Version history of a policy, newest first (Admin only)
+    @GetMapping("/{id}/versions")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<PolicyVersionDto>> getPolicyVersions(
+            @Parameter(description = "Policy ID") @PathVariable Long id) {
+        return ResponseEntity.ok(policyVersionService.getVersions(id));
+    }
+    
     // Get policy by policy number (Admin and Customer)
     @GetMapping("/policy-number/{policyNumber}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('CUSTOMER')")
@@ -64,29 +116,46 @@ public class PolicyController {
         return ResponseEntity.ok(policy);
     }
     
-    // Get all policies (Admin and Customer)
+    // Get all policies (Admin and Customer), pre-serialized with an ETag; 304 when If-None-Match still matches
     @GetMapping
     @PreAuthorize("hasRole('ADMIN') or hasRole('CUSTOMER')")
-    public ResponseEntity<List<PolicyDto>> getAllPolicies() {
-        List<PolicyDto> policies = policyService.getAllPolicies();
-        return ResponseEntity.ok(policies);
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = "application/json",
+            array = @ArraySchema(schema = @Schema(implementation = PolicyDto.class))))
+    public ResponseEntity<byte[]> getAllPolicies(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return policyCatalogResponseCache.allPolicies(ifNoneMatch, acceptEncoding);
     }
     
-    // Get policies by type (Admin and Customer)
+    // Get policies by type (Admin and Customer), pre-serialized with an ETag; 304 when If-None-Match still matches
     @GetMapping("/type/{type}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('CUSTOMER')")
-    public ResponseEntity<List<PolicyDto>> getPoliciesByType(
-            @Parameter(description = "Policy Type") @PathVariable Policy.PolicyType type) {
-        List<PolicyDto> policies = policyService.getPoliciesByType(type);
-        return ResponseEntity.ok(policies);
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = "application/json",
+            array = @ArraySchema(schema = @Schema(implementation = PolicyDto.class))))
+    public ResponseEntity<byte[]> getPoliciesByType(
+            @Parameter(description = "Policy Type") @PathVariable Policy.PolicyType type,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return policyCatalogResponseCache.policiesByType(type, ifNoneMatch, acceptEncoding);
     }
     
-    // Search policies by keyword (Admin and Customer)
+    // Search policies by description keywords (Admin and Customer)
     @GetMapping("/search")
     @PreAuthorize("hasRole('ADMIN') or hasRole('CUSTOMER')")
     public ResponseEntity<List<PolicyDto>> searchPolicies(
-            @Parameter(description = "Search keyword") @RequestParam String keyword) {
-        List<PolicyDto> policies = policyService.searchPoliciesByKeyword(keyword);
+            @Parameter(description = "Search keywords") @RequestParam String keyword,
+            @Parameter(description = "Require all keywords (ALL) or any keyword (ANY)") @RequestParam(defaultValue = "ALL") PolicyTextIndex.MatchMode match,
+            @Parameter(description = "Match keywords as word prefixes") @RequestParam(defaultValue = "true") boolean prefix,
+            @Parameter(description = "Policy Type") @RequestParam(required = false) Policy.PolicyType type) {
+        List<PolicyDto> policies = policyService.searchPoliciesByKeyword(keyword, match, prefix, type);
+        return ResponseEntity.ok(policies);
+    }
+    
+    // Filter policies by any combination of type, frequency and premium/coverage/term ranges (Admin and Customer)
+    @GetMapping("/filter")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('CUSTOMER')")
+    public ResponseEntity<List<PolicyDto>> filterPolicies(@ParameterObject PolicyFilterCriteria criteria) {
+        List<PolicyDto> policies = policyService.filterPolicies(criteria);
         return ResponseEntity.ok(policies);
     }
     
@@ -24,4 +24,6 @@ public class PolicyDto {
     private String premiumFrequencyDisplayName;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private LocalDateTime retiredAt;
+    private Long currentVersionId;
 }
@@ -0,0 +1,42 @@
+package com.example.insurance_app.policies;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// Catalog filters; every field is optional, ranges are inclusive and the given ones are combined with AND
+@Data
+@NoArgsConstructor
+public class PolicyFilterCriteria {
+    
+    public enum SortOrder {
+        NEWEST,
+        PREMIUM_ASC,
+        PREMIUM_DESC,
+        COVERAGE_ASC,
+        COVERAGE_DESC,
+        TERM_ASC,
+        TERM_DESC
+    }
+    
+    private Policy.PolicyType type;
+    
+    private BigDecimal minPremium;
+    
+    private BigDecimal maxPremium;
+    
+    private BigDecimal minCoverage;
+    
+    private BigDecimal maxCoverage;
+    
+    private Integer minTerm;
+    
+    private Integer maxTerm;
+    
+    private Policy.PremiumFrequency frequency;
+    
+    private SortOrder sort = SortOrder.PREMIUM_ASC;
+    
+    private int limit = 100;
+}
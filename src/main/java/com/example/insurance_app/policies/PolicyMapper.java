@@ -16,10 +16,14 @@ public interface PolicyMapper {
     @Mapping(target = "policyNumber", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "retiredAt", ignore = true)
+    @Mapping(target = "currentVersionId", ignore = true)
     Policy toEntity(PolicyCreateRequest request);
     
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "retiredAt", ignore = true)
+    @Mapping(target = "currentVersionId", ignore = true)
     void updateEntity(PolicyUpdateRequest request, @MappingTarget Policy policy);
 }
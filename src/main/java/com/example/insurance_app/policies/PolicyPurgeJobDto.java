@@ -0,0 +1,40 @@
+package com.example.insurance_app.policies;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PolicyPurgeJobDto {
+    
+    public enum Status {
+        PENDING,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+    
+    private Long id;
+    
+    private Long policyId;
+    
+    private Status status;
+    
+    private long claimsDeleted;
+    
+    private long paymentsDeleted;
+    
+    private long userPoliciesDeleted;
+    
+    private String errorMessage;
+    
+    private LocalDateTime requestedAt;
+    
+    private LocalDateTime startedAt;
+    
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,287 @@
+package com.example.insurance_app.policies;
+
+import com.example.insurance_app.common.JobLockService;
+import com.example.insurance_app.common.SyncTombstoneService;
+import com.example.insurance_app.exceptions.PolicyNotFoundException;
+import com.example.insurance_app.exceptions.PolicyOperationException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Background removal of a retired policy and everything hanging off it. Instead of one
+ * cascading delete, a queued job deletes claims, then payments, then user policies in
+ * small transactions with a pause between chunks, tombstoning each row for delta sync and
+ * committing its progress counts with every chunk. Each user policy chunk is locked and
+ * cleared of claims and payments written after their phase finished, so the foreign key
+ * cascade never removes a row without a tombstone. Jobs run on a dedicated worker thread
+ * holding a job_locks lease, and a job interrupted by a restart is picked up again where
+ * it stopped.
+ */
+@Service
+@Slf4j
+public class PolicyPurgeService {
+    
+    private static final String JOB_NAME = "policy-purge";
+    
+    private static final String SELECT_JOB_SQL =
+            "SELECT id, policy_id, status, claims_deleted, payments_deleted, user_policies_deleted, error_message, " +
+            "requested_at, started_at, finished_at FROM policy_purge_jobs";
+    private static final String SELECT_NEXT_JOB_SQL =
+            "SELECT id, policy_id FROM policy_purge_jobs WHERE status IN ('PENDING', 'RUNNING') ORDER BY id LIMIT 1";
+    private static final String INSERT_JOB_SQL =
+            "INSERT INTO policy_purge_jobs (policy_id, status) VALUES (?, 'PENDING')";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PolicyRepository policyRepository;
+    private final SyncTombstoneService syncTombstoneService;
+    private final JobLockService jobLockService;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    private final int chunkSize;
+    private final long pauseMillis;
+    private final Duration lockLease;
+    
+    private final ExecutorService worker =
+            Executors.newSingleThreadExecutor(Thread.ofPlatform().name("policy-purge").daemon().factory());
+    private final AtomicBoolean working = new AtomicBoolean();
+    
+    public PolicyPurgeService(JdbcTemplate jdbcTemplate,
+                              TransactionTemplate transactionTemplate,
+                              PolicyRepository policyRepository,
+                              SyncTombstoneService syncTombstoneService,
+                              JobLockService jobLockService,
+                              ApplicationEventPublisher eventPublisher,
+                              @Value("${policies.purge.chunk-size:500}") int chunkSize,
+                              @Value("${policies.purge.pause-ms:200}") long pauseMillis,
+                              @Value("${policies.purge.lock-lease-minutes:10}") long lockLeaseMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.policyRepository = policyRepository;
+        this.syncTombstoneService = syncTombstoneService;
+        this.jobLockService = jobLockService;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+        this.pauseMillis = pauseMillis;
+        this.lockLease = Duration.ofMinutes(lockLeaseMinutes);
+    }
+    
+    // Dependents are removed leaf tables first so every delete touches only its own chunk of rows
+    private enum Phase {
+        CLAIMS("SELECT c.id, up.user_id FROM claims c JOIN user_policies up ON up.id = c.user_policy_id " +
+                "WHERE up.policy_id = ? LIMIT ?", "claims", "claims_deleted", SyncTombstoneService.EntityType.CLAIM),
+        PAYMENTS("SELECT pay.id, up.user_id FROM payments pay JOIN user_policies up ON up.id = pay.user_policy_id " +
+                "WHERE up.policy_id = ? LIMIT ?", "payments", "payments_deleted", SyncTombstoneService.EntityType.PAYMENT),
+        // Locks the chunk so no claim or payment can be added to it before it is deleted
+        USER_POLICIES("SELECT up.id, up.user_id FROM user_policies up WHERE up.policy_id = ? LIMIT ? FOR UPDATE",
+                "user_policies", "user_policies_deleted", SyncTombstoneService.EntityType.USER_POLICY);
+        
+        private final String selectSql;
+        private final String table;
+        private final String counterColumn;
+        private final SyncTombstoneService.EntityType entityType;
+        
+        Phase(String selectSql, String table, String counterColumn, SyncTombstoneService.EntityType entityType) {
+            this.selectSql = selectSql;
+            this.table = table;
+            this.counterColumn = counterColumn;
+            this.entityType = entityType;
+        }
+        
+        // Leaf rows of the given user policies, for rows written after the leaf phase finished
+        private String selectByUserPoliciesSql(String placeholders) {
+            String alias = this == CLAIMS ? "c" : "pay";
+            return "SELECT " + alias + ".id, up.user_id FROM " + table + " " + alias +
+                    " JOIN user_policies up ON up.id = " + alias + ".user_policy_id" +
+                    " WHERE " + alias + ".user_policy_id IN (" + placeholders + ")";
+        }
+    }
+    
+    // Queue a purge of a retired policy; an unfinished job for the same policy is returned instead of a new one
+    public PolicyPurgeJobDto requestPurge(Long policyId) {
+        Policy policy = policyRepository.findById(policyId)
+                .orElseThrow(() -> PolicyNotFoundException.byId(policyId));
+        if (!policy.isRetired()) {
+            throw PolicyOperationException.cannotPurge("policy " + policyId + " must be retired first");
+        }
+        return transactionTemplate.execute(tx -> {
+            List<PolicyPurgeJobDto> open = jdbcTemplate.query(
+                    SELECT_JOB_SQL + " WHERE policy_id = ? AND status IN ('PENDING', 'RUNNING')", JOB_ROW_MAPPER, policyId);
+            if (!open.isEmpty()) {
+                return open.get(0);
+            }
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            jdbcTemplate.update(con -> {
+                PreparedStatement ps = con.prepareStatement(INSERT_JOB_SQL, new String[]{"id"});
+                ps.setLong(1, policyId);
+                return ps;
+            }, keyHolder);
+            log.info("Queued purge of retired policy {}", policyId);
+            return getJob(keyHolder.getKey().longValue()).orElseThrow();
+        });
+    }
+    
+    // Current state and progress counts of a purge job
+    public Optional<PolicyPurgeJobDto> getJob(Long jobId) {
+        return jdbcTemplate.query(SELECT_JOB_SQL + " WHERE id = ?", JOB_ROW_MAPPER, jobId).stream().findFirst();
+    }
+    
+    // Hand queued jobs to the purge worker so long purges never hold a scheduler thread
+    @Scheduled(fixedDelayString = "${policies.purge.poll-interval-ms:30000}",
+               initialDelayString = "${policies.purge.poll-interval-ms:30000}")
+    public void processPendingJobs() {
+        if (working.compareAndSet(false, true)) {
+            try {
+                worker.execute(this::runPendingJobs);
+            } catch (RejectedExecutionException e) {
+                working.set(false);
+            }
+        }
+    }
+    
+    @PreDestroy
+    public void stop() {
+        // An interrupted job stays RUNNING and is resumed by the next poll
+        worker.shutdownNow();
+    }
+    
+    private void runPendingJobs() {
+        try {
+            if (!jobLockService.tryAcquire(JOB_NAME, lockLease)) {
+                return;
+            }
+            try {
+                List<long[]> next;
+                while (!Thread.currentThread().isInterrupted() && !(next = jdbcTemplate.query(SELECT_NEXT_JOB_SQL,
+                        (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)})).isEmpty()) {
+                    runJob(next.get(0)[0], next.get(0)[1]);
+                }
+            } finally {
+                jobLockService.release(JOB_NAME);
+            }
+        } catch (Exception e) {
+            log.error("Error while processing policy purge jobs: {}", e.getMessage(), e);
+        } finally {
+            working.set(false);
+        }
+    }
+    
+    private void runJob(long jobId, long policyId) {
+        log.info("Starting purge job {} for policy {}", jobId, policyId);
+        jdbcTemplate.update("UPDATE policy_purge_jobs SET status = 'RUNNING', started_at = COALESCE(started_at, ?) WHERE id = ?",
+                Timestamp.valueOf(LocalDateTime.now()), jobId);
+        try {
+            for (Phase phase : Phase.values()) {
+                long deleted = purgePhase(jobId, policyId, phase);
+                log.info("Purge job {} removed {} rows from {}", jobId, deleted, phase.table);
+            }
+            transactionTemplate.executeWithoutResult(tx -> {
+                jdbcTemplate.update("DELETE FROM policies WHERE id = ?", policyId);
+                eventPublisher.publishEvent(new PolicyCatalogChangedEvent(policyId));
+                jdbcTemplate.update("UPDATE policy_purge_jobs SET status = 'COMPLETED', finished_at = ? WHERE id = ?",
+                        Timestamp.valueOf(LocalDateTime.now()), jobId);
+            });
+            log.info("Completed purge job {} for policy {}", jobId, policyId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.info("Purge job {} for policy {} interrupted, it resumes on the next poll", jobId, policyId);
+        } catch (Exception e) {
+            log.error("Purge job {} for policy {} failed: {}", jobId, policyId, e.getMessage(), e);
+            String message = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+            jdbcTemplate.update("UPDATE policy_purge_jobs SET status = 'FAILED', error_message = ?, finished_at = ? WHERE id = ?",
+                    message.length() > 1000 ? message.substring(0, 1000) : message,
+                    Timestamp.valueOf(LocalDateTime.now()), jobId);
+        }
+    }
+    
+    // Delete one table's rows for the policy chunk by chunk, pausing between chunks to let other traffic through
+    private long purgePhase(long jobId, long policyId, Phase phase) throws InterruptedException {
+        long total = 0;
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(tx -> purgeChunk(jobId, policyId, phase));
+            total += deleted;
+            // Keep the lease alive while a large policy is worked through
+            jobLockService.tryAcquire(JOB_NAME, lockLease);
+            if (deleted == chunkSize && pauseMillis > 0) {
+                Thread.sleep(pauseMillis);
+            }
+        } while (deleted == chunkSize);
+        return total;
+    }
+    
+    private int purgeChunk(long jobId, long policyId, Phase phase) {
+        List<SyncTombstoneService.Removal> rows = jdbcTemplate.query(phase.selectSql,
+                (rs, rowNum) -> new SyncTombstoneService.Removal(rs.getLong(1), rs.getLong(2)), policyId, chunkSize);
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        if (phase == Phase.USER_POLICIES) {
+            // Claims and payments added to these holdings after their own phase finished
+            Object[] userPolicyIds = entityIds(rows);
+            String placeholders = String.join(", ", Collections.nCopies(rows.size(), "?"));
+            for (Phase leaf : List.of(Phase.CLAIMS, Phase.PAYMENTS)) {
+                List<SyncTombstoneService.Removal> stragglers = jdbcTemplate.query(leaf.selectByUserPoliciesSql(placeholders),
+                        (rs, rowNum) -> new SyncTombstoneService.Removal(rs.getLong(1), rs.getLong(2)), userPolicyIds);
+                if (!stragglers.isEmpty()) {
+                    deleteRows(jobId, leaf, stragglers);
+                }
+            }
+        }
+        deleteRows(jobId, phase, rows);
+        return rows.size();
+    }
+    
+    // Tombstone, delete and count one batch of rows from a phase's table
+    private void deleteRows(long jobId, Phase phase, List<SyncTombstoneService.Removal> rows) {
+        syncTombstoneService.recordRemovals(phase.entityType, rows);
+        String placeholders = String.join(", ", Collections.nCopies(rows.size(), "?"));
+        jdbcTemplate.update("DELETE FROM " + phase.table + " WHERE id IN (" + placeholders + ")", entityIds(rows));
+        jdbcTemplate.update("UPDATE policy_purge_jobs SET " + phase.counterColumn + " = " + phase.counterColumn +
+                " + ? WHERE id = ?", rows.size(), jobId);
+    }
+    
+    private static Object[] entityIds(List<SyncTombstoneService.Removal> rows) {
+        List<Object> ids = new ArrayList<>(rows.size());
+        rows.forEach(row -> ids.add(row.entityId()));
+        return ids.toArray();
+    }
+    
+    private static final RowMapper<PolicyPurgeJobDto> JOB_ROW_MAPPER = (rs, rowNum) -> new PolicyPurgeJobDto(
+            rs.getLong("id"),
+            rs.getLong("policy_id"),
+            PolicyPurgeJobDto.Status.valueOf(rs.getString("status")),
+            rs.getLong("claims_deleted"),
+            rs.getLong("payments_deleted"),
+            rs.getLong("user_policies_deleted"),
+            rs.getString("error_message"),
+            toLocalDateTime(rs.getTimestamp("requested_at")),
+            toLocalDateTime(rs.getTimestamp("started_at")),
+            toLocalDateTime(rs.getTimestamp("finished_at")));
+    
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
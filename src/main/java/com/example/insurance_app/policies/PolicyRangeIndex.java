@@ -0,0 +1,164 @@
+package com.example.insurance_app.policies;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Sorted primitive indexes over the catalog, built once per snapshot. Premium and coverage are
+ * held as long cents and term as int, each in its own ascending array alongside the document
+ * order, so a range is two binary searches. Every range and the type and frequency filters
+ * become bitsets over document ordinals that are intersected, and results are read off the
+ * index matching the requested sort order. Documents are numbered newest first.
+ */
+public final class PolicyRangeIndex {
+    
+    private final PolicyDto[] docs;
+    private final long[] premiumCents;
+    private final int[] premiumOrder;
+    private final long[] coverageCents;
+    private final int[] coverageOrder;
+    private final int[] termYears;
+    private final int[] termOrder;
+    private final Map<Policy.PolicyType, BitSet> byType = new EnumMap<>(Policy.PolicyType.class);
+    private final Map<Policy.PremiumFrequency, BitSet> byFrequency = new EnumMap<>(Policy.PremiumFrequency.class);
+    
+    PolicyRangeIndex(List<PolicyDto> newestFirst) {
+        this.docs = newestFirst.toArray(new PolicyDto[0]);
+        long[] premiums = new long[docs.length];
+        long[] coverages = new long[docs.length];
+        int[] terms = new int[docs.length];
+        for (int doc = 0; doc < docs.length; doc++) {
+            premiums[doc] = toCents(docs[doc].getPremiumAmount(), RoundingMode.HALF_UP);
+            coverages[doc] = toCents(docs[doc].getCoverageAmount(), RoundingMode.HALF_UP);
+            terms[doc] = docs[doc].getTermYears();
+            byType.computeIfAbsent(docs[doc].getType(), type -> new BitSet(docs.length)).set(doc);
+            byFrequency.computeIfAbsent(docs[doc].getPremiumFrequency(), frequency -> new BitSet(docs.length)).set(doc);
+        }
+        this.premiumOrder = sortedOrder(Comparator.comparingLong(doc -> premiums[doc]));
+        this.premiumCents = IntStream.of(premiumOrder).mapToLong(doc -> premiums[doc]).toArray();
+        this.coverageOrder = sortedOrder(Comparator.comparingLong(doc -> coverages[doc]));
+        this.coverageCents = IntStream.of(coverageOrder).mapToLong(doc -> coverages[doc]).toArray();
+        this.termOrder = sortedOrder(Comparator.comparingInt(doc -> terms[doc]));
+        this.termYears = IntStream.of(termOrder).map(doc -> terms[doc]).toArray();
+    }
+    
+    static long toCents(BigDecimal amount, RoundingMode roundingMode) {
+        return amount.movePointRight(2).setScale(0, roundingMode).longValueExact();
+    }
+    
+    // Policies matching every given filter, in the requested order, at most limit of them
+    public List<PolicyDto> filter(PolicyFilterCriteria criteria, int limit) {
+        BitSet matches = new BitSet(docs.length);
+        matches.set(0, docs.length);
+        if (criteria.getType() != null) {
+            matches.and(byType.getOrDefault(criteria.getType(), new BitSet()));
+        }
+        if (criteria.getFrequency() != null) {
+            matches.and(byFrequency.getOrDefault(criteria.getFrequency(), new BitSet()));
+        }
+        if (criteria.getMinPremium() != null || criteria.getMaxPremium() != null) {
+            matches.and(range(premiumCents, premiumOrder,
+                    lowerCents(criteria.getMinPremium()), upperCents(criteria.getMaxPremium())));
+        }
+        if (criteria.getMinCoverage() != null || criteria.getMaxCoverage() != null) {
+            matches.and(range(coverageCents, coverageOrder,
+                    lowerCents(criteria.getMinCoverage()), upperCents(criteria.getMaxCoverage())));
+        }
+        if (criteria.getMinTerm() != null || criteria.getMaxTerm() != null) {
+            matches.and(range(termYears, termOrder,
+                    criteria.getMinTerm() == null ? Integer.MIN_VALUE : criteria.getMinTerm(),
+                    criteria.getMaxTerm() == null ? Integer.MAX_VALUE : criteria.getMaxTerm()));
+        }
+        
+        PolicyFilterCriteria.SortOrder sort = criteria.getSort() == null
+                ? PolicyFilterCriteria.SortOrder.PREMIUM_ASC : criteria.getSort();
+        return switch (sort) {
+            case NEWEST -> collect(null, false, matches, limit);
+            case PREMIUM_ASC -> collect(premiumOrder, false, matches, limit);
+            case PREMIUM_DESC -> collect(premiumOrder, true, matches, limit);
+            case COVERAGE_ASC -> collect(coverageOrder, false, matches, limit);
+            case COVERAGE_DESC -> collect(coverageOrder, true, matches, limit);
+            case TERM_ASC -> collect(termOrder, false, matches, limit);
+            case TERM_DESC -> collect(termOrder, true, matches, limit);
+        };
+    }
+    
+    // Walk the documents in index order (or ordinal order when null) and keep the matching ones
+    private List<PolicyDto> collect(int[] order, boolean descending, BitSet matches, int limit) {
+        List<PolicyDto> result = new ArrayList<>(Math.min(limit, matches.cardinality()));
+        for (int i = 0; i < docs.length && result.size() < limit; i++) {
+            int doc = order == null ? i : order[descending ? docs.length - 1 - i : i];
+            if (matches.get(doc)) {
+                result.add(docs[doc]);
+            }
+        }
+        return result;
+    }
+    
+    private int[] sortedOrder(Comparator<Integer> comparator) {
+        return IntStream.range(0, docs.length).boxed()
+                .sorted(comparator.thenComparing(doc -> docs[doc].getId()))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+    
+    private static long lowerCents(BigDecimal min) {
+        return min == null ? Long.MIN_VALUE : toCents(min, RoundingMode.CEILING);
+    }
+    
+    private static long upperCents(BigDecimal max) {
+        return max == null ? Long.MAX_VALUE : toCents(max, RoundingMode.FLOOR);
+    }
+    
+    private static BitSet range(long[] sorted, int[] order, long min, long max) {
+        BitSet result = new BitSet(order.length);
+        for (int i = firstAtLeast(sorted, min); i < sorted.length && sorted[i] <= max; i++) {
+            result.set(order[i]);
+        }
+        return result;
+    }
+    
+    private static BitSet range(int[] sorted, int[] order, int min, int max) {
+        BitSet result = new BitSet(order.length);
+        for (int i = firstAtLeast(sorted, min); i < sorted.length && sorted[i] <= max; i++) {
+            result.set(order[i]);
+        }
+        return result;
+    }
+    
+    // Index of the first element >= key in an ascending array
+    private static int firstAtLeast(long[] sorted, long key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    private static int firstAtLeast(int[] sorted, int key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.insurance_app.policies;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Select policies by type or by ids (exactly one), then change their premium by a percentage or a fixed amount
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PolicyRepriceRequest {
+    
+    public enum Adjustment {
+        PERCENTAGE,
+        ABSOLUTE
+    }
+    
+    private Policy.PolicyType type;
+    
+    @Size(max = 1000, message = "At most 1000 policies can be repriced at once")
+    private List<@NotNull(message = "Policy ID is required") Long> policyIds;
+    
+    @NotNull(message = "Adjustment is required")
+    private Adjustment adjustment;
+    
+    // Percent change (10 = +10%) or amount added to the premium; negative values lower it
+    @NotNull(message = "Adjustment value is required")
+    private BigDecimal value;
+}
@@ -0,0 +1,21 @@
+package com.example.insurance_app.policies;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PolicyRepriceResultDto {
+    
+    private int policiesUpdated;
+    
+    private int paymentsUpdated;
+    
+    private int holdingsRepinned;
+    
+    private int paymentChunks;
+    
+    private long elapsedMillis;
+}
@@ -0,0 +1,327 @@
+package com.example.insurance_app.policies;
+
+import com.example.insurance_app.common.JobLockService;
+import com.example.insurance_app.exceptions.PolicyOperationException;
+import com.example.insurance_app.payments.Payment;
+import com.example.insurance_app.payments.PaymentStatusChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk premium changes. The selected policies are repriced together in one transaction that
+ * publishes a single catalog change, so the catalog reloads once; the same transaction records
+ * a reprice job with each policy's old and new premium and versions. Each repriced policy gets
+ * a new version. Live holdings pinned to the version that was current (or to none) are then
+ * moved to it in small keyset-ordered chunks, each its own transaction that locks the holdings,
+ * scales their PENDING premiums not yet due with one UPDATE per distinct new amount and re-pins
+ * them, so a holding's pin always tells whether its payments carry the new price. Payments
+ * already due keep the amount they were billed at, and holdings pinned to older versions keep
+ * their terms and payments. A job cut short by a restart or an error is finished by the next
+ * poll, or before the next reprice starts, without scaling any payment twice.
+ */
+@Service
+@Slf4j
+public class PolicyRepriceService {
+    
+    private static final String JOB_NAME = "policy-reprice";
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+    
+    // Holdings still on the terms the policy had before the reprice
+    private static final String SELECT_HOLDINGS_SQL =
+            "SELECT id, user_id FROM user_policies WHERE policy_id = ? AND status IN ('ACTIVE', 'PENDING') " +
+            "AND (policy_version_id = ? OR policy_version_id IS NULL) AND id > ? ORDER BY id LIMIT ? FOR UPDATE";
+    private static final String SELECT_PAYMENTS_SQL =
+            "SELECT id, user_policy_id, amount, due_date FROM payments WHERE user_policy_id IN (%s) " +
+            "AND status = 'PENDING' AND payment_type = 'PREMIUM' AND due_date > ? FOR UPDATE";
+    private static final String INSERT_VERSIONS_SQL =
+            "INSERT INTO policy_versions (policy_id, version_number, type, description, coverage_amount, " +
+            "premium_amount, term_years, premium_frequency, created_at) " +
+            "SELECT p.id, (SELECT COALESCE(MAX(v.version_number), 0) + 1 FROM policy_versions v WHERE v.policy_id = p.id), " +
+            "p.type, p.description, p.coverage_amount, p.premium_amount, p.term_years, p.premium_frequency, CURRENT_TIMESTAMP " +
+            "FROM policies p WHERE p.id IN (%s)";
+    private static final String POINT_TO_LATEST_VERSION_SQL =
+            "UPDATE policies p SET current_version_id = (SELECT v.id FROM policy_versions v WHERE v.policy_id = p.id " +
+            "ORDER BY v.version_number DESC LIMIT 1) WHERE p.id IN (%s)";
+    private static final String INSERT_JOB_SQL =
+            "INSERT INTO policy_reprice_jobs (status) VALUES ('RUNNING')";
+    private static final String INSERT_ITEM_SQL =
+            "INSERT INTO policy_reprice_items (job_id, policy_id, old_premium, new_premium, old_version_id, new_version_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_ITEMS_SQL =
+            "SELECT policy_id, old_premium, new_premium, old_version_id, new_version_id " +
+            "FROM policy_reprice_items WHERE job_id = ? AND completed = FALSE ORDER BY policy_id";
+    private static final String SELECT_RUNNING_JOBS_SQL =
+            "SELECT id FROM policy_reprice_jobs WHERE status = 'RUNNING' ORDER BY id";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JobLockService jobLockService;
+    private final int chunkSize;
+    private final Duration lockLease;
+    
+    public PolicyRepriceService(JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                ApplicationEventPublisher eventPublisher,
+                                JobLockService jobLockService,
+                                @Value("${policies.reprice.chunk-size:1000}") int chunkSize,
+                                @Value("${policies.reprice.lock-lease-minutes:10}") long lockLeaseMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.jobLockService = jobLockService;
+        this.chunkSize = chunkSize;
+        this.lockLease = Duration.ofMinutes(lockLeaseMinutes);
+    }
+    
+    // One policy of a reprice job
+    private record Item(long policyId, BigDecimal oldPremium, BigDecimal newPremium,
+                        Long oldVersionId, long newVersionId) {
+    }
+    
+    public PolicyRepriceResultDto reprice(PolicyRepriceRequest request) {
+        boolean byType = request.getType() != null;
+        boolean byIds = request.getPolicyIds() != null && !request.getPolicyIds().isEmpty();
+        if (byType == byIds) {
+            throw PolicyOperationException.cannotReprice("select policies by type or by ids, not both or neither");
+        }
+        long started = System.nanoTime();
+        if (!jobLockService.tryAcquire(JOB_NAME, lockLease)) {
+            throw PolicyOperationException.cannotReprice("another reprice is in progress");
+        }
+        try {
+            // Payments of an unfinished job must reach its new price before that price changes again
+            runUnfinishedJobs();
+            Long jobId = transactionTemplate.execute(tx -> startJob(request, byType));
+            if (jobId == null) {
+                return new PolicyRepriceResultDto(0, 0, 0, 0, (System.nanoTime() - started) / 1_000_000);
+            }
+            runJob(jobId);
+            PolicyRepriceResultDto result = jdbcTemplate.queryForObject(
+                    "SELECT (SELECT COUNT(*) FROM policy_reprice_items i WHERE i.job_id = j.id), " +
+                    "j.payments_updated, j.holdings_repinned, j.payment_chunks FROM policy_reprice_jobs j WHERE j.id = ?",
+                    (rs, rowNum) -> new PolicyRepriceResultDto(rs.getInt(1), rs.getInt(2), rs.getInt(3), rs.getInt(4), 0L),
+                    jobId);
+            result.setElapsedMillis((System.nanoTime() - started) / 1_000_000);
+            log.info("Reprice job {} repriced {} policies, {} pending payments in {} chunks and re-pinned {} holdings ({} ms)",
+                    jobId, result.getPoliciesUpdated(), result.getPaymentsUpdated(), result.getPaymentChunks(),
+                    result.getHoldingsRepinned(), result.getElapsedMillis());
+            return result;
+        } finally {
+            jobLockService.release(JOB_NAME);
+        }
+    }
+    
+    // Finish jobs a restart or an error left RUNNING; rare, and a no-op poll is a single indexed query
+    @Scheduled(fixedDelayString = "${policies.reprice.resume-interval-ms:60000}",
+               initialDelayString = "${policies.reprice.resume-interval-ms:60000}")
+    public void resumeUnfinishedJobs() {
+        try {
+            if (!jobLockService.tryAcquire(JOB_NAME, lockLease)) {
+                return;
+            }
+            try {
+                runUnfinishedJobs();
+            } finally {
+                jobLockService.release(JOB_NAME);
+            }
+        } catch (Exception e) {
+            log.error("Error while resuming policy reprice jobs: {}", e.getMessage(), e);
+        }
+    }
+    
+    private void runUnfinishedJobs() {
+        for (Long jobId : jdbcTemplate.queryForList(SELECT_RUNNING_JOBS_SQL, Long.class)) {
+            log.info("Resuming reprice job {}", jobId);
+            runJob(jobId);
+        }
+    }
+    
+    // Reprice the policies and record the job in one transaction; null when no premium changes
+    private Long startJob(PolicyRepriceRequest request, boolean byType) {
+        List<Object[]> rows;
+        if (byType) {
+            rows = jdbcTemplate.query("SELECT id, premium_amount FROM policies WHERE type = ? ORDER BY id FOR UPDATE",
+                    (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getBigDecimal(2)}, request.getType().name());
+        } else {
+            List<Long> ids = request.getPolicyIds().stream().distinct().toList();
+            String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+            rows = jdbcTemplate.query("SELECT id, premium_amount FROM policies WHERE id IN (" + placeholders + ") ORDER BY id FOR UPDATE",
+                    (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getBigDecimal(2)}, ids.toArray());
+            if (rows.size() != ids.size()) {
+                throw PolicyOperationException.cannotReprice((ids.size() - rows.size()) + " of the given policies do not exist");
+            }
+        }
+        
+        // Old and new premium per policy, in the order the policies were updated
+        Map<Long, BigDecimal[]> changes = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            BigDecimal oldPremium = (BigDecimal) row[1];
+            BigDecimal newPremium = adjust(oldPremium, request);
+            if (newPremium.signum() <= 0) {
+                throw PolicyOperationException.cannotReprice("premium of policy " + row[0] + " would not be positive");
+            }
+            if (newPremium.compareTo(oldPremium) != 0) {
+                changes.put((Long) row[0], new BigDecimal[]{oldPremium, newPremium});
+            }
+        }
+        if (changes.isEmpty()) {
+            return null;
+        }
+        
+        Map<Long, Long> oldVersionIds = currentVersionIds(changes.keySet());
+        List<Map.Entry<Long, BigDecimal[]>> entries = new ArrayList<>(changes.entrySet());
+        jdbcTemplate.batchUpdate("UPDATE policies SET premium_amount = ? WHERE id = ?", entries, entries.size(),
+                (ps, entry) -> {
+                    ps.setBigDecimal(1, entry.getValue()[1]);
+                    ps.setLong(2, entry.getKey());
+                });
+        String placeholders = String.join(", ", Collections.nCopies(changes.size(), "?"));
+        Object[] ids = changes.keySet().toArray();
+        jdbcTemplate.update(String.format(INSERT_VERSIONS_SQL, placeholders), ids);
+        jdbcTemplate.update(String.format(POINT_TO_LATEST_VERSION_SQL, placeholders), ids);
+        Map<Long, Long> newVersionIds = currentVersionIds(changes.keySet());
+        
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(con -> con.prepareStatement(INSERT_JOB_SQL, new String[]{"id"}), keyHolder);
+        long jobId = keyHolder.getKey().longValue();
+        jdbcTemplate.batchUpdate(INSERT_ITEM_SQL, entries, entries.size(), (ps, entry) -> {
+            ps.setLong(1, jobId);
+            ps.setLong(2, entry.getKey());
+            ps.setBigDecimal(3, entry.getValue()[0]);
+            ps.setBigDecimal(4, entry.getValue()[1]);
+            ps.setObject(5, oldVersionIds.get(entry.getKey()), Types.BIGINT);
+            ps.setLong(6, newVersionIds.get(entry.getKey()));
+        });
+        // One event for the whole batch, so the catalog reloads once after commit
+        eventPublisher.publishEvent(new PolicyCatalogChangedEvent(null));
+        return jobId;
+    }
+    
+    // Carry each policy's change to its payments and holdings, then close the job
+    private void runJob(long jobId) {
+        try {
+            LocalDate today = LocalDate.now();
+            for (Item item : jdbcTemplate.query(SELECT_ITEMS_SQL, ITEM_ROW_MAPPER, jobId)) {
+                // Moved holdings drop out of the selection, so a resumed item can start from the first id
+                long lastId = 0;
+                int moved;
+                do {
+                    long after = lastId;
+                    long[] chunk = transactionTemplate.execute(tx -> repriceChunk(jobId, item, today, after));
+                    moved = (int) chunk[0];
+                    lastId = chunk[1];
+                    // Keep the lease alive while a large policy is worked through
+                    jobLockService.tryAcquire(JOB_NAME, lockLease);
+                } while (moved == chunkSize);
+                jdbcTemplate.update("UPDATE policy_reprice_items SET completed = TRUE WHERE job_id = ? AND policy_id = ?",
+                        jobId, item.policyId());
+            }
+            jdbcTemplate.update("UPDATE policy_reprice_jobs SET status = 'COMPLETED', error_message = NULL, finished_at = ? WHERE id = ?",
+                    Timestamp.valueOf(LocalDateTime.now()), jobId);
+        } catch (RuntimeException e) {
+            // The job stays RUNNING and is finished by a later run
+            String message = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+            jdbcTemplate.update("UPDATE policy_reprice_jobs SET error_message = ? WHERE id = ?",
+                    message.length() > 1000 ? message.substring(0, 1000) : message, jobId);
+            throw e;
+        }
+    }
+    
+    private Map<Long, Long> currentVersionIds(Set<Long> policyIds) {
+        Map<Long, Long> versionIds = new HashMap<>();
+        String placeholders = String.join(", ", Collections.nCopies(policyIds.size(), "?"));
+        jdbcTemplate.query("SELECT id, current_version_id FROM policies WHERE id IN (" + placeholders + ")",
+                rs -> {
+                    versionIds.put(rs.getLong(1), rs.getObject(2, Long.class));
+                }, policyIds.toArray());
+        return versionIds;
+    }
+    
+    private static BigDecimal adjust(BigDecimal premium, PolicyRepriceRequest request) {
+        BigDecimal adjusted = request.getAdjustment() == PolicyRepriceRequest.Adjustment.PERCENTAGE
+                ? premium.multiply(HUNDRED.add(request.getValue())).divide(HUNDRED)
+                : premium.add(request.getValue());
+        return adjusted.setScale(2, RoundingMode.HALF_UP);
+    }
+    
+    // Scale the not-yet-due pending premiums of one chunk of holdings and re-pin them to the new
+    // version; returns holdings moved and the last holding id seen
+    private long[] repriceChunk(long jobId, Item item, LocalDate today, long afterId) {
+        LinkedHashMap<Long, Long> userIds = new LinkedHashMap<>();
+        jdbcTemplate.query(SELECT_HOLDINGS_SQL, rs -> {
+            userIds.put(rs.getLong(1), rs.getLong(2));
+        }, item.policyId(), item.oldVersionId(), afterId, chunkSize);
+        if (userIds.isEmpty()) {
+            return new long[]{0, afterId};
+        }
+        String holdingPlaceholders = String.join(", ", Collections.nCopies(userIds.size(), "?"));
+        List<Object> args = new ArrayList<>(userIds.keySet());
+        args.add(Date.valueOf(today));
+        List<Object[]> payments = jdbcTemplate.query(String.format(SELECT_PAYMENTS_SQL, holdingPlaceholders),
+                (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getLong(2), rs.getBigDecimal(3), rs.getDate(4).toLocalDate()},
+                args.toArray());
+        
+        // Installments of one policy share an amount, so a chunk is usually a single set-based update
+        Map<BigDecimal, List<Object>> idsByNewAmount = new HashMap<>();
+        for (Object[] row : payments) {
+            BigDecimal newAmount = ((BigDecimal) row[2]).multiply(item.newPremium())
+                    .divide(item.oldPremium(), 2, RoundingMode.HALF_UP);
+            row[2] = newAmount;
+            idsByNewAmount.computeIfAbsent(newAmount, amount -> new ArrayList<>()).add(row[0]);
+        }
+        idsByNewAmount.forEach((amount, ids) -> {
+            List<Object> updateArgs = new ArrayList<>(ids.size() + 1);
+            updateArgs.add(amount);
+            updateArgs.addAll(ids);
+            String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+            jdbcTemplate.update("UPDATE payments SET amount = ? WHERE id IN (" + placeholders + ")", updateArgs.toArray());
+        });
+        List<Object> repinArgs = new ArrayList<>(userIds.size() + 1);
+        repinArgs.add(item.newVersionId());
+        repinArgs.addAll(userIds.keySet());
+        jdbcTemplate.update("UPDATE user_policies SET policy_version_id = ? WHERE id IN (" + holdingPlaceholders + ")",
+                repinArgs.toArray());
+        jdbcTemplate.update("UPDATE policy_reprice_jobs SET payments_updated = payments_updated + ?, " +
+                "holdings_repinned = holdings_repinned + ?, payment_chunks = payment_chunks + 1 WHERE id = ?",
+                payments.size(), userIds.size(), jobId);
+        
+        for (Object[] row : payments) {
+            Long userPolicyId = (Long) row[1];
+            eventPublisher.publishEvent(new PaymentStatusChangedEvent((Long) row[0], userIds.get(userPolicyId), userPolicyId,
+                    Payment.PaymentStatus.PENDING, Payment.PaymentStatus.PENDING, (BigDecimal) row[2], (LocalDate) row[3]));
+        }
+        return new long[]{userIds.size(), userIds.lastEntry().getKey()};
+    }
+    
+    private static final RowMapper<Item> ITEM_ROW_MAPPER = (rs, rowNum) -> new Item(
+            rs.getLong("policy_id"),
+            rs.getBigDecimal("old_premium"),
+            rs.getBigDecimal("new_premium"),
+            rs.getObject("old_version_id", Long.class),
+            rs.getLong("new_version_id"));
+}
@@ -5,17 +5,19 @@ import com.example.insurance_app.exceptions.PolicyNotFoundException;
 import com.example.insurance_app.exceptions.UnauthorizedAccessException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -23,8 +25,13 @@ import java.util.stream.Collectors;
 @Slf4j
 public class PolicyService {
     
+    private static final int MAX_FILTER_LIMIT = 1000;
+    
     private final PolicyRepository policyRepository;
     private final PolicyMapper policyMapper;
+    private final PolicyCatalog policyCatalog;
+    private final PolicyVersionService policyVersionService;
+    private final ApplicationEventPublisher eventPublisher;
     
     // Create a new policy (Admin only)
     public PolicyDto createPolicy(PolicyCreateRequest request) {
@@ -33,13 +40,15 @@ public class PolicyService {
         String policyNumber = generateUniquePolicyNumber(request.getType());
         policy.setPolicyNumber(policyNumber);
         Policy savedPolicy = policyRepository.save(policy);
+        policyVersionService.recordVersion(savedPolicy);
+        eventPublisher.publishEvent(new PolicyCatalogChangedEvent(savedPolicy.getId()));
         return policyMapper.toDto(savedPolicy);
     }
     
     // Update an existing policy (Admin only)
     public PolicyDto updatePolicy(Long id, PolicyUpdateRequest request) {
         validateAdminAccess();
-        Policy existingPolicy = policyRepository.findById(id)
+        Policy existingPolicy = policyRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> PolicyNotFoundException.byId(id));
         
         // Check if policy number is being updated and if it already exists
@@ -49,87 +58,82 @@ public class PolicyService {
             throw PolicyAlreadyExistsException.withPolicyNumber(request.getPolicyNumber());
         }
         policyMapper.updateEntity(request, existingPolicy);
+        // Existing holdings keep the version they bought; only new purchases see the new terms
+        policyVersionService.recordVersionIfChanged(existingPolicy);
         Policy updatedPolicy = policyRepository.save(existingPolicy);
+        eventPublisher.publishEvent(new PolicyCatalogChangedEvent(updatedPolicy.getId()));
         return policyMapper.toDto(updatedPolicy);
     }
     
-    // Delete a policy (Admin only)
-    public void deletePolicy(Long id) {
+    // Retire a policy (Admin only): hidden from the catalog and closed to new purchases, existing holdings untouched
+    public PolicyDto retirePolicy(Long id) {
         validateAdminAccess();
-        if (!policyRepository.existsById(id)) {
-            throw PolicyNotFoundException.byId(id);
+        Policy policy = policyRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> PolicyNotFoundException.byId(id));
+        if (!policy.isRetired()) {
+            policy.setRetiredAt(LocalDateTime.now());
+            policy = policyRepository.save(policy);
+            eventPublisher.publishEvent(new PolicyCatalogChangedEvent(id));
+            log.info("Retired policy {}", id);
         }
-        policyRepository.deleteById(id);
+        return policyMapper.toDto(policy);
     }
     
-    // Get policy by ID (Admin and Customer)
-    @Transactional(readOnly = true)
+    // Get policy by ID (Admin and Customer), served from the in-memory catalog
+    @Transactional(propagation = Propagation.SUPPORTS)
     public PolicyDto getPolicyById(Long id) {
-        Policy policy = policyRepository.findById(id)
-                .orElseThrow(() -> PolicyNotFoundException.byId(id));        
-        return policyMapper.toDto(policy);
+        return policyCatalog.snapshot().findById(id)
+                .orElseThrow(() -> PolicyNotFoundException.byId(id));
     }
     
-    // Get policy by policy number (Admin and Customer)
-    @Transactional(readOnly = true)
-    public PolicyDto getPolicyByPolicyNumber(String policyNumber) {        
-        Policy policy = policyRepository.findByPolicyNumber(policyNumber)
+    // Get policy by policy number (Admin and Customer), served from the in-memory catalog
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public PolicyDto getPolicyByPolicyNumber(String policyNumber) {
+        return policyCatalog.snapshot().findByPolicyNumber(policyNumber)
                 .orElseThrow(() -> PolicyNotFoundException.byPolicyNumber(policyNumber));
-        return policyMapper.toDto(policy);
-    }
-    
-    // Get all policies (Admin and Customer)
-    @Transactional(readOnly = true)
-    public List<PolicyDto> getAllPolicies() {
-        List<Policy> policies = policyRepository.findAllOrderByCreatedAtDesc();
-        return policies.stream()
-                .map(policyMapper::toDto)
-                .collect(Collectors.toList());
     }
     
-    // Get policies by type (Admin and Customer)
-    @Transactional(readOnly = true)
-    public List<PolicyDto> getPoliciesByType(Policy.PolicyType type) {
-        List<Policy> policies = policyRepository.findByTypeOrderByPremiumAmountAsc(type);
-        return policies.stream()
-                .map(policyMapper::toDto)
-                .collect(Collectors.toList());
+    // Search policies by description keywords (Admin and Customer), ranked by relevance from the in-memory index
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<PolicyDto> searchPoliciesByKeyword(String keyword, PolicyTextIndex.MatchMode mode, boolean prefix,
+                                                   Policy.PolicyType type) {
+        return policyCatalog.snapshot().textIndex().search(keyword, mode, prefix, type);
     }
     
-    // Search policies by description keyword (Admin and Customer)
-    @Transactional(readOnly = true)
-    public List<PolicyDto> searchPoliciesByKeyword(String keyword) {
-        List<Policy> policies = policyRepository.findByDescriptionContainingIgnoreCase(keyword);
-        return policies.stream()
-                .map(policyMapper::toDto)
-                .collect(Collectors.toList());
+    // Filter catalog policies by any combination of type, frequency and premium/coverage/term ranges (Admin and Customer)
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<PolicyDto> filterPolicies(PolicyFilterCriteria criteria) {
+        int limit = Math.min(Math.max(criteria.getLimit(), 1), MAX_FILTER_LIMIT);
+        return policyCatalog.snapshot().rangeIndex().filter(criteria, limit);
     }
     
     // Get policies by premium range (Admin and Customer)
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<PolicyDto> getPoliciesByPremiumRange(BigDecimal minPremium, BigDecimal maxPremium) {
-        List<Policy> policies = policyRepository.findByPremiumAmountBetween(minPremium, maxPremium);
-        return policies.stream()
-                .map(policyMapper::toDto)
-                .collect(Collectors.toList());
+        PolicyFilterCriteria criteria = new PolicyFilterCriteria();
+        criteria.setMinPremium(minPremium);
+        criteria.setMaxPremium(maxPremium);
+        return policyCatalog.snapshot().rangeIndex().filter(criteria, Integer.MAX_VALUE);
     }
     
-    // Get policies by minimum coverage amount (Admin and Customer)
-    @Transactional(readOnly = true)
+    // Get policies by minimum coverage amount (Admin and Customer); the bound is exclusive
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<PolicyDto> getPoliciesByMinCoverage(BigDecimal minCoverage) {
-        List<Policy> policies = policyRepository.findByCoverageAmountGreaterThan(minCoverage);
-        return policies.stream()
-                .map(policyMapper::toDto)
-                .collect(Collectors.toList());
+        PolicyFilterCriteria criteria = new PolicyFilterCriteria();
+        // Coverage is held in whole cents, so "greater than" is "at least one cent above"
+        criteria.setMinCoverage(minCoverage.setScale(2, RoundingMode.FLOOR).add(new BigDecimal("0.01")));
+        criteria.setSort(PolicyFilterCriteria.SortOrder.COVERAGE_ASC);
+        return policyCatalog.snapshot().rangeIndex().filter(criteria, Integer.MAX_VALUE);
     }
     
     // Get policies by term years range (Admin and Customer)
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<PolicyDto> getPoliciesByTermRange(Integer minYears, Integer maxYears) {
-        List<Policy> policies = policyRepository.findByTermYearsBetween(minYears, maxYears);
-        return policies.stream()
-                .map(policyMapper::toDto)
-                .collect(Collectors.toList());
+        PolicyFilterCriteria criteria = new PolicyFilterCriteria();
+        criteria.setMinTerm(minYears);
+        criteria.setMaxTerm(maxYears);
+        criteria.setSort(PolicyFilterCriteria.SortOrder.TERM_ASC);
+        return policyCatalog.snapshot().rangeIndex().filter(criteria, Integer.MAX_VALUE);
     }
     
     // Generate a unique policy number based on policy type
@@ -0,0 +1,117 @@
+package com.example.insurance_app.policies;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Inverted index over policy descriptions, built once per catalog snapshot. Descriptions are
+ * split into lower-cased alphanumeric tokens; each token maps to the documents containing it
+ * and how often. The sorted term dictionary lets a query term expand to every token it
+ * prefixes. Matches are ranked by summed tf-idf, with prefix expansions weighted below exact
+ * token hits.
+ */
+public final class PolicyTextIndex {
+    
+    public enum MatchMode {
+        ALL,
+        ANY
+    }
+    
+    private static final double PREFIX_WEIGHT = 0.5;
+    
+    private final PolicyDto[] docs;
+    private final String[] terms;
+    private final int[][] postingDocs;
+    private final int[][] postingCounts;
+    
+    PolicyTextIndex(List<PolicyDto> policies) {
+        this.docs = policies.toArray(new PolicyDto[0]);
+        Map<String, Map<Integer, Integer>> postings = new HashMap<>();
+        for (int doc = 0; doc < docs.length; doc++) {
+            for (String token : tokenize(docs[doc].getDescription())) {
+                postings.computeIfAbsent(token, t -> new HashMap<>()).merge(doc, 1, Integer::sum);
+            }
+        }
+        this.terms = postings.keySet().toArray(new String[0]);
+        Arrays.sort(terms);
+        this.postingDocs = new int[terms.length][];
+        this.postingCounts = new int[terms.length][];
+        for (int t = 0; t < terms.length; t++) {
+            Map<Integer, Integer> posting = postings.get(terms[t]);
+            int[] docIds = posting.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+            int[] counts = new int[docIds.length];
+            for (int i = 0; i < docIds.length; i++) {
+                counts[i] = posting.get(docIds[i]);
+            }
+            postingDocs[t] = docIds;
+            postingCounts[t] = counts;
+        }
+    }
+    
+    // Lower-cased alphanumeric tokens of a text
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{Alnum}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+    
+    // Policies matching the query terms, best first; type may be null
+    public List<PolicyDto> search(String query, MatchMode mode, boolean prefix, Policy.PolicyType type) {
+        List<String> queryTerms = tokenize(query).stream().distinct().toList();
+        if (queryTerms.isEmpty() || docs.length == 0) {
+            return List.of();
+        }
+        double[] scores = new double[docs.length];
+        int[] matchedTerms = new int[docs.length];
+        for (String queryTerm : queryTerms) {
+            // Each query term counts once per document however many tokens it expands to
+            boolean[] matched = new boolean[docs.length];
+            int from = Arrays.binarySearch(terms, queryTerm);
+            boolean exact = from >= 0;
+            if (!exact) {
+                from = -from - 1;
+            }
+            int to = exact ? from + 1 : from;
+            if (prefix) {
+                while (to < terms.length && terms[to].startsWith(queryTerm)) {
+                    to++;
+                }
+            }
+            for (int t = from; t < to; t++) {
+                double weight = terms[t].length() == queryTerm.length() ? 1.0 : PREFIX_WEIGHT;
+                int[] docIds = postingDocs[t];
+                double idf = Math.log(1.0 + (double) docs.length / docIds.length);
+                for (int i = 0; i < docIds.length; i++) {
+                    int doc = docIds[i];
+                    scores[doc] += weight * postingCounts[t][i] * idf;
+                    if (!matched[doc]) {
+                        matched[doc] = true;
+                        matchedTerms[doc]++;
+                    }
+                }
+            }
+        }
+        int required = mode == MatchMode.ALL ? queryTerms.size() : 1;
+        List<Integer> hits = new ArrayList<>();
+        for (int doc = 0; doc < docs.length; doc++) {
+            if (matchedTerms[doc] >= required && (type == null || docs[doc].getType() == type)) {
+                hits.add(doc);
+            }
+        }
+        hits.sort((a, b) -> scores[a] != scores[b]
+                ? Double.compare(scores[b], scores[a])
+                : Long.compare(docs[a].getId(), docs[b].getId()));
+        return hits.stream().map(doc -> docs[doc]).toList();
+    }
+}
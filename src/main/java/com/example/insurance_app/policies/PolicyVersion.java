@@ -0,0 +1,62 @@
+package com.example.insurance_app.policies;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// A policy's terms as of one change; rows are written once and never updated
+@Entity
+@Immutable
+@Table(name = "policy_versions")
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PolicyVersion {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "policy_id", nullable = false)
+    private Long policyId;
+    
+    @Column(name = "version_number", nullable = false)
+    private Integer versionNumber;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false)
+    private Policy.PolicyType type;
+    
+    @Column(name = "description", columnDefinition = "TEXT")
+    private String description;
+    
+    @Column(name = "coverage_amount", nullable = false, precision = 15, scale = 2)
+    private BigDecimal coverageAmount;
+    
+    @Column(name = "premium_amount", nullable = false, precision = 15, scale = 2)
+    private BigDecimal premiumAmount;
+    
+    @Column(name = "term_years", nullable = false)
+    private Integer termYears;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "premium_frequency", nullable = false, length = 20)
+    private Policy.PremiumFrequency premiumFrequency;
+    
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+    
+    // Snapshot of a policy's current terms as the given version number
+    public static PolicyVersion of(Policy policy, int versionNumber) {
+        return new PolicyVersion(null, policy.getId(), versionNumber, policy.getType(), policy.getDescription(),
+                policy.getCoverageAmount(), policy.getPremiumAmount(), policy.getTermYears(),
+                policy.getPremiumFrequency(), null);
+    }
+}
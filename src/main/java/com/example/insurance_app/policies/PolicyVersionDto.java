@@ -0,0 +1,33 @@
+package com.example.insurance_app.policies;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+public record PolicyVersionDto(Long id,
+                               Long policyId,
+                               int versionNumber,
+                               Policy.PolicyType type,
+                               String description,
+                               BigDecimal coverageAmount,
+                               BigDecimal premiumAmount,
+                               int termYears,
+                               Policy.PremiumFrequency premiumFrequency,
+                               LocalDateTime createdAt) {
+    
+    public static PolicyVersionDto of(PolicyVersion version) {
+        return new PolicyVersionDto(version.getId(), version.getPolicyId(), version.getVersionNumber(),
+                version.getType(), version.getDescription(), version.getCoverageAmount(), version.getPremiumAmount(),
+                version.getTermYears(), version.getPremiumFrequency(), version.getCreatedAt());
+    }
+    
+    // True when the policy's terms no longer match this version
+    public boolean differsFrom(Policy policy) {
+        return type != policy.getType()
+                || premiumFrequency != policy.getPremiumFrequency()
+                || termYears != policy.getTermYears()
+                || coverageAmount.compareTo(policy.getCoverageAmount()) != 0
+                || premiumAmount.compareTo(policy.getPremiumAmount()) != 0
+                || !Objects.equals(description, policy.getDescription());
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.insurance_app.policies;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PolicyVersionRepository extends JpaRepository<PolicyVersion, Long> {
+    
+    // Highest version number written for a policy, 0 when it has none yet
+    @Query("SELECT COALESCE(MAX(v.versionNumber), 0) FROM PolicyVersion v WHERE v.policyId = :policyId")
+    int findLatestVersionNumber(@Param("policyId") Long policyId);
+    
+    // A policy's versions, newest first
+    List<PolicyVersion> findByPolicyIdOrderByVersionNumberDesc(Long policyId);
+}
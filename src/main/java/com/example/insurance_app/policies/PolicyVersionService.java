@@ -0,0 +1,68 @@
+package com.example.insurance_app.policies;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.mapstruct.Named;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes and reads immutable policy versions. A new version is recorded whenever a policy's
+ * terms change and becomes the one new purchases are pinned to; existing holdings keep the
+ * version they bought. Because version rows never change, they are cached by id for the life
+ * of the process with no invalidation.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PolicyVersionService {
+    
+    private final PolicyVersionRepository policyVersionRepository;
+    private final Map<Long, PolicyVersionDto> versions = new ConcurrentHashMap<>();
+    
+    // Record the policy's current terms as its next version and point the policy at it; call inside the writing
+    // transaction, holding the policy's row lock (or on a new policy) so the next version number is not taken twice
+    public PolicyVersion recordVersion(Policy policy) {
+        int next = policyVersionRepository.findLatestVersionNumber(policy.getId()) + 1;
+        PolicyVersion version = policyVersionRepository.save(PolicyVersion.of(policy, next));
+        policy.setCurrentVersionId(version.getId());
+        log.info("Recorded version {} of policy {}", next, policy.getId());
+        return version;
+    }
+    
+    // Record a new version only if the terms differ from the current one
+    public void recordVersionIfChanged(Policy policy) {
+        PolicyVersionDto current = getVersion(policy.getCurrentVersionId());
+        if (current == null || current.differsFrom(policy)) {
+            recordVersion(policy);
+        }
+    }
+    
+    // Cached forever: a version's terms never change
+    @Named("policyVersionById")
+    public PolicyVersionDto getVersion(Long versionId) {
+        if (versionId == null) {
+            return null;
+        }
+        PolicyVersionDto cached = versions.get(versionId);
+        if (cached != null) {
+            return cached;
+        }
+        return policyVersionRepository.findById(versionId)
+                .map(PolicyVersionDto::of)
+                .map(version -> {
+                    versions.putIfAbsent(versionId, version);
+                    return version;
+                })
+                .orElse(null);
+    }
+    
+    public List<PolicyVersionDto> getVersions(Long policyId) {
+        return policyVersionRepository.findByPolicyIdOrderByVersionNumberDesc(policyId).stream()
+                .map(PolicyVersionDto::of)
+                .toList();
+    }
+}
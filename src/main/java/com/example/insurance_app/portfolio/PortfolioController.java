@@ -0,0 +1,27 @@
+package com.example.insurance_app.portfolio;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequiredArgsConstructor
+@Tag(name = "Customer Portfolio", description = "Aggregated home-screen view of a customer's policies, payments and claims")
+public class PortfolioController {
+    
+    private final PortfolioService portfolioService;
+    
+    @GetMapping("/api/users/{userId}/portfolio")
+    @PreAuthorize("hasRole('ADMIN') or (hasRole('CUSTOMER') and #userId == authentication.principal.id)")
+    @Operation(summary = "Get customer portfolio", description = "Policies, upcoming dues, recent payments, open claims and active policy count in one response")
+    public ResponseEntity<PortfolioDto> getPortfolio(
+            @Parameter(description = "User ID") @PathVariable Long userId) {
+        return ResponseEntity.ok(portfolioService.getPortfolio(userId));
+    }
+}
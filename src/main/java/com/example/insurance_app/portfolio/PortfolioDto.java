@@ -0,0 +1,31 @@
+package com.example.insurance_app.portfolio;
+
+import com.example.insurance_app.claims.ClaimDto;
+import com.example.insurance_app.payments.PaymentDto;
+import com.example.insurance_app.user_policies.UserPolicyDto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PortfolioDto {
+    
+    private Long userId;
+    
+    private long activePolicyCount;
+    
+    private List<UserPolicyDto> policies;
+    
+    private List<PaymentDto> upcomingDues;
+    
+    private List<PaymentDto> recentPayments;
+    
+    private List<ClaimDto> openClaims;
+    
+    private LocalDateTime generatedAt;
+}
@@ -0,0 +1,155 @@
+package com.example.insurance_app.portfolio;
+
+import com.example.insurance_app.claims.ClaimDto;
+import com.example.insurance_app.claims.ClaimService;
+import com.example.insurance_app.claims.ClaimStatusChangedEvent;
+import com.example.insurance_app.payments.PaymentDto;
+import com.example.insurance_app.payments.PaymentService;
+import com.example.insurance_app.payments.PaymentStatusChangedEvent;
+import com.example.insurance_app.user_policies.UserPolicy;
+import com.example.insurance_app.user_policies.UserPolicyDto;
+import com.example.insurance_app.user_policies.UserPolicyService;
+import com.example.insurance_app.user_policies.UserPolicyStatusChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Customer home-screen read model. The four sections are fetched concurrently on virtual
+ * threads and the assembled portfolio is cached per user until a committed write for that
+ * user (policy, payment or claim event) or the TTL invalidates it.
+ */
+@Service
+@Slf4j
+public class PortfolioService {
+    
+    private final UserPolicyService userPolicyService;
+    private final PaymentService paymentService;
+    private final ClaimService claimService;
+    
+    private final Duration ttl;
+    private final int maxEntries;
+    private final int sectionLimit;
+    
+    private final ExecutorService fetcher = Executors.newVirtualThreadPerTaskExecutor();
+    // Entries carry the invalidation sequence they were stamped with; an invalidation leaves a
+    // portfolio-less marker so a load that raced with the write is not cached. Markers expire
+    // with the TTL like any other entry.
+    private final Map<Long, CachedPortfolio> cache = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+    
+    public PortfolioService(UserPolicyService userPolicyService,
+                            PaymentService paymentService,
+                            ClaimService claimService,
+                            @Value("${portfolio.cache.ttl-seconds:300}") long ttlSeconds,
+                            @Value("${portfolio.cache.max-entries:10000}") int maxEntries,
+                            @Value("${portfolio.section-limit:20}") int sectionLimit) {
+        this.userPolicyService = userPolicyService;
+        this.paymentService = paymentService;
+        this.claimService = claimService;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.maxEntries = maxEntries;
+        this.sectionLimit = sectionLimit;
+    }
+    
+    // Cached portfolio for a user, assembled on a miss
+    public PortfolioDto getPortfolio(Long userId) {
+        CachedPortfolio cached = cache.get(userId);
+        if (cached != null && cached.portfolio() != null && cached.isFresh()) {
+            return cached.portfolio();
+        }
+        long loadedAt = invalidations.get();
+        PortfolioDto portfolio = load(userId);
+        if (cache.size() < maxEntries || cache.containsKey(userId)) {
+            // Checked inside compute so it cannot interleave with invalidate() for the same user
+            cache.compute(userId, (id, existing) -> existing == null || existing.sequence() <= loadedAt
+                    ? new CachedPortfolio(portfolio, loadedAt, expiresAt())
+                    : existing);
+        }
+        return portfolio;
+    }
+    
+    private PortfolioDto load(Long userId) {
+        CompletableFuture<List<UserPolicyDto>> policies =
+                CompletableFuture.supplyAsync(() -> userPolicyService.getUserPolicies(userId), fetcher);
+        CompletableFuture<List<PaymentDto>> upcomingDues =
+                CompletableFuture.supplyAsync(() -> paymentService.getUpcomingDues(userId, sectionLimit), fetcher);
+        CompletableFuture<List<PaymentDto>> recentPayments =
+                CompletableFuture.supplyAsync(() -> paymentService.getRecentPayments(userId, sectionLimit), fetcher);
+        CompletableFuture<List<ClaimDto>> openClaims =
+                CompletableFuture.supplyAsync(() -> claimService.getOpenClaimsByUserId(userId, sectionLimit), fetcher);
+        try {
+            CompletableFuture.allOf(policies, upcomingDues, recentPayments, openClaims).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        // The holdings list is complete, so the active count comes from it rather than another round trip
+        List<UserPolicyDto> holdings = policies.join();
+        long activeCount = holdings.stream().filter(holding -> holding.getStatus() == UserPolicy.Status.ACTIVE).count();
+        return new PortfolioDto(userId, activeCount, holdings, upcomingDues.join(), recentPayments.join(),
+                openClaims.join(), LocalDateTime.now());
+    }
+    
+    @TransactionalEventListener
+    public void onUserPolicyStatusChanged(UserPolicyStatusChangedEvent event) {
+        invalidate(event.userId());
+    }
+    
+    @TransactionalEventListener
+    public void onPaymentStatusChanged(PaymentStatusChangedEvent event) {
+        invalidate(event.userId());
+    }
+    
+    @TransactionalEventListener
+    public void onClaimStatusChanged(ClaimStatusChangedEvent event) {
+        invalidate(event.userId());
+    }
+    
+    public void invalidate(Long userId) {
+        CachedPortfolio marker = new CachedPortfolio(null, invalidations.incrementAndGet(), expiresAt());
+        // Same bound as getPortfolio: when the cache is full a racing load for a new user is not cached either
+        if (cache.size() < maxEntries || cache.containsKey(userId)) {
+            cache.put(userId, marker);
+        }
+    }
+    
+    private long expiresAt() {
+        return System.nanoTime() + ttl.toNanos();
+    }
+    
+    // Drop expired entries so the cache only holds recently viewed portfolios
+    @Scheduled(fixedDelayString = "${portfolio.cache.sweep-interval-ms:60000}")
+    public void evictExpired() {
+        cache.values().removeIf(cached -> !cached.isFresh());
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        fetcher.shutdownNow();
+    }
+    
+    // A null portfolio marks an invalidation
+    private record CachedPortfolio(PortfolioDto portfolio, long sequence, long expiresAtNanos) {
+        
+        boolean isFresh() {
+            return System.nanoTime() - expiresAtNanos < 0;
+        }
+    }
+}
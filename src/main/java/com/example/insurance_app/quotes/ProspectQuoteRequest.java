@@ -0,0 +1,33 @@
+package com.example.insurance_app.quotes;
+
+import com.example.insurance_app.policies.Policy;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// One prospect's quote filters; omitted filters match every catalog policy and every frequency
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProspectQuoteRequest {
+    
+    @NotBlank(message = "Prospect reference is required")
+    @Size(max = 100, message = "Prospect reference cannot exceed 100 characters")
+    private String prospectRef;
+    
+    private List<Policy.PolicyType> types;
+    
+    private List<Policy.PremiumFrequency> frequencies;
+    
+    @Size(max = 20, message = "At most 20 terms can be requested")
+    private List<@Positive(message = "Term years must be positive") Integer> termYears;
+    
+    @Positive(message = "Maximum installment must be positive")
+    private BigDecimal maxInstallment;
+}
@@ -0,0 +1,6 @@
+package com.example.insurance_app.quotes;
+
+import java.util.List;
+
+public record ProspectQuotesDto(String prospectRef, List<QuoteDto> quotes) {
+}
@@ -0,0 +1,20 @@
+package com.example.insurance_app.quotes;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuoteBatchRequest {
+    
+    @NotEmpty(message = "At least one prospect is required")
+    @Size(max = 5000, message = "A batch cannot exceed 5000 prospects")
+    private List<@Valid ProspectQuoteRequest> prospects;
+}
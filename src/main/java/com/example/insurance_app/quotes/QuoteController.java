@@ -0,0 +1,27 @@
+package com.example.insurance_app.quotes;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/quotes")
+@RequiredArgsConstructor
+@Tag(name = "Quotes", description = "Premium quotes for catalog policies")
+public class QuoteController {
+    
+    private final QuoteService quoteService;
+    
+    @PostMapping("/batch")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('AGENT')")
+    @Operation(summary = "Quote a batch of prospects", description = "For each prospect, the installment and total cost of every matching catalog policy at every requested premium frequency")
+    public ResponseEntity<List<ProspectQuotesDto>> quoteBatch(@Valid @RequestBody QuoteBatchRequest request) {
+        return ResponseEntity.ok(quoteService.quote(request));
+    }
+}
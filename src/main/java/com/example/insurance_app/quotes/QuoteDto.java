@@ -0,0 +1,16 @@
+package com.example.insurance_app.quotes;
+
+import com.example.insurance_app.policies.Policy;
+
+import java.math.BigDecimal;
+
+// Installment for one policy at one frequency, and what the whole term costs at that frequency
+public record QuoteDto(Long policyId,
+                       String policyNumber,
+                       Policy.PolicyType type,
+                       Policy.PremiumFrequency frequency,
+                       int termYears,
+                       BigDecimal installmentAmount,
+                       int installmentCount,
+                       BigDecimal totalCost) {
+}
@@ -0,0 +1,142 @@
+package com.example.insurance_app.quotes;
+
+import com.example.insurance_app.policies.Policy;
+import com.example.insurance_app.policies.PolicyCatalog;
+import com.example.insurance_app.policies.PolicyDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bulk premium quotes over the in-memory catalog. For each catalog version the installment of
+ * every policy at every premium frequency is precomputed once in long cents, rounded half-up
+ * exactly like PaymentService, so a quote is an array lookup and a multiplication. Prospects
+ * asking for the same filters get the same quote list, memoized until the catalog changes.
+ */
+@Service
+@Slf4j
+public class QuoteService {
+    
+    private static final Policy.PremiumFrequency[] FREQUENCIES = Policy.PremiumFrequency.values();
+    
+    private final PolicyCatalog policyCatalog;
+    private final int memoMaxEntries;
+    
+    private volatile QuoteTables tables;
+    
+    public QuoteService(PolicyCatalog policyCatalog,
+                        @Value("${quotes.memo-max-entries:10000}") int memoMaxEntries) {
+        this.policyCatalog = policyCatalog;
+        this.memoMaxEntries = memoMaxEntries;
+    }
+    
+    // Quote every prospect in the batch against the current catalog
+    public List<ProspectQuotesDto> quote(QuoteBatchRequest request) {
+        QuoteTables current = currentTables();
+        List<ProspectQuotesDto> result = new ArrayList<>(request.getProspects().size());
+        for (ProspectQuoteRequest prospect : request.getProspects()) {
+            QuoteShape shape = QuoteShape.of(prospect);
+            List<QuoteDto> quotes = current.memo.get(shape);
+            if (quotes == null) {
+                quotes = current.quote(shape);
+                if (current.memo.size() < memoMaxEntries) {
+                    current.memo.putIfAbsent(shape, quotes);
+                }
+            }
+            result.add(new ProspectQuotesDto(prospect.getProspectRef(), quotes));
+        }
+        return result;
+    }
+    
+    // Tables for the current catalog version; racing rebuilds produce identical tables, so either may win
+    private QuoteTables currentTables() {
+        PolicyCatalog.Snapshot snapshot = policyCatalog.snapshot();
+        QuoteTables current = tables;
+        if (current == null || current.version != snapshot.version()) {
+            current = new QuoteTables(snapshot.version(), snapshot.newestFirst());
+            tables = current;
+            log.debug("Built quote tables for catalog version {}", snapshot.version());
+        }
+        return current;
+    }
+    
+    // Installment in cents for an annual premium in cents, rounded half-up
+    static long installmentCents(long annualCents, int paymentsPerYear) {
+        return (2 * annualCents + paymentsPerYear) / (2L * paymentsPerYear);
+    }
+    
+    // Canonical form of a prospect's filters, so equivalent requests share a memo entry
+    private record QuoteShape(Set<Policy.PolicyType> types,
+                              Set<Policy.PremiumFrequency> frequencies,
+                              Set<Integer> termYears,
+                              long maxInstallmentCents) {
+        
+        static QuoteShape of(ProspectQuoteRequest prospect) {
+            return new QuoteShape(
+                    prospect.getTypes() == null || prospect.getTypes().isEmpty()
+                            ? EnumSet.allOf(Policy.PolicyType.class) : EnumSet.copyOf(prospect.getTypes()),
+                    prospect.getFrequencies() == null || prospect.getFrequencies().isEmpty()
+                            ? EnumSet.allOf(Policy.PremiumFrequency.class) : EnumSet.copyOf(prospect.getFrequencies()),
+                    prospect.getTermYears() == null || prospect.getTermYears().isEmpty()
+                            ? Set.of() : Set.copyOf(prospect.getTermYears()),
+                    prospect.getMaxInstallment() == null
+                            ? Long.MAX_VALUE
+                            : prospect.getMaxInstallment().movePointRight(2).setScale(0, RoundingMode.FLOOR).longValueExact());
+        }
+    }
+    
+    private static final class QuoteTables {
+        
+        private final long version;
+        private final PolicyDto[] policies;
+        private final long[][] installmentCents;
+        private final Map<QuoteShape, List<QuoteDto>> memo = new ConcurrentHashMap<>();
+        
+        private QuoteTables(long version, List<PolicyDto> catalog) {
+            this.version = version;
+            this.policies = catalog.stream()
+                    .sorted(Comparator.comparing(PolicyDto::getId))
+                    .toArray(PolicyDto[]::new);
+            this.installmentCents = new long[policies.length][FREQUENCIES.length];
+            for (int p = 0; p < policies.length; p++) {
+                long annualCents = policies[p].getPremiumAmount().movePointRight(2)
+                        .setScale(0, RoundingMode.HALF_UP).longValueExact();
+                for (Policy.PremiumFrequency frequency : FREQUENCIES) {
+                    installmentCents[p][frequency.ordinal()] = installmentCents(annualCents, frequency.getPaymentsPerYear());
+                }
+            }
+        }
+        
+        private List<QuoteDto> quote(QuoteShape shape) {
+            List<QuoteDto> quotes = new ArrayList<>();
+            for (int p = 0; p < policies.length; p++) {
+                PolicyDto policy = policies[p];
+                int term = policy.getTermYears();
+                if (!shape.types().contains(policy.getType())
+                        || (!shape.termYears().isEmpty() && !shape.termYears().contains(term))) {
+                    continue;
+                }
+                for (Policy.PremiumFrequency frequency : shape.frequencies()) {
+                    long installment = installmentCents[p][frequency.ordinal()];
+                    if (installment > shape.maxInstallmentCents()) {
+                        continue;
+                    }
+                    int count = frequency.getPaymentsPerYear() * term;
+                    quotes.add(new QuoteDto(policy.getId(), policy.getPolicyNumber(), policy.getType(), frequency, term,
+                            BigDecimal.valueOf(installment, 2), count, BigDecimal.valueOf(installment * count, 2)));
+                }
+            }
+            return List.copyOf(quotes);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.insurance_app.recommendations;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+@Tag(name = "Recommendations", description = "Cross-sell suggestions from policies commonly held together")
+public class RecommendationController {
+    
+    private final RecommendationService recommendationService;
+    
+    @GetMapping("/api/users/{userId}/recommendations")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('AGENT') or (hasRole('CUSTOMER') and #userId == authentication.principal.id)")
+    @Operation(summary = "Recommend policies for a user", description = "Catalog policies the user does not hold, ranked by how often they are held alongside the user's policies, topped up with the most held policies (max 50)")
+    public ResponseEntity<List<RecommendationDto>> getRecommendations(
+            @Parameter(description = "User ID") @PathVariable Long userId,
+            @Parameter(description = "Number of suggestions (max 50)") @RequestParam(defaultValue = "5") int limit) {
+        return ResponseEntity.ok(recommendationService.recommend(userId, limit));
+    }
+    
+    @PostMapping("/api/recommendations/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Rebuild the recommendation model", description = "Admin endpoint to recount policy co-ownership now instead of waiting for the nightly rebuild; the rebuild runs in the background")
+    public ResponseEntity<Void> rebuild() {
+        recommendationService.requestRebuild();
+        return ResponseEntity.accepted().build();
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.insurance_app.recommendations;
+
+import com.example.insurance_app.policies.PolicyDto;
+
+// A suggested catalog policy: CO_OWNERSHIP when driven by policies the user holds, POPULAR when filling in by overall holders
+public record RecommendationDto(PolicyDto policy, Source source, double score, int holders) {
+    
+    public enum Source {
+        CO_OWNERSHIP,
+        POPULAR
+    }
+}
@@ -0,0 +1,332 @@
+package com.example.insurance_app.recommendations;
+
+import com.example.insurance_app.policies.PolicyCatalog;
+import com.example.insurance_app.policies.PolicyDto;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+/**
+ * Cross-sell suggestions from policy co-ownership. A periodic rebuild reads every user's
+ * non-cancelled holdings in user id ranges on several threads, counts how often each pair of
+ * policies is held by the same user into per-thread dense matrices (the catalog is small),
+ * and compresses the merged counts into a sparse row-per-policy structure of the strongest
+ * neighbours by cosine similarity. A request reads the user's held policy ids, sums their
+ * neighbour rows in memory, drops held and retired policies, and tops up with the most held
+ * policies overall. Rebuilds run on a dedicated thread and requests made while one is
+ * queued are folded into it, so neither startup, the scheduler nor the admin endpoint waits
+ * for the count.
+ */
+@Service
+@Slf4j
+public class RecommendationService {
+    
+    private static final String USER_RANGE_SQL = "SELECT MIN(user_id), MAX(user_id) FROM user_policies";
+    private static final String SELECT_BASKETS_SQL =
+            "SELECT user_id, policy_id FROM user_policies " +
+            "WHERE user_id >= ? AND user_id < ? AND status <> 'CANCELLED' ORDER BY user_id";
+    private static final int MAX_LIMIT = 50;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final PolicyCatalog policyCatalog;
+    private final int parallelism;
+    private final int userRangeSize;
+    private final int neighboursPerPolicy;
+    
+    private final ExecutorService rebuilder =
+            Executors.newSingleThreadExecutor(Thread.ofPlatform().name("recommendation-rebuild").daemon().factory());
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    private volatile Model model;
+    
+    public RecommendationService(JdbcTemplate jdbcTemplate,
+                                 PolicyCatalog policyCatalog,
+                                 @Value("${recommendations.parallelism:4}") int parallelism,
+                                 @Value("${recommendations.user-range-size:50000}") int userRangeSize,
+                                 @Value("${recommendations.neighbours-per-policy:50}") int neighboursPerPolicy) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.policyCatalog = policyCatalog;
+        this.parallelism = parallelism;
+        this.userRangeSize = userRangeSize;
+        this.neighboursPerPolicy = neighboursPerPolicy;
+    }
+    
+    // Catalog policies to suggest to a user, best first
+    public List<RecommendationDto> recommend(Long userId, int limit) {
+        int size = Math.min(Math.max(limit, 1), MAX_LIMIT);
+        Model current = model;
+        PolicyCatalog.Snapshot catalog = policyCatalog.snapshot();
+        if (current == null) {
+            return List.of();
+        }
+        
+        // Every policy the user has ever held is excluded; only live holdings drive the scores
+        boolean[] excluded = new boolean[current.policyIds.length];
+        float[] scores = new float[current.policyIds.length];
+        jdbcTemplate.query("SELECT policy_id, status FROM user_policies WHERE user_id = ?", rs -> {
+            Integer ordinal = current.ordinals.get(rs.getLong(1));
+            if (ordinal == null) {
+                return;
+            }
+            excluded[ordinal] = true;
+            if (!"CANCELLED".equals(rs.getString(2))) {
+                for (int i = current.rowOffsets[ordinal]; i < current.rowOffsets[ordinal + 1]; i++) {
+                    scores[current.neighbours[i]] += current.similarities[i];
+                }
+            }
+        }, userId);
+        
+        List<RecommendationDto> result = new ArrayList<>(size);
+        int[] ranked = IntStream.range(0, scores.length)
+                .filter(ordinal -> scores[ordinal] > 0 && !excluded[ordinal])
+                .boxed()
+                .sorted(Comparator.comparingDouble((Integer ordinal) -> scores[ordinal]).reversed())
+                .mapToInt(Integer::intValue)
+                .toArray();
+        for (int ordinal : ranked) {
+            addIfOnSale(result, catalog, current, ordinal, RecommendationDto.Source.CO_OWNERSHIP, scores[ordinal], excluded, size);
+        }
+        for (int ordinal : current.mostHeld) {
+            addIfOnSale(result, catalog, current, ordinal, RecommendationDto.Source.POPULAR, 0, excluded, size);
+        }
+        return result;
+    }
+    
+    private static void addIfOnSale(List<RecommendationDto> result, PolicyCatalog.Snapshot catalog, Model model,
+                                    int ordinal, RecommendationDto.Source source, double score,
+                                    boolean[] excluded, int size) {
+        if (result.size() >= size || excluded[ordinal]) {
+            return;
+        }
+        PolicyDto policy = catalog.findById(model.policyIds[ordinal]).orElse(null);
+        if (policy != null && policy.getRetiredAt() == null) {
+            excluded[ordinal] = true;
+            result.add(new RecommendationDto(policy, source, score, model.holders[ordinal]));
+        }
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        requestRebuild();
+    }
+    
+    @Scheduled(cron = "${recommendations.rebuild-cron:0 30 2 * * ?}")
+    public void scheduledRebuild() {
+        requestRebuild();
+    }
+    
+    // Queue a rebuild on the rebuild thread; false if one is already queued and will pick up current data
+    public boolean requestRebuild() {
+        if (!rebuildQueued.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            rebuilder.execute(() -> {
+                rebuildQueued.set(false);
+                rebuild();
+            });
+        } catch (RejectedExecutionException e) {
+            rebuildQueued.set(false);
+            return false;
+        }
+        return true;
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+    
+    private void rebuild() {
+        try {
+            long started = System.nanoTime();
+            long[] policyIds = policyCatalog.snapshot().allPolicies().stream()
+                    .mapToLong(PolicyDto::getId)
+                    .sorted()
+                    .toArray();
+            Map<Long, Integer> ordinals = new HashMap<>();
+            for (int i = 0; i < policyIds.length; i++) {
+                ordinals.put(policyIds[i], i);
+            }
+            Counts counts = count(policyIds.length, ordinals);
+            model = new Model(policyIds, ordinals, counts, neighboursPerPolicy);
+            log.info("Built recommendation model over {} policies and {} users in {} ms",
+                    policyIds.length, counts.users, (System.nanoTime() - started) / 1_000_000);
+        } catch (Exception e) {
+            log.error("Failed to build recommendation model: {}", e.getMessage(), e);
+        }
+    }
+    
+    // Count holders per policy and co-holders per policy pair, one user id range per task
+    private Counts count(int policies, Map<Long, Integer> ordinals) throws Exception {
+        long[] bounds = jdbcTemplate.queryForObject(USER_RANGE_SQL,
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)});
+        int threads = Math.max(parallelism, 1);
+        BlockingQueue<Counts> partials = new ArrayBlockingQueue<>(threads);
+        for (int i = 0; i < threads; i++) {
+            partials.add(new Counts(policies));
+        }
+        if (bounds != null && bounds[1] > 0) {
+            try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+                List<Future<?>> tasks = new ArrayList<>();
+                for (long from = bounds[0]; from <= bounds[1]; from += userRangeSize) {
+                    long start = from;
+                    tasks.add(executor.submit(() -> {
+                        Counts partial = partials.take();
+                        try {
+                            countRange(partial, ordinals, start, start + userRangeSize);
+                        } finally {
+                            partials.add(partial);
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> task : tasks) {
+                    task.get();
+                }
+            }
+        }
+        Counts total = new Counts(policies);
+        partials.forEach(total::add);
+        return total;
+    }
+    
+    private void countRange(Counts counts, Map<Long, Integer> ordinals, long fromUserId, long toUserId) {
+        // Rows arrive grouped by user, so one reusable buffer holds the current user's basket
+        int[][] basket = {new int[16]};
+        int[] size = {0};
+        long[] currentUser = {-1};
+        jdbcTemplate.query(SELECT_BASKETS_SQL, rs -> {
+            long userId = rs.getLong(1);
+            if (userId != currentUser[0]) {
+                counts.addBasket(basket[0], size[0]);
+                size[0] = 0;
+                currentUser[0] = userId;
+            }
+            Integer ordinal = ordinals.get(rs.getLong(2));
+            if (ordinal != null) {
+                if (size[0] == basket[0].length) {
+                    basket[0] = Arrays.copyOf(basket[0], basket[0].length * 2);
+                }
+                basket[0][size[0]++] = ordinal;
+            }
+        }, fromUserId, toUserId);
+        counts.addBasket(basket[0], size[0]);
+    }
+    
+    // Dense counts; a user holding the same policy twice counts once
+    private static final class Counts {
+        
+        private final int policies;
+        private final int[] holders;
+        private final int[] pairs;
+        private long users;
+        
+        private Counts(int policies) {
+            this.policies = policies;
+            this.holders = new int[policies];
+            this.pairs = new int[policies * policies];
+        }
+        
+        private void addBasket(int[] basket, int size) {
+            if (size == 0) {
+                return;
+            }
+            int[] distinct = Arrays.stream(basket, 0, size).sorted().distinct().toArray();
+            users++;
+            for (int i = 0; i < distinct.length; i++) {
+                holders[distinct[i]]++;
+                for (int j = i + 1; j < distinct.length; j++) {
+                    pairs[distinct[i] * policies + distinct[j]]++;
+                    pairs[distinct[j] * policies + distinct[i]]++;
+                }
+            }
+        }
+        
+        private void add(Counts other) {
+            users += other.users;
+            for (int i = 0; i < holders.length; i++) {
+                holders[i] += other.holders[i];
+            }
+            for (int i = 0; i < pairs.length; i++) {
+                pairs[i] += other.pairs[i];
+            }
+        }
+    }
+    
+    // Compressed sparse rows: policy ordinal -> its strongest co-held neighbours and their similarities
+    private static final class Model {
+        
+        private final long[] policyIds;
+        private final Map<Long, Integer> ordinals;
+        private final int[] holders;
+        private final int[] rowOffsets;
+        private final int[] neighbours;
+        private final float[] similarities;
+        private final int[] mostHeld;
+        
+        private Model(long[] policyIds, Map<Long, Integer> ordinals, Counts counts, int neighboursPerPolicy) {
+            int n = policyIds.length;
+            this.policyIds = policyIds;
+            this.ordinals = Map.copyOf(ordinals);
+            this.holders = counts.holders;
+            this.rowOffsets = new int[n + 1];
+            List<int[]> rows = new ArrayList<>(n);
+            List<float[]> rowScores = new ArrayList<>(n);
+            int total = 0;
+            for (int a = 0; a < n; a++) {
+                int row = a;
+                int[] columns = IntStream.range(0, n)
+                        .filter(b -> counts.pairs[row * n + b] > 0)
+                        .boxed()
+                        .sorted(Comparator.comparingDouble((Integer b) -> cosine(counts, row, b)).reversed())
+                        .limit(neighboursPerPolicy)
+                        .mapToInt(Integer::intValue)
+                        .toArray();
+                float[] values = new float[columns.length];
+                for (int i = 0; i < columns.length; i++) {
+                    values[i] = (float) cosine(counts, row, columns[i]);
+                }
+                rows.add(columns);
+                rowScores.add(values);
+                total += columns.length;
+                rowOffsets[a + 1] = total;
+            }
+            this.neighbours = new int[total];
+            this.similarities = new float[total];
+            for (int a = 0; a < n; a++) {
+                System.arraycopy(rows.get(a), 0, neighbours, rowOffsets[a], rows.get(a).length);
+                System.arraycopy(rowScores.get(a), 0, similarities, rowOffsets[a], rowScores.get(a).length);
+            }
+            this.mostHeld = IntStream.range(0, n)
+                    .filter(ordinal -> holders[ordinal] > 0)
+                    .boxed()
+                    .sorted(Comparator.comparingInt((Integer ordinal) -> holders[ordinal]).reversed())
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+        
+        private static double cosine(Counts counts, int a, int b) {
+            return counts.pairs[a * counts.policies + b] / Math.sqrt((double) counts.holders[a] * counts.holders[b]);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.insurance_app.stats;
+
+import com.example.insurance_app.common.SingleFlightRegistry;
+import com.example.insurance_app.common.SingleFlightStatsDto;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/stats")
+@RequiredArgsConstructor
+@Tag(name = "Statistics", description = "Claim and user policy counts served from incrementally maintained counters, plus read coalescing counters")
+public class StatsController {
+    
+    private final StatusCounterService statusCounterService;
+    private final SingleFlightRegistry singleFlightRegistry;
+    
+    @GetMapping("/counts")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('AGENT')")
+    @Operation(summary = "Get system-wide counts", description = "Claims by status and user policies by status and policy type")
+    public ResponseEntity<StatusCountsDto> getGlobalCounts() {
+        return ResponseEntity.ok(statusCounterService.getGlobalCounts());
+    }
+    
+    @GetMapping("/users/{userId}/counts")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('AGENT') or (hasRole('CUSTOMER') and #userId == authentication.principal.id)")
+    @Operation(summary = "Get counts for a user", description = "A user's claims by status and policies by status and policy type")
+    public ResponseEntity<StatusCountsDto> getUserCounts(
+            @Parameter(description = "User ID") @PathVariable Long userId) {
+        return ResponseEntity.ok(statusCounterService.getUserCounts(userId));
+    }
+    
+    @GetMapping("/single-flight")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get request coalescing counters", description = "Per coalesced read: loads run, requests that shared an in-flight load, and loads running now on this node")
+    public ResponseEntity<List<SingleFlightStatsDto>> getSingleFlightStats() {
+        return ResponseEntity.ok(singleFlightRegistry.stats());
+    }
+    
+    @PostMapping("/reconcile")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Reconcile counters", description = "Admin endpoint to rebuild all counters from the database")
+    public ResponseEntity<StatusCountsDto> reconcile() {
+        statusCounterService.reconcile();
+        return ResponseEntity.ok(statusCounterService.getGlobalCounts());
+    }
+}
@@ -0,0 +1,363 @@
+package com.example.insurance_app.stats;
+
+import com.example.insurance_app.claims.Claim;
+import com.example.insurance_app.claims.ClaimRepository;
+import com.example.insurance_app.claims.ClaimStatusChangedEvent;
+import com.example.insurance_app.policies.Policy;
+import com.example.insurance_app.user_policies.UserPolicy;
+import com.example.insurance_app.user_policies.UserPolicyRepository;
+import com.example.insurance_app.user_policies.UserPolicyStatusChangedEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntToLongFunction;
+
+/**
+ * In-memory claim and user policy counters, globally and per user. Counters move on every
+ * committed status transition. The changes are added to the shared status_counters rows
+ * periodically, so nodes never overwrite each other's counts and a restart within one persist
+ * interval of the last write loads the snapshot instead of recounting. Counters are rebuilt from
+ * GROUP BY queries nightly; transitions that commit while the queries run are recorded and
+ * replayed onto the rebuilt set, so the swap loses none of them.
+ */
+@Service
+@Slf4j
+public class StatusCounterService {
+    
+    private static final Claim.ClaimStatus[] CLAIM_STATUSES = Claim.ClaimStatus.values();
+    private static final UserPolicy.Status[] POLICY_STATUSES = UserPolicy.Status.values();
+    private static final Policy.PolicyType[] POLICY_TYPES = Policy.PolicyType.values();
+    
+    // Per-user counters are laid out as [claim statuses..., policy status x policy type...]
+    private static final int USER_POLICY_OFFSET = CLAIM_STATUSES.length;
+    private static final int SLOTS = USER_POLICY_OFFSET + POLICY_STATUSES.length * POLICY_TYPES.length;
+    
+    private static final int PERSIST_BATCH_SIZE = 1000;
+    // Row holding the time of the last persist on any node; no user has id 0
+    private static final long SNAPSHOT_USER_ID = 0L;
+    private static final String PERSISTED_AT_KEY = "SNAPSHOT:PERSISTED_AT";
+    // Slack for a persist that runs late or takes a while
+    private static final long PERSIST_GRACE_MILLIS = 60_000L;
+    private static final String ADD_SQL =
+            "INSERT INTO status_counters (user_id, counter_key, counter_value) VALUES (?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE counter_value = counter_value + VALUES(counter_value)";
+    private static final String UPSERT_SQL =
+            "INSERT INTO status_counters (user_id, counter_key, counter_value) VALUES (?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE counter_value = VALUES(counter_value)";
+    
+    private final ClaimRepository claimRepository;
+    private final UserPolicyRepository userPolicyRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final long persistIntervalMillis;
+    
+    // Transitions apply under the read lock; swapping the counter set or the unpersisted changes takes the write lock
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private volatile CounterSet counters = new CounterSet();
+    // Per-user changes not yet added to status_counters
+    private volatile Map<Long, AtomicLongArray> unpersisted = new ConcurrentHashMap<>();
+    // Transitions applied while a reconcile counts; null when none is running
+    private volatile Queue<Change> duringReconcile;
+    
+    public StatusCounterService(ClaimRepository claimRepository,
+                                UserPolicyRepository userPolicyRepository,
+                                JdbcTemplate jdbcTemplate,
+                                @Value("${stats.counters.persist-interval-ms:300000}") long persistIntervalMillis) {
+        this.claimRepository = claimRepository;
+        this.userPolicyRepository = userPolicyRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.persistIntervalMillis = persistIntervalMillis;
+    }
+    
+    private record Change(long userId, int slot, long delta) {
+    }
+    
+    // Load the shared snapshot if some node persisted it within the last interval; recount otherwise
+    @PostConstruct
+    public void load() {
+        try {
+            List<Long> persistedAt = jdbcTemplate.queryForList(
+                    "SELECT counter_value FROM status_counters WHERE user_id = ? AND counter_key = ?",
+                    Long.class, SNAPSHOT_USER_ID, PERSISTED_AT_KEY);
+            if (!persistedAt.isEmpty()
+                    && System.currentTimeMillis() - persistedAt.get(0) <= persistIntervalMillis + PERSIST_GRACE_MILLIS) {
+                CounterSet loaded = new CounterSet();
+                jdbcTemplate.query("SELECT user_id, counter_key, counter_value FROM status_counters WHERE user_id <> ?",
+                        rs -> {
+                            int slot = slotForKey(rs.getString("counter_key"));
+                            if (slot >= 0) {
+                                loaded.add(rs.getLong("user_id"), slot, rs.getLong("counter_value"));
+                            }
+                        }, SNAPSHOT_USER_ID);
+                counters = loaded;
+                log.info("Loaded status counters for {} users from snapshot", loaded.perUser.size());
+                return;
+            }
+            log.info("Status counter snapshot is missing or stale, recounting");
+        } catch (DataAccessException e) {
+            log.warn("Status counter snapshot unavailable, recounting: {}", e.getMessage());
+        }
+        reconcile();
+    }
+    
+    @TransactionalEventListener
+    public void onClaimStatusChanged(ClaimStatusChangedEvent event) {
+        if (event.previousStatus() == event.newStatus()) {
+            return;
+        }
+        swapLock.readLock().lock();
+        try {
+            if (event.previousStatus() != null) {
+                apply(event.userId(), claimSlot(event.previousStatus()), -1);
+            }
+            apply(event.userId(), claimSlot(event.newStatus()), 1);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+    
+    @TransactionalEventListener
+    public void onUserPolicyStatusChanged(UserPolicyStatusChangedEvent event) {
+        if (event.previousStatus() == event.newStatus()) {
+            return;
+        }
+        swapLock.readLock().lock();
+        try {
+            if (event.previousStatus() != null) {
+                apply(event.userId(), userPolicySlot(event.previousStatus(), event.policyType()), -1);
+            }
+            apply(event.userId(), userPolicySlot(event.newStatus(), event.policyType()), 1);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+    
+    // Caller holds the read lock
+    private void apply(long userId, int slot, long delta) {
+        counters.add(userId, slot, delta);
+        unpersisted.computeIfAbsent(userId, id -> new AtomicLongArray(SLOTS)).addAndGet(slot, delta);
+        Queue<Change> recording = duringReconcile;
+        if (recording != null) {
+            recording.add(new Change(userId, slot, delta));
+        }
+    }
+    
+    // System-wide counts
+    public StatusCountsDto getGlobalCounts() {
+        CounterSet current = counters;
+        return toDto(null, slot -> current.global[slot].sum());
+    }
+    
+    // Counts for one user
+    public StatusCountsDto getUserCounts(Long userId) {
+        AtomicLongArray userCounters = counters.perUser.get(userId);
+        return toDto(userId, slot -> userCounters != null ? userCounters.get(slot) : 0L);
+    }
+    
+    // Add every user's changes since the last persist to status_counters and stamp the snapshot time
+    @Scheduled(fixedDelayString = "${stats.counters.persist-interval-ms:300000}",
+               initialDelayString = "${stats.counters.persist-interval-ms:300000}")
+    @PreDestroy
+    public synchronized void persist() {
+        Map<Long, AtomicLongArray> changes;
+        swapLock.writeLock().lock();
+        try {
+            changes = unpersisted;
+            unpersisted = new ConcurrentHashMap<>();
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        
+        List<Object[]> rows = new ArrayList<>();
+        changes.forEach((userId, deltas) -> {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                if (deltas.get(slot) != 0) {
+                    rows.add(new Object[]{userId, keyForSlot(slot), deltas.get(slot)});
+                }
+            }
+        });
+        try {
+            for (int from = 0; from < rows.size(); from += PERSIST_BATCH_SIZE) {
+                jdbcTemplate.batchUpdate(ADD_SQL, rows.subList(from, Math.min(from + PERSIST_BATCH_SIZE, rows.size())));
+            }
+            stampPersistedAt();
+            log.debug("Persisted status counter changes for {} users", changes.size());
+        } catch (DataAccessException e) {
+            restoreUnpersisted(changes);
+            log.error("Failed to persist status counters: {}", e.getMessage(), e);
+        }
+    }
+    
+    // Rebuild all counters from the database, correcting any drift, and write them as the new snapshot
+    @Scheduled(cron = "${stats.counters.reconcile-cron:0 30 3 * * ?}")
+    public synchronized void reconcile() {
+        Queue<Change> recording = new ConcurrentLinkedQueue<>();
+        Map<Long, AtomicLongArray> counted;
+        swapLock.writeLock().lock();
+        try {
+            duringReconcile = recording;
+            // Already committed, so the counts below include them
+            counted = unpersisted;
+            unpersisted = new ConcurrentHashMap<>();
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        
+        CounterSet rebuilt = new CounterSet();
+        try {
+            for (Object[] row : claimRepository.countByUserIdAndStatus()) {
+                rebuilt.add((Long) row[0], claimSlot((Claim.ClaimStatus) row[1]), (Long) row[2]);
+            }
+            for (Object[] row : userPolicyRepository.countByUserIdStatusAndPolicyType()) {
+                rebuilt.add((Long) row[0], userPolicySlot((UserPolicy.Status) row[1], (Policy.PolicyType) row[2]), (Long) row[3]);
+            }
+        } catch (RuntimeException e) {
+            swapLock.writeLock().lock();
+            try {
+                duringReconcile = null;
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+            restoreUnpersisted(counted);
+            throw e;
+        }
+        
+        // The snapshot gets the counts alone; the recorded transitions are still unpersisted and follow as changes
+        List<Object[]> rows = new ArrayList<>();
+        swapLock.writeLock().lock();
+        try {
+            CounterSet previous = counters;
+            Set<Long> users = new HashSet<>(previous.perUser.keySet());
+            users.addAll(rebuilt.perUser.keySet());
+            // Users that dropped to zero are written too, so the snapshot does not resurrect them
+            for (Long userId : users) {
+                AtomicLongArray userCounters = rebuilt.perUser.get(userId);
+                for (int slot = 0; slot < SLOTS; slot++) {
+                    rows.add(new Object[]{userId, keyForSlot(slot), userCounters != null ? userCounters.get(slot) : 0L});
+                }
+            }
+            for (Change change : recording) {
+                rebuilt.add(change.userId(), change.slot(), change.delta());
+            }
+            counters = rebuilt;
+            duringReconcile = null;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        
+        try {
+            for (int from = 0; from < rows.size(); from += PERSIST_BATCH_SIZE) {
+                jdbcTemplate.batchUpdate(UPSERT_SQL, rows.subList(from, Math.min(from + PERSIST_BATCH_SIZE, rows.size())));
+            }
+            stampPersistedAt();
+        } catch (DataAccessException e) {
+            // The snapshot keeps its drift until the next reconcile, but gains no gap
+            restoreUnpersisted(counted);
+            log.error("Failed to write reconciled status counters: {}", e.getMessage(), e);
+        }
+        log.info("Reconciled status counters for {} users, replayed {} transitions made while counting",
+                rebuilt.perUser.size(), recording.size());
+    }
+    
+    private void stampPersistedAt() {
+        jdbcTemplate.update(UPSERT_SQL, SNAPSHOT_USER_ID, PERSISTED_AT_KEY, System.currentTimeMillis());
+    }
+    
+    // Put changes that failed to persist back in front of any made since
+    private void restoreUnpersisted(Map<Long, AtomicLongArray> changes) {
+        swapLock.readLock().lock();
+        try {
+            changes.forEach((userId, deltas) -> {
+                AtomicLongArray target = unpersisted.computeIfAbsent(userId, id -> new AtomicLongArray(SLOTS));
+                for (int slot = 0; slot < SLOTS; slot++) {
+                    target.addAndGet(slot, deltas.get(slot));
+                }
+            });
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+    
+    private StatusCountsDto toDto(Long userId, IntToLongFunction valueForSlot) {
+        Map<Claim.ClaimStatus, Long> claims = new EnumMap<>(Claim.ClaimStatus.class);
+        for (Claim.ClaimStatus status : CLAIM_STATUSES) {
+            claims.put(status, valueForSlot.applyAsLong(claimSlot(status)));
+        }
+        Map<UserPolicy.Status, Map<Policy.PolicyType, Long>> userPolicies = new EnumMap<>(UserPolicy.Status.class);
+        for (UserPolicy.Status status : POLICY_STATUSES) {
+            Map<Policy.PolicyType, Long> byType = new EnumMap<>(Policy.PolicyType.class);
+            for (Policy.PolicyType type : POLICY_TYPES) {
+                byType.put(type, valueForSlot.applyAsLong(userPolicySlot(status, type)));
+            }
+            userPolicies.put(status, byType);
+        }
+        return new StatusCountsDto(userId, claims, userPolicies);
+    }
+    
+    private static int claimSlot(Claim.ClaimStatus status) {
+        return status.ordinal();
+    }
+    
+    private static int userPolicySlot(UserPolicy.Status status, Policy.PolicyType type) {
+        return USER_POLICY_OFFSET + status.ordinal() * POLICY_TYPES.length + type.ordinal();
+    }
+    
+    private static String keyForSlot(int slot) {
+        if (slot < USER_POLICY_OFFSET) {
+            return "CLAIM:" + CLAIM_STATUSES[slot].name();
+        }
+        int index = slot - USER_POLICY_OFFSET;
+        return "USER_POLICY:" + POLICY_STATUSES[index / POLICY_TYPES.length].name()
+                + ":" + POLICY_TYPES[index % POLICY_TYPES.length].name();
+    }
+    
+    // Returns -1 for keys of enum constants that no longer exist
+    private static int slotForKey(String key) {
+        try {
+            String[] parts = key.split(":");
+            if (parts[0].equals("CLAIM")) {
+                return claimSlot(Claim.ClaimStatus.valueOf(parts[1]));
+            }
+            return userPolicySlot(UserPolicy.Status.valueOf(parts[1]), Policy.PolicyType.valueOf(parts[2]));
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            return -1;
+        }
+    }
+    
+    // Global totals use striped LongAdders (every write hits them); per-user rows see little contention
+    private static final class CounterSet {
+        
+        private final LongAdder[] global = new LongAdder[SLOTS];
+        private final Map<Long, AtomicLongArray> perUser = new ConcurrentHashMap<>();
+        
+        private CounterSet() {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                global[slot] = new LongAdder();
+            }
+        }
+        
+        private void add(long userId, int slot, long delta) {
+            global[slot].add(delta);
+            perUser.computeIfAbsent(userId, id -> new AtomicLongArray(SLOTS)).addAndGet(slot, delta);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.insurance_app.stats;
+
+import com.example.insurance_app.claims.Claim;
+import com.example.insurance_app.policies.Policy;
+import com.example.insurance_app.user_policies.UserPolicy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatusCountsDto {
+    
+    // Null for system-wide counts
+    private Long userId;
+    private Map<Claim.ClaimStatus, Long> claimsByStatus;
+    private Map<UserPolicy.Status, Map<Policy.PolicyType, Long>> userPoliciesByStatusAndType;
+}
@@ -0,0 +1,25 @@
+package com.example.insurance_app.user_policies;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AutoRenewalRunResultDto {
+    
+    private LocalDateTime startedAt;
+    
+    private int windowDays;
+    
+    private int renewed;
+    
+    private int chunks;
+    
+    private long elapsedMillis;
+    
+    private double policiesPerSecond;
+}
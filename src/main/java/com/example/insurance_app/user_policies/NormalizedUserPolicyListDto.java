@@ -0,0 +1,23 @@
+package com.example.insurance_app.user_policies;
+
+import com.example.insurance_app.policies.PolicyDto;
+import com.example.insurance_app.users.UserDto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+// Normalized listing: each user and policy appears once in its dictionary, keyed by id
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NormalizedUserPolicyListDto {
+    
+    private List<UserPolicyRowDto> rows;
+    
+    private Map<Long, UserDto> users;
+    
+    private Map<Long, PolicyDto> policies;
+}
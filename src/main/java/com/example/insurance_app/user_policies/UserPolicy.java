@@ -8,6 +8,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -33,6 +34,10 @@ public class UserPolicy {
     @NotNull(message = "Policy is required")
     private Policy policy;
     
+    // Policy version this holding was bought or last renewed at; its terms drive premiums
+    @Column(name = "policy_version_id")
+    private Long policyVersionId;
+    
     @NotNull(message = "Start date is required")
     @Column(name = "start_date", nullable = false)
     private LocalDate startDate;
@@ -49,15 +54,23 @@ public class UserPolicy {
     @Column(name = "next_premium_due")
     private LocalDate nextPremiumDue;
     
+    @Column(name = "auto_renew", nullable = false)
+    private boolean autoRenew = false;
+    
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
     
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
     public enum Status {
         PENDING("Pending"),
         ACTIVE("Active"),
         LAPSED("Lapsed"),
-        CANCELLED("Cancelled");
+        CANCELLED("Cancelled"),
+        EXPIRED("Expired");
         
         private final String displayName;
         
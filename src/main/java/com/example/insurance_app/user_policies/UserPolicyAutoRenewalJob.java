@@ -0,0 +1,217 @@
+package com.example.insurance_app.user_policies;
+
+import com.example.insurance_app.common.JobLockService;
+import com.example.insurance_app.exceptions.PolicyOperationException;
+import com.example.insurance_app.payments.Payment;
+import com.example.insurance_app.payments.PaymentStatusChangedEvent;
+import com.example.insurance_app.policies.Policy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Nightly auto-renewal of opted-in ACTIVE user policies expiring within the renewal window.
+ * Candidates are walked in (end_date, id) keyset order; each chunk extends the end date,
+ * re-pins the policy's current version and inserts the first installment of the new term,
+ * due on the old end date, as a PENDING payment, all with JDBC batches in one transaction.
+ * The window stays shorter than the shortest term (one year), so a renewed end date always
+ * lands past the window and the keyset never reaches the same holding twice in one run.
+ */
+@Component
+@Slf4j
+public class UserPolicyAutoRenewalJob {
+    
+    private static final String JOB_NAME = "user-policy-auto-renewal";
+    // A one-year renewal moves the end date by at least 365 days, even from February 29
+    private static final int MAX_WINDOW_DAYS = 364;
+    
+    private static final String SELECT_CANDIDATES_SQL =
+            "SELECT up.id, up.user_id, up.end_date, up.next_premium_due, p.current_version_id, " +
+            "COALESCE(pv.term_years, p.term_years), COALESCE(pv.premium_amount, p.premium_amount), " +
+            "COALESCE(pv.premium_frequency, p.premium_frequency) " +
+            "FROM user_policies up " +
+            "JOIN policies p ON p.id = up.policy_id " +
+            "LEFT JOIN policy_versions pv ON pv.id = p.current_version_id " +
+            "WHERE up.status = 'ACTIVE' AND up.auto_renew = TRUE AND up.end_date <= ? AND p.retired_at IS NULL " +
+            "AND (up.end_date > ? OR (up.end_date = ? AND up.id > ?)) " +
+            "ORDER BY up.end_date, up.id LIMIT ? FOR UPDATE OF up SKIP LOCKED";
+    private static final String RENEW_SQL =
+            "UPDATE user_policies SET end_date = ?, next_premium_due = ?, policy_version_id = ? WHERE id = ?";
+    private static final String INSERT_PREMIUM_SQL =
+            "INSERT INTO payments (user_policy_id, amount, status, payment_type, due_date, notes) " +
+            "VALUES (?, ?, 'PENDING', 'PREMIUM', ?, 'Auto-renewal premium')";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JobLockService jobLockService;
+    
+    private final int chunkSize;
+    private final int windowDays;
+    private final Duration lockLease;
+    
+    private final AtomicReference<AutoRenewalRunResultDto> lastRun = new AtomicReference<>();
+    
+    public UserPolicyAutoRenewalJob(JdbcTemplate jdbcTemplate,
+                                    TransactionTemplate transactionTemplate,
+                                    ApplicationEventPublisher eventPublisher,
+                                    JobLockService jobLockService,
+                                    @Value("${user-policies.auto-renewal.chunk-size:1000}") int chunkSize,
+                                    @Value("${user-policies.auto-renewal.window-days:7}") int windowDays,
+                                    @Value("${user-policies.auto-renewal.lock-lease-minutes:30}") long lockLeaseMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.jobLockService = jobLockService;
+        this.chunkSize = chunkSize;
+        this.windowDays = windowDays;
+        this.lockLease = Duration.ofMinutes(lockLeaseMinutes);
+    }
+    
+    @Scheduled(cron = "${user-policies.auto-renewal.cron:0 0 1 * * ?}")
+    public void scheduledRun() {
+        try {
+            run(windowDays);
+        } catch (Exception e) {
+            log.error("Error during user policy auto-renewal run: {}", e.getMessage(), e);
+        }
+    }
+    
+    // Renew every opted-in policy expiring within the given number of days; empty if another node holds the lock
+    public Optional<AutoRenewalRunResultDto> run(int days) {
+        if (days < 1 || days > MAX_WINDOW_DAYS) {
+            throw PolicyOperationException.cannotRenew("the renewal window must be between 1 and " + MAX_WINDOW_DAYS + " days");
+        }
+        if (!jobLockService.tryAcquire(JOB_NAME, lockLease)) {
+            log.info("Skipping user policy auto-renewal run, another node holds the lock");
+            return Optional.empty();
+        }
+        try {
+            LocalDateTime startedAt = LocalDateTime.now();
+            long startNanos = System.nanoTime();
+            LocalDate today = LocalDate.now();
+            LocalDate windowEnd = today.plusDays(days);
+            
+            Cursor cursor = new Cursor(today, 0L);
+            int renewed = 0;
+            int chunks = 0;
+            while (cursor != null) {
+                Cursor from = cursor;
+                ChunkResult chunk = transactionTemplate.execute(tx -> renewChunk(windowEnd, from));
+                renewed += chunk.renewed();
+                chunks++;
+                cursor = chunk.next();
+                jobLockService.tryAcquire(JOB_NAME, lockLease);
+            }
+            
+            long elapsedMillis = Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
+            double perSecond = elapsedMillis > 0 ? renewed * 1000.0 / elapsedMillis : renewed;
+            AutoRenewalRunResultDto result = new AutoRenewalRunResultDto(startedAt, days, renewed, chunks,
+                    elapsedMillis, perSecond);
+            lastRun.set(result);
+            log.info("Auto-renewed {} user policies in {} chunks over {} ms ({} policies/s)",
+                    renewed, chunks, elapsedMillis, String.format("%.1f", perSecond));
+            return Optional.of(result);
+        } finally {
+            jobLockService.release(JOB_NAME);
+        }
+    }
+    
+    public Optional<AutoRenewalRunResultDto> getLastRun() {
+        return Optional.ofNullable(lastRun.get());
+    }
+    
+    private ChunkResult renewChunk(LocalDate windowEnd, Cursor cursor) {
+        Date cursorDate = Date.valueOf(cursor.endDate());
+        List<Candidate> candidates = jdbcTemplate.query(SELECT_CANDIDATES_SQL, (rs, rowNum) -> {
+                    Date nextPremiumDue = rs.getDate(4);
+                    return new Candidate(rs.getLong(1), rs.getLong(2), rs.getDate(3).toLocalDate(),
+                            nextPremiumDue != null ? nextPremiumDue.toLocalDate() : null, rs.getObject(5, Long.class),
+                            rs.getInt(6), installment(rs.getBigDecimal(7), Policy.PremiumFrequency.valueOf(rs.getString(8))));
+                },
+                Date.valueOf(windowEnd), cursorDate, cursorDate, cursor.id(), chunkSize);
+        if (candidates.isEmpty()) {
+            return new ChunkResult(0, null);
+        }
+        
+        jdbcTemplate.batchUpdate(RENEW_SQL, candidates, candidates.size(), (ps, candidate) -> {
+            ps.setDate(1, Date.valueOf(candidate.endDate().plusYears(candidate.termYears())));
+            // Installments still owed in the current term keep their due date
+            LocalDate nextPremiumDue = candidate.nextPremiumDue();
+            if (nextPremiumDue == null || !nextPremiumDue.isBefore(candidate.endDate())) {
+                nextPremiumDue = candidate.endDate();
+            }
+            ps.setDate(2, Date.valueOf(nextPremiumDue));
+            // The renewed term is bought at the policy's current version
+            ps.setObject(3, candidate.versionId(), Types.BIGINT);
+            ps.setLong(4, candidate.id());
+        });
+        
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_PREMIUM_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Candidate candidate = candidates.get(i);
+                        ps.setLong(1, candidate.id());
+                        ps.setBigDecimal(2, candidate.premium());
+                        ps.setDate(3, Date.valueOf(candidate.endDate()));
+                    }
+                    
+                    @Override
+                    public int getBatchSize() {
+                        return candidates.size();
+                    }
+                },
+                keyHolder);
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < candidates.size(); i++) {
+            Candidate candidate = candidates.get(i);
+            long paymentId = ((Number) keys.get(i).values().iterator().next()).longValue();
+            eventPublisher.publishEvent(new PaymentStatusChangedEvent(paymentId, candidate.userId(), candidate.id(),
+                    null, Payment.PaymentStatus.PENDING, candidate.premium(), candidate.endDate()));
+        }
+        
+        Candidate last = candidates.get(candidates.size() - 1);
+        Cursor next = candidates.size() == chunkSize ? new Cursor(last.endDate(), last.id()) : null;
+        return new ChunkResult(candidates.size(), next);
+    }
+    
+    // Same split as PaymentService: annual premium over payments per year, to the cent
+    private static BigDecimal installment(BigDecimal annualPremium, Policy.PremiumFrequency frequency) {
+        return annualPremium.divide(BigDecimal.valueOf(frequency.getPaymentsPerYear()), 2, RoundingMode.HALF_UP);
+    }
+    
+    private record Candidate(long id, long userId, LocalDate endDate, LocalDate nextPremiumDue, Long versionId,
+                             int termYears, BigDecimal premium) {
+    }
+    
+    private record Cursor(LocalDate endDate, long id) {
+    }
+    
+    private record ChunkResult(int renewed, Cursor next) {
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.insurance_app.user_policies;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserPolicyBatchPurchaseRequest {
+    
+    @NotNull(message = "Policy ID is required")
+    private Long policyId;
+    
+    @NotNull(message = "Start date is required")
+    private LocalDate startDate;
+    
+    @NotEmpty(message = "At least one user ID is required")
+    @Size(max = 10000, message = "A batch cannot exceed 10000 users")
+    private List<@NotNull(message = "User ID is required") Long> userIds;
+}
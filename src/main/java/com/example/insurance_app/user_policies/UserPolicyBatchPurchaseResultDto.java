@@ -0,0 +1,45 @@
+package com.example.insurance_app.user_policies;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserPolicyBatchPurchaseResultDto {
+    
+    private Long policyId;
+    private int requested;
+    private int created;
+    private int skipped;
+    private List<RowResult> results;
+    
+    public enum Outcome {
+        CREATED("Created"),
+        USER_NOT_FOUND("User not found"),
+        ALREADY_HOLDS_POLICY("User already holds this policy"),
+        DUPLICATE_IN_REQUEST("Duplicate user in request");
+        
+        private final String displayName;
+        
+        Outcome(String displayName) {
+            this.displayName = displayName;
+        }
+        
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowResult {
+        private Long userId;
+        private Long userPolicyId;
+        private Outcome outcome;
+    }
+}
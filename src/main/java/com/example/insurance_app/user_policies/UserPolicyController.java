@@ -1,11 +1,13 @@
 package com.example.insurance_app.user_policies;
 
+import com.example.insurance_app.common.DeltaSyncResponse;
 import com.example.insurance_app.policies.Policy;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -20,6 +22,7 @@ import java.util.List;
 public class UserPolicyController {
     
     private final UserPolicyService userPolicyService;
+    private final UserPolicyAutoRenewalJob autoRenewalJob;
     
     @PostMapping("/purchase")
     @PreAuthorize("hasRole('CUSTOMER') or hasRole('ADMIN')")
@@ -30,6 +33,15 @@ public class UserPolicyController {
         return ResponseEntity.status(HttpStatus.CREATED).body(userPolicy);
     }
     
+    @PostMapping("/purchase/batch")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Purchase a policy for many users", description = "Group/employer enrolment: enrols every listed user onto one policy and reports a result per user")
+    public ResponseEntity<UserPolicyBatchPurchaseResultDto> purchasePolicyBatch(
+            @Valid @RequestBody UserPolicyBatchPurchaseRequest request) {
+        UserPolicyBatchPurchaseResultDto result = userPolicyService.purchasePolicyBatch(request);
+        return ResponseEntity.ok(result);
+    }
+    
     @GetMapping("/user/{userId}")
     @PreAuthorize("hasRole('ADMIN') or (hasRole('CUSTOMER') and #userId == authentication.principal.id)")
     @Operation(summary = "Get all policies for a user", description = "Retrieve all policies associated with a specific user")
@@ -39,6 +51,15 @@ public class UserPolicyController {
         return ResponseEntity.ok(userPolicies);
     }
     
+    @GetMapping(value = "/user/{userId}", params = "since")
+    @PreAuthorize("hasRole('ADMIN') or (hasRole('CUSTOMER') and #userId == authentication.principal.id)")
+    @Operation(summary = "Sync policies for a user", description = "Delta sync: an empty since returns the full list and a token; passing that token returns only policies changed or removed since")
+    public ResponseEntity<DeltaSyncResponse<UserPolicyDto>> syncUserPolicies(
+            @Parameter(description = "User ID") @PathVariable Long userId,
+            @Parameter(description = "Token from the previous sync, empty for the first") @RequestParam String since) {
+        return ResponseEntity.ok(userPolicyService.getUserPolicyChanges(userId, since));
+    }
+    
     @GetMapping("/user/{userId}/active")
     @PreAuthorize("hasRole('ADMIN') or (hasRole('CUSTOMER') and #userId == authentication.principal.id)")
     @Operation(summary = "Get active policies for a user", description = "Retrieve only active policies for a specific user")
@@ -85,6 +106,16 @@ public class UserPolicyController {
         return ResponseEntity.ok(renewedPolicy);
     }
     
+    @PutMapping("/{id}/auto-renew")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('CUSTOMER')")
+    @Operation(summary = "Set auto-renewal", description = "Opt a user policy in or out of automatic renewal")
+    public ResponseEntity<UserPolicyDto> setAutoRenew(
+            @Parameter(description = "User Policy ID") @PathVariable Long id,
+            @Parameter(description = "Enable auto-renewal") @RequestParam boolean enabled) {
+        UserPolicyDto userPolicy = userPolicyService.setAutoRenew(id, enabled);
+        return ResponseEntity.ok(userPolicy);
+    }
+    
     @GetMapping("/user/{userId}/type/{policyType}")
     @PreAuthorize("hasRole('ADMIN') or (hasRole('CUSTOMER') and #userId == authentication.principal.id)")
     @Operation(summary = "Get user policies by type", description = "Retrieve user policies of a specific type")
@@ -123,6 +154,25 @@ public class UserPolicyController {
         return ResponseEntity.ok(policiesDueForRenewal);
     }
     
+    @PostMapping("/auto-renewal/run")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Run auto-renewal", description = "Admin endpoint to renew opted-in policies expiring within the given days now")
+    public ResponseEntity<AutoRenewalRunResultDto> runAutoRenewal(
+            @Parameter(description = "Number of days ahead, 1 to 364") @RequestParam(defaultValue = "7") int days) {
+        return autoRenewalJob.run(days)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT).build());
+    }
+    
+    @GetMapping("/auto-renewal/last-run")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Last auto-renewal run", description = "Admin endpoint reporting the throughput of the last auto-renewal run on this node")
+    public ResponseEntity<AutoRenewalRunResultDto> getLastAutoRenewalRun() {
+        return autoRenewalJob.getLastRun()
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
+    
     // Bulk operations for admin
     @GetMapping("/all")
     @PreAuthorize("hasRole('ADMIN')")
@@ -132,4 +182,38 @@ public class UserPolicyController {
         return ResponseEntity.ok(allUserPolicies);
     }
     
+    @GetMapping(value = "/all", params = "view=normalized")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get all user policies (normalized)", description = "Admin endpoint returning all user policies as flat rows with userId/policyId plus deduplicated users and policies dictionaries")
+    public ResponseEntity<NormalizedUserPolicyListDto> getAllUserPoliciesNormalized() {
+        return ResponseEntity.ok(userPolicyService.getAllUserPoliciesNormalized());
+    }
+    
+    @GetMapping(value = "/search", params = "view=normalized")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Search user policies (normalized)", description = "Same filters and paging as the search endpoint, returned as flat rows plus deduplicated users and policies dictionaries")
+    public ResponseEntity<NormalizedUserPolicyListDto> searchUserPoliciesNormalized(@ParameterObject UserPolicySearchCriteria criteria) {
+        return ResponseEntity.ok(userPolicyService.searchUserPoliciesNormalized(criteria));
+    }
+    
+    @GetMapping("/search")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Search user policies", description = "Admin search by any combination of status, policy type, user, policy and start/end/next-due date ranges. Ordered by id; pass the id of the last row as afterId to fetch the next page")
+    public ResponseEntity<List<UserPolicyDto>> searchUserPolicies(@ParameterObject UserPolicySearchCriteria criteria) {
+        List<UserPolicyDto> page = userPolicyService.searchUserPolicies(criteria);
+        return ResponseEntity.ok(page);
+    }
+    
+    @GetMapping("/page")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get a page of user policies", description = "Admin endpoint returning user policies after the given id, optionally filtered by status and policy type")
+    public ResponseEntity<List<UserPolicyDto>> getUserPoliciesPage(
+            @Parameter(description = "Status filter") @RequestParam(required = false) UserPolicy.Status status,
+            @Parameter(description = "Policy type filter") @RequestParam(required = false) Policy.PolicyType policyType,
+            @Parameter(description = "Return user policies with an id greater than this") @RequestParam(defaultValue = "0") long afterId,
+            @Parameter(description = "Page size (max 500)") @RequestParam(defaultValue = "100") int limit) {
+        List<UserPolicyDto> page = userPolicyService.getUserPoliciesPage(status, policyType, afterId, limit);
+        return ResponseEntity.ok(page);
+    }
+    
 }
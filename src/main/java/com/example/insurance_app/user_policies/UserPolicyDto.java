@@ -1,6 +1,7 @@
 package com.example.insurance_app.user_policies;
 
 import com.example.insurance_app.policies.PolicyDto;
+import com.example.insurance_app.policies.PolicyVersionDto;
 import com.example.insurance_app.users.UserDto;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -20,6 +21,8 @@ public class UserPolicyDto {
     
     private PolicyDto policy;
     
+    private PolicyVersionDto policyVersion;
+    
     private LocalDate startDate;
     
     private LocalDate endDate;
@@ -30,6 +33,8 @@ public class UserPolicyDto {
     
     private LocalDateTime createdAt;
     
+    private boolean autoRenew;
+    
     // Additional computed fields for convenience
     private boolean isActive;
     
@@ -66,7 +71,7 @@ public class UserPolicyDto {
         this.isActive = status == UserPolicy.Status.ACTIVE;
         this.isExpired = endDate.isBefore(LocalDate.now());
         this.isPremiumDue = nextPremiumDue != null && nextPremiumDue.isBefore(LocalDate.now().plusDays(1));
-        this.daysUntilExpiry = LocalDate.now().until(endDate).getDays();
+        this.daysUntilExpiry = java.time.temporal.ChronoUnit.DAYS.between(LocalDate.now(), endDate);
         this.daysUntilPremiumDue = nextPremiumDue != null ? 
             java.time.temporal.ChronoUnit.DAYS.between(LocalDate.now(), nextPremiumDue) : -1;
     }
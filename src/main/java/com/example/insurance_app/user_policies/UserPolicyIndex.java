@@ -0,0 +1,420 @@
+package com.example.insurance_app.user_policies;
+
+import com.example.insurance_app.payments.PaymentStatusChangedEvent;
+import com.example.insurance_app.policies.Policy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Optional in-memory index of every user policy as parallel primitive arrays kept in id
+ * order, so admin filters run as array scans and only the matching page is loaded through
+ * JPA. Built on startup and periodically; rows touched by committed policy or payment events
+ * are re-read in batches shortly after the commit. Rows that commit out of id order are
+ * appended to an unsorted overflow tail and merged into the sorted slots on the next rebuild
+ * (or once the tail grows past a bound). Enable with user-policies.index.enabled.
+ */
+@Component
+@ConditionalOnProperty(name = "user-policies.index.enabled", havingValue = "true")
+@Slf4j
+public class UserPolicyIndex {
+    
+    private static final String SELECT_ROWS =
+            "SELECT up.id, up.user_id, up.policy_id, up.status, p.type, up.start_date, up.end_date, up.next_premium_due " +
+            "FROM user_policies up JOIN policies p ON p.id = up.policy_id ";
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    private static final byte REMOVED = -1;
+    private static final int NO_SLOT = -1;
+    private static final int MAX_OVERFLOW = 4096;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final int loadChunkSize;
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Set<Long> dirtyIds = ConcurrentHashMap.newKeySet();
+    private volatile boolean ready;
+    
+    // Guarded by lock; slots below sortedSize are sorted by id, later slots are the overflow tail
+    private int size;
+    private int sortedSize;
+    private Map<Long, Integer> overflowSlots = new HashMap<>();
+    private long[] ids = new long[0];
+    private long[] userIds = new long[0];
+    private long[] policyIds = new long[0];
+    private byte[] statuses = new byte[0];
+    private byte[] types = new byte[0];
+    private int[] startDays = new int[0];
+    private int[] endDays = new int[0];
+    private int[] dueDays = new int[0];
+    // Per-user slot chains: head slot per user, then the next slot of the same user
+    private Map<Long, Integer> userHeads = new HashMap<>();
+    private int[] nextForUser = new int[0];
+    
+    public UserPolicyIndex(JdbcTemplate jdbcTemplate,
+                           @Value("${user-policies.index.load-chunk-size:50000}") int loadChunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.loadChunkSize = loadChunkSize;
+    }
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    // Ids of matching user policies greater than afterId, ascending, at most limit of them
+    public List<Long> findIds(Filter filter, long afterId, int limit) {
+        int startDay = filter.endFrom() != null ? (int) filter.endFrom().toEpochDay() : Integer.MIN_VALUE;
+        int endDay = filter.endTo() != null ? (int) filter.endTo().toEpochDay() : Integer.MAX_VALUE;
+        int dueFrom = filter.dueFrom() != null ? (int) filter.dueFrom().toEpochDay() : Integer.MIN_VALUE;
+        int dueTo = filter.dueTo() != null ? (int) filter.dueTo().toEpochDay() : Integer.MAX_VALUE;
+        byte status = filter.status() != null ? (byte) filter.status().ordinal() : REMOVED;
+        byte type = filter.type() != null ? (byte) filter.type().ordinal() : REMOVED;
+        long policyId = filter.policyId() != null ? filter.policyId() : 0L;
+        boolean dueFiltered = filter.dueFrom() != null || filter.dueTo() != null;
+    
+        lock.readLock().lock();
+        try {
+            List<Long> result = new ArrayList<>();
+            if (filter.userId() != null) {
+                Integer head = userHeads.get(filter.userId());
+                for (int slot = head != null ? head : NO_SLOT; slot != NO_SLOT; slot = nextForUser[slot]) {
+                    if (ids[slot] > afterId && matches(slot, status, type, policyId, startDay, endDay, dueFiltered, dueFrom, dueTo)) {
+                        result.add(ids[slot]);
+                    }
+                }
+                Collections.sort(result);
+                return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+            }
+            int from = Arrays.binarySearch(ids, 0, sortedSize, afterId);
+            from = from >= 0 ? from + 1 : -from - 1;
+            for (int slot = from; slot < sortedSize && result.size() < limit; slot++) {
+                if (matches(slot, status, type, policyId, startDay, endDay, dueFiltered, dueFrom, dueTo)) {
+                    result.add(ids[slot]);
+                }
+            }
+            if (sortedSize == size) {
+                return result;
+            }
+            // The first limit sorted matches plus every overflow match contain the page
+            for (int slot = sortedSize; slot < size; slot++) {
+                if (ids[slot] > afterId && matches(slot, status, type, policyId, startDay, endDay, dueFiltered, dueFrom, dueTo)) {
+                    result.add(ids[slot]);
+                }
+            }
+            Collections.sort(result);
+            return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private boolean matches(int slot, byte status, byte type, long policyId, int endFrom, int endTo,
+                            boolean dueFiltered, int dueFrom, int dueTo) {
+        byte slotStatus = statuses[slot];
+        if (slotStatus == REMOVED || (status != REMOVED && slotStatus != status)) {
+            return false;
+        }
+        if (type != REMOVED && types[slot] != type) {
+            return false;
+        }
+        if (policyId != 0L && policyIds[slot] != policyId) {
+            return false;
+        }
+        int end = endDays[slot];
+        if (end < endFrom || end > endTo) {
+            return false;
+        }
+        if (dueFiltered) {
+            int due = dueDays[slot];
+            return due != NO_DATE && due >= dueFrom && due <= dueTo;
+        }
+        return true;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+    
+    // Full reload; also compacts slots of removed rows
+    @Scheduled(cron = "${user-policies.index.rebuild-cron:0 0 */6 * * ?}")
+    public synchronized void rebuild() {
+        try {
+            long started = System.nanoTime();
+            Rows rows = new Rows(Math.max(size, 1024));
+            long lastId = 0L;
+            int loaded;
+            do {
+                int before = rows.size;
+                jdbcTemplate.query(SELECT_ROWS + "WHERE up.id > ? ORDER BY up.id LIMIT ?",
+                        rs -> { rows.add(rs); }, lastId, loadChunkSize);
+                loaded = rows.size - before;
+                if (loaded > 0) {
+                    lastId = rows.ids[rows.size - 1];
+                }
+            } while (loaded == loadChunkSize);
+    
+            lock.writeLock().lock();
+            try {
+                install(rows);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            ready = true;
+            log.info("Built user policy index with {} rows in {} ms", rows.size, (System.nanoTime() - started) / 1_000_000);
+        } catch (Exception e) {
+            log.error("Failed to build user policy index: {}", e.getMessage(), e);
+        }
+    }
+    
+    @TransactionalEventListener
+    public void onUserPolicyStatusChanged(UserPolicyStatusChangedEvent event) {
+        dirtyIds.add(event.userPolicyId());
+    }
+    
+    // Payments move next_premium_due and auto-renewal moves end_date, so re-read the holding
+    @TransactionalEventListener
+    public void onPaymentStatusChanged(PaymentStatusChangedEvent event) {
+        dirtyIds.add(event.userPolicyId());
+    }
+    
+    // Re-read rows touched since the last flush and apply them in one write-locked pass
+    @Scheduled(fixedDelayString = "${user-policies.index.refresh-interval-ms:1000}")
+    public synchronized void refreshDirty() {
+        if (!ready || dirtyIds.isEmpty()) {
+            return;
+        }
+        List<Long> batch = new ArrayList<>(dirtyIds);
+        dirtyIds.removeAll(batch);
+        try {
+            Collections.sort(batch);
+            for (int from = 0; from < batch.size(); from += 1000) {
+                List<Long> chunk = batch.subList(from, Math.min(from + 1000, batch.size()));
+                Rows rows = new Rows(chunk.size());
+                String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+                jdbcTemplate.query(SELECT_ROWS + "WHERE up.id IN (" + placeholders + ") ORDER BY up.id",
+                        rs -> { rows.add(rs); }, chunk.toArray());
+                lock.writeLock().lock();
+                try {
+                    apply(chunk, rows);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        } catch (Exception e) {
+            dirtyIds.addAll(batch);
+            log.error("Failed to refresh user policy index: {}", e.getMessage(), e);
+        }
+    }
+    
+    private void install(Rows rows) {
+        size = rows.size;
+        ids = rows.ids;
+        userIds = rows.userIds;
+        policyIds = rows.policyIds;
+        statuses = rows.statuses;
+        types = rows.types;
+        startDays = rows.startDays;
+        endDays = rows.endDays;
+        dueDays = rows.dueDays;
+        sortedSize = size;
+        overflowSlots = new HashMap<>();
+        rebuildUserChains();
+    }
+    
+    private void apply(List<Long> requestedIds, Rows rows) {
+        int row = 0;
+        for (Long id : requestedIds) {
+            int slot = slotOf(id);
+            if (row < rows.size && rows.ids[row] == id) {
+                if (slot != NO_SLOT) {
+                    copyRow(rows, row, slot);
+                } else {
+                    append(rows, row);
+                }
+                row++;
+            } else if (slot != NO_SLOT) {
+                // Deleted in the database; the slot is compacted on the next rebuild
+                statuses[slot] = REMOVED;
+            }
+        }
+        if (overflowSlots.size() > MAX_OVERFLOW) {
+            mergeOverflow();
+        }
+    }
+    
+    private int slotOf(long id) {
+        int slot = Arrays.binarySearch(ids, 0, sortedSize, id);
+        if (slot >= 0) {
+            return slot;
+        }
+        Integer overflowSlot = overflowSlots.get(id);
+        return overflowSlot != null ? overflowSlot : NO_SLOT;
+    }
+    
+    // New rows go at the end: into the sorted slots when they extend the id order, otherwise into the overflow tail
+    private void append(Rows rows, int row) {
+        if (size == ids.length) {
+            grow(Math.max(16, size + (size >> 1)));
+        }
+        int slot = size++;
+        copyRow(rows, row, slot);
+        if (slot == sortedSize && (slot == 0 || ids[slot] > ids[slot - 1])) {
+            sortedSize++;
+        } else {
+            overflowSlots.put(ids[slot], slot);
+        }
+        Integer head = userHeads.put(userIds[slot], slot);
+        nextForUser[slot] = head != null ? head : NO_SLOT;
+    }
+    
+    // Merge the overflow tail into the sorted slots in one pass, then re-chain users
+    private void mergeOverflow() {
+        long[] overflow = new long[size - sortedSize];
+        for (int slot = sortedSize; slot < size; slot++) {
+            overflow[slot - sortedSize] = ids[slot];
+        }
+        Arrays.sort(overflow);
+        Rows merged = new Rows(ids.length);
+        int sorted = 0;
+        for (long id : overflow) {
+            while (sorted < sortedSize && ids[sorted] < id) {
+                merged.addSlot(this, sorted++);
+            }
+            merged.addSlot(this, overflowSlots.get(id));
+        }
+        while (sorted < sortedSize) {
+            merged.addSlot(this, sorted++);
+        }
+        install(merged);
+        log.debug("Merged {} out-of-order rows into the user policy index", overflow.length);
+    }
+    
+    private void copyRow(Rows rows, int row, int slot) {
+        ids[slot] = rows.ids[row];
+        userIds[slot] = rows.userIds[row];
+        policyIds[slot] = rows.policyIds[row];
+        statuses[slot] = rows.statuses[row];
+        types[slot] = rows.types[row];
+        startDays[slot] = rows.startDays[row];
+        endDays[slot] = rows.endDays[row];
+        dueDays[slot] = rows.dueDays[row];
+    }
+    
+    private void grow(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        userIds = Arrays.copyOf(userIds, capacity);
+        policyIds = Arrays.copyOf(policyIds, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        types = Arrays.copyOf(types, capacity);
+        startDays = Arrays.copyOf(startDays, capacity);
+        endDays = Arrays.copyOf(endDays, capacity);
+        dueDays = Arrays.copyOf(dueDays, capacity);
+        nextForUser = Arrays.copyOf(nextForUser, capacity);
+    }
+    
+    private void rebuildUserChains() {
+        Map<Long, Integer> heads = new HashMap<>();
+        int[] next = new int[ids.length];
+        for (int slot = 0; slot < size; slot++) {
+            Integer head = heads.put(userIds[slot], slot);
+            next[slot] = head != null ? head : NO_SLOT;
+        }
+        userHeads = heads;
+        nextForUser = next;
+    }
+    
+    private static int epochDay(Date date) {
+        return date != null ? (int) date.toLocalDate().toEpochDay() : NO_DATE;
+    }
+    
+    public record Filter(Long userId,
+                         Long policyId,
+                         UserPolicy.Status status,
+                         Policy.PolicyType type,
+                         LocalDate endFrom,
+                         LocalDate endTo,
+                         LocalDate dueFrom,
+                         LocalDate dueTo) {
+    }
+    
+    // Growable column buffers for rows read from the database
+    private static final class Rows {
+        int size;
+        long[] ids;
+        long[] userIds;
+        long[] policyIds;
+        byte[] statuses;
+        byte[] types;
+        int[] startDays;
+        int[] endDays;
+        int[] dueDays;
+    
+        Rows(int capacity) {
+            ids = new long[capacity];
+            userIds = new long[capacity];
+            policyIds = new long[capacity];
+            statuses = new byte[capacity];
+            types = new byte[capacity];
+            startDays = new int[capacity];
+            endDays = new int[capacity];
+            dueDays = new int[capacity];
+        }
+    
+        void add(ResultSet rs) throws SQLException {
+            if (size == ids.length) {
+                int capacity = Math.max(16, size + (size >> 1));
+                ids = Arrays.copyOf(ids, capacity);
+                userIds = Arrays.copyOf(userIds, capacity);
+                policyIds = Arrays.copyOf(policyIds, capacity);
+                statuses = Arrays.copyOf(statuses, capacity);
+                types = Arrays.copyOf(types, capacity);
+                startDays = Arrays.copyOf(startDays, capacity);
+                endDays = Arrays.copyOf(endDays, capacity);
+                dueDays = Arrays.copyOf(dueDays, capacity);
+            }
+            ids[size] = rs.getLong(1);
+            userIds[size] = rs.getLong(2);
+            policyIds[size] = rs.getLong(3);
+            statuses[size] = (byte) UserPolicy.Status.valueOf(rs.getString(4)).ordinal();
+            types[size] = (byte) Policy.PolicyType.valueOf(rs.getString(5)).ordinal();
+            startDays[size] = epochDay(rs.getDate(6));
+            endDays[size] = epochDay(rs.getDate(7));
+            dueDays[size] = epochDay(rs.getDate(8));
+            size++;
+        }
+    
+        // Caller guarantees capacity; used when merging the overflow tail
+        void addSlot(UserPolicyIndex index, int slot) {
+            ids[size] = index.ids[slot];
+            userIds[size] = index.userIds[slot];
+            policyIds[size] = index.policyIds[slot];
+            statuses[size] = index.statuses[slot];
+            types[size] = index.types[slot];
+            startDays[size] = index.startDays[slot];
+            endDays[size] = index.endDays[slot];
+            dueDays[size] = index.dueDays[slot];
+            size++;
+        }
+    }
+}
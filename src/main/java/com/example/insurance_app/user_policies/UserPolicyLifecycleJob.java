@@ -0,0 +1,126 @@
+package com.example.insurance_app.user_policies;
+
+import com.example.insurance_app.common.JobLockService;
+import com.example.insurance_app.policies.Policy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Daily job that moves user policies past their end date to EXPIRED. Lapsing stays with
+ * PaymentService.checkOverduePayments, which owns the overdue-payment rule. Each chunk is
+ * locked with SKIP LOCKED, recorded in user_policy_transitions and updated in one
+ * statement; a job_locks lease keeps the job to a single node.
+ */
+@Component
+@Slf4j
+public class UserPolicyLifecycleJob {
+    
+    private static final String JOB_NAME = "user-policy-lifecycle";
+    
+    private static final String SELECT_EXPIRED_SQL =
+            "SELECT up.id, up.user_id, up.policy_id, p.type, up.status FROM user_policies up " +
+            "JOIN policies p ON p.id = up.policy_id " +
+            "WHERE up.status IN ('ACTIVE', 'PENDING') AND up.end_date < ? " +
+            "LIMIT ? FOR UPDATE OF up SKIP LOCKED";
+    private static final String INSERT_TRANSITION_SQL =
+            "INSERT INTO user_policy_transitions (user_policy_id, from_status, to_status, reason) VALUES (?, ?, ?, ?)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JobLockService jobLockService;
+    
+    private final int chunkSize;
+    private final Duration lockLease;
+    
+    public UserPolicyLifecycleJob(JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate,
+                                  ApplicationEventPublisher eventPublisher,
+                                  JobLockService jobLockService,
+                                  @Value("${user-policies.lifecycle.chunk-size:500}") int chunkSize,
+                                  @Value("${user-policies.lifecycle.lock-lease-minutes:30}") long lockLeaseMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.jobLockService = jobLockService;
+        this.chunkSize = chunkSize;
+        this.lockLease = Duration.ofMinutes(lockLeaseMinutes);
+    }
+    
+    @Scheduled(cron = "${user-policies.lifecycle.cron:0 15 1 * * ?}")
+    public void run() {
+        if (!jobLockService.tryAcquire(JOB_NAME, lockLease)) {
+            log.info("Skipping user policy lifecycle run, another node holds the lock");
+            return;
+        }
+        try {
+            log.info("Starting user policy lifecycle run at {}", LocalDateTime.now());
+            LocalDate today = LocalDate.now();
+            int expired = transitionAll(SELECT_EXPIRED_SQL, today, UserPolicy.Status.EXPIRED, "END_DATE_PASSED");
+            log.info("Completed user policy lifecycle run: {} expired", expired);
+        } catch (Exception e) {
+            log.error("Error during user policy lifecycle run: {}", e.getMessage(), e);
+        } finally {
+            jobLockService.release(JOB_NAME);
+        }
+    }
+    
+    // Apply one transition chunk by chunk until no matching rows remain
+    private int transitionAll(String selectSql, LocalDate cutoff, UserPolicy.Status target, String reason) {
+        int total = 0;
+        int transitioned;
+        do {
+            transitioned = transactionTemplate.execute(tx -> transitionChunk(selectSql, cutoff, target, reason));
+            total += transitioned;
+            // Keep the lease alive while a long backlog is worked through
+            jobLockService.tryAcquire(JOB_NAME, lockLease);
+        } while (transitioned == chunkSize);
+        return total;
+    }
+    
+    private int transitionChunk(String selectSql, LocalDate cutoff, UserPolicy.Status target, String reason) {
+        List<Row> rows = jdbcTemplate.query(selectSql, (rs, rowNum) -> new Row(
+                rs.getLong(1), rs.getLong(2), rs.getLong(3),
+                Policy.PolicyType.valueOf(rs.getString(4)), UserPolicy.Status.valueOf(rs.getString(5))),
+                Date.valueOf(cutoff), chunkSize);
+        if (rows.isEmpty()) {
+            return 0;
+        }
+    
+        jdbcTemplate.batchUpdate(INSERT_TRANSITION_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setLong(1, row.id());
+            ps.setString(2, row.status().name());
+            ps.setString(3, target.name());
+            ps.setString(4, reason);
+        });
+    
+        List<Object> args = new ArrayList<>(rows.size() + 1);
+        args.add(target.name());
+        rows.forEach(row -> args.add(row.id()));
+        String placeholders = String.join(", ", Collections.nCopies(rows.size(), "?"));
+        jdbcTemplate.update("UPDATE user_policies SET status = ? WHERE id IN (" + placeholders + ")", args.toArray());
+    
+        for (Row row : rows) {
+            eventPublisher.publishEvent(new UserPolicyStatusChangedEvent(row.id(), row.userId(), row.policyId(),
+                    row.policyType(), row.status(), target));
+        }
+        log.debug("Transitioned {} user policies to {}", rows.size(), target);
+        return rows.size();
+    }
+    
+    private record Row(long id, long userId, long policyId, Policy.PolicyType policyType, UserPolicy.Status status) {
+    }
+}
@@ -2,6 +2,7 @@ package com.example.insurance_app.user_policies;
 
 import com.example.insurance_app.policies.Policy;
 import com.example.insurance_app.policies.PolicyMapper;
+import com.example.insurance_app.policies.PolicyVersionService;
 import com.example.insurance_app.users.User;
 import com.example.insurance_app.users.UserMapper;
 import org.mapstruct.*;
@@ -9,7 +10,7 @@ import org.mapstruct.*;
 import java.time.LocalDate;
 import java.util.List;
 
-@Mapper(componentModel = "spring", uses = {UserMapper.class, PolicyMapper.class})
+@Mapper(componentModel = "spring", uses = {UserMapper.class, PolicyMapper.class, PolicyVersionService.class})
 public interface UserPolicyMapper {
     
     // Convert UserPolicy entity to UserPolicyDto
@@ -18,6 +19,7 @@ public interface UserPolicyMapper {
     @Mapping(target = "premiumDue", expression = "java(userPolicy.isPremiumDue())")
     @Mapping(target = "daysUntilExpiry", expression = "java(calculateDaysUntilExpiry(userPolicy.getEndDate()))")
     @Mapping(target = "daysUntilPremiumDue", expression = "java(calculateDaysUntilPremiumDue(userPolicy.getNextPremiumDue()))")
+    @Mapping(target = "policyVersion", source = "policyVersionId", qualifiedByName = "policyVersionById")
     UserPolicyDto toDto(UserPolicy userPolicy);
 
     // Convert list of UserPolicy entities to list of UserPolicyDto
@@ -29,6 +31,9 @@ public interface UserPolicyMapper {
     @Mapping(target = "policy", source = "policyId", qualifiedByName = "policyIdToPolicy")
     @Mapping(target = "status", constant = "PENDING")
     @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "autoRenew", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "policyVersionId", ignore = true)
     UserPolicy toEntity(UserPolicyCreateRequest request);
 
     // Update UserPolicy entity from UserPolicyUpdateRequest
@@ -36,6 +41,9 @@ public interface UserPolicyMapper {
     @Mapping(target = "user", ignore = true)
     @Mapping(target = "policy", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "autoRenew", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "policyVersionId", ignore = true)
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
     void updateEntityFromDto(UserPolicyUpdateRequest request, @MappingTarget UserPolicy userPolicy);
     
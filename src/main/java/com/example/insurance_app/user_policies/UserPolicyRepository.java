@@ -1,6 +1,8 @@
 package com.example.insurance_app.user_policies;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -8,11 +10,13 @@ import org.springframework.stereotype.Repository;
 import com.example.insurance_app.policies.Policy;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserPolicyRepository extends JpaRepository<UserPolicy, Long> {
+public interface UserPolicyRepository extends JpaRepository<UserPolicy, Long>, JpaSpecificationExecutor<UserPolicy> {
     
     // Find all policies for a specific user
     List<UserPolicy> findByUserId(Long userId);
@@ -40,14 +44,37 @@ public interface UserPolicyRepository extends JpaRepository<UserPolicy, Long> {
     @Query("SELECT up FROM UserPolicy up WHERE up.endDate BETWEEN :startDate AND :endDate AND up.status = 'ACTIVE'")
     List<UserPolicy> findPoliciesExpiringBetween(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
     
-    // Check if user already has an active policy of the same type
-    @Query("SELECT COUNT(up) > 0 FROM UserPolicy up WHERE up.user.id = :userId AND up.policy.id = :policyId AND up.status = 'ACTIVE'")
-    boolean existsActiveUserPolicy(@Param("userId") Long userId, @Param("policyId") Long policyId);
+    // Load the purchased policy and the purchasing user in one round trip; empty if either is missing
+    @Query("SELECT p, u FROM Policy p, User u WHERE p.id = :policyId AND u.id = :userId")
+    List<Object[]> findPolicyAndUser(@Param("policyId") Long policyId, @Param("userId") Long userId);
     
     // Find all user policies with user and policy details (optimized query)
     @Query("SELECT up FROM UserPolicy up JOIN FETCH up.user JOIN FETCH up.policy WHERE up.user.id = :userId")
     List<UserPolicy> findByUserIdWithDetails(@Param("userId") Long userId);
     
+    // Page of user policies after the given id, optionally filtered by status and policy type
+    @Query("SELECT up FROM UserPolicy up JOIN FETCH up.user JOIN FETCH up.policy p WHERE up.id > :afterId " +
+           "AND (:status IS NULL OR up.status = :status) AND (:policyType IS NULL OR p.type = :policyType) ORDER BY up.id")
+    List<UserPolicy> findPage(@Param("status") UserPolicy.Status status,
+                              @Param("policyType") Policy.PolicyType policyType,
+                              @Param("afterId") long afterId,
+                              Limit limit);
+    
+    // A user's policies created or changed since the given time, for delta sync
+    @Query("SELECT up FROM UserPolicy up JOIN FETCH up.user JOIN FETCH up.policy " +
+           "WHERE up.user.id = :userId AND up.updatedAt >= :since ORDER BY up.updatedAt, up.id")
+    List<UserPolicy> findChangedByUserId(@Param("userId") Long userId, @Param("since") LocalDateTime since);
+    
+    // Every user policy as a flat row with user and policy ids only, for the normalized listing
+    @Query("SELECT new com.example.insurance_app.user_policies.UserPolicyRowDto(up.id, up.user.id, up.policy.id, " +
+           "up.startDate, up.endDate, up.status, up.nextPremiumDue, up.createdAt, up.autoRenew) " +
+           "FROM UserPolicy up ORDER BY up.id")
+    List<UserPolicyRowDto> findAllRows();
+    
+    // Hydrate a page of user policies with user and policy details, in id order
+    @Query("SELECT up FROM UserPolicy up JOIN FETCH up.user JOIN FETCH up.policy WHERE up.id IN :ids ORDER BY up.id")
+    List<UserPolicy> findByIdInWithDetails(@Param("ids") Collection<Long> ids);
+    
     // Find user policies by policy type
     @Query("SELECT up FROM UserPolicy up WHERE up.user.id = :userId AND up.policy.type = :policyType")
     List<UserPolicy> findByUserIdAndPolicyType(
@@ -59,6 +86,18 @@ public interface UserPolicyRepository extends JpaRepository<UserPolicy, Long> {
     @Query("SELECT COUNT(up) FROM UserPolicy up WHERE up.user.id = :userId AND up.status = 'ACTIVE'")
     long countActiveByUserId(@Param("userId") Long userId);
     
+    // Owner and status for a set of user policies, as (id, userId, status) rows
+    @Query("SELECT up.id, up.user.id, up.status FROM UserPolicy up WHERE up.id IN :ids")
+    List<Object[]> findStatusesByIds(@Param("ids") Collection<Long> ids);
+    
+    // User policy counts per (userId, status, policy type), used to reconcile the in-memory counters
+    @Query("SELECT up.user.id, up.status, p.type, COUNT(up) FROM UserPolicy up JOIN up.policy p GROUP BY up.user.id, up.status, p.type")
+    List<Object[]> countByUserIdStatusAndPolicyType();
+    
+    // Users among the given IDs that already hold the policy in ACTIVE or PENDING status
+    @Query("SELECT up.user.id FROM UserPolicy up WHERE up.policy.id = :policyId AND up.user.id IN :userIds AND up.status IN ('ACTIVE', 'PENDING')")
+    List<Long> findUserIdsHoldingPolicy(@Param("policyId") Long policyId, @Param("userIds") Collection<Long> userIds);
+    
     // Find policies due for renewal (premium due in next N days)
     @Query("SELECT up FROM UserPolicy up WHERE up.nextPremiumDue BETWEEN :today AND :dueDate AND up.status = 'ACTIVE'")
     List<UserPolicy> findPoliciesDueForRenewal(@Param("today") LocalDate today, @Param("dueDate") LocalDate dueDate);
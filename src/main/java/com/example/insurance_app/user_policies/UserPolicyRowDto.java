@@ -0,0 +1,74 @@
+package com.example.insurance_app.user_policies;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+// One user policy in the normalized listing: user and policy by reference into the dictionaries
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserPolicyRowDto {
+    
+    private Long id;
+    
+    private Long userId;
+    
+    private Long policyId;
+    
+    private LocalDate startDate;
+    
+    private LocalDate endDate;
+    
+    private UserPolicy.Status status;
+    
+    private LocalDate nextPremiumDue;
+    
+    private LocalDateTime createdAt;
+    
+    private boolean autoRenew;
+    
+    // Additional computed fields for convenience
+    private boolean isActive;
+    
+    private boolean isExpired;
+    
+    private boolean isPremiumDue;
+    
+    private long daysUntilExpiry;
+    
+    private long daysUntilPremiumDue;
+    
+    // Projection constructor; computed fields are derived here
+    public UserPolicyRowDto(Long id, Long userId, Long policyId, LocalDate startDate, LocalDate endDate,
+                            UserPolicy.Status status, LocalDate nextPremiumDue, LocalDateTime createdAt,
+                            boolean autoRenew) {
+        this.id = id;
+        this.userId = userId;
+        this.policyId = policyId;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.status = status;
+        this.nextPremiumDue = nextPremiumDue;
+        this.createdAt = createdAt;
+        this.autoRenew = autoRenew;
+        
+        LocalDate today = LocalDate.now();
+        this.isActive = status == UserPolicy.Status.ACTIVE;
+        this.isExpired = endDate.isBefore(today);
+        this.isPremiumDue = nextPremiumDue != null && nextPremiumDue.isBefore(today.plusDays(1));
+        this.daysUntilExpiry = ChronoUnit.DAYS.between(today, endDate);
+        this.daysUntilPremiumDue = nextPremiumDue != null ? ChronoUnit.DAYS.between(today, nextPremiumDue) : -1;
+    }
+    
+    public static UserPolicyRowDto of(UserPolicy userPolicy) {
+        // getId() on the lazy user/policy proxies reads the foreign key without loading them
+        return new UserPolicyRowDto(userPolicy.getId(), userPolicy.getUser().getId(), userPolicy.getPolicy().getId(),
+                userPolicy.getStartDate(), userPolicy.getEndDate(), userPolicy.getStatus(),
+                userPolicy.getNextPremiumDue(), userPolicy.getCreatedAt(), userPolicy.isAutoRenew());
+    }
+}
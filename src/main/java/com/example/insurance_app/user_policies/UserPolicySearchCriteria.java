@@ -0,0 +1,46 @@
+package com.example.insurance_app.user_policies;
+
+import com.example.insurance_app.policies.Policy;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Admin search filters; every field is optional and the given ones are combined with AND
+@Data
+@NoArgsConstructor
+public class UserPolicySearchCriteria {
+    
+    private List<UserPolicy.Status> status;
+    
+    private Policy.PolicyType policyType;
+    
+    private Long userId;
+    
+    private Long policyId;
+    
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate startFrom;
+    
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate startTo;
+    
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate endFrom;
+    
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate endTo;
+    
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate dueFrom;
+    
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate dueTo;
+    
+    // Keyset cursor: id of the last row on the previous page
+    private Long afterId;
+    
+    private int limit = 100;
+}
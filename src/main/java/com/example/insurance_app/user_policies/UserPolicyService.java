@@ -1,20 +1,54 @@
 package com.example.insurance_app.user_policies;
 
+import com.example.insurance_app.common.DeltaSyncResponse;
+import com.example.insurance_app.common.SingleFlight;
+import com.example.insurance_app.common.SingleFlightRegistry;
+import com.example.insurance_app.common.SyncTombstoneService;
 import com.example.insurance_app.exceptions.PolicyOperationException;
 import com.example.insurance_app.exceptions.PolicyPurchaseException;
 import com.example.insurance_app.exceptions.UserPolicyNotFoundException;
 import com.example.insurance_app.payments.PaymentService;
 import com.example.insurance_app.policies.Policy;
+import com.example.insurance_app.policies.PolicyDto;
+import com.example.insurance_app.policies.PolicyMapper;
 import com.example.insurance_app.policies.PolicyRepository;
 import com.example.insurance_app.users.User;
+import com.example.insurance_app.users.UserDto;
+import com.example.insurance_app.users.UserMapper;
 import com.example.insurance_app.users.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
@@ -25,24 +59,46 @@ public class UserPolicyService {
     private final UserRepository userRepository;
     private final PolicyRepository policyRepository;
     private final UserPolicyMapper userPolicyMapper;
+    private final UserMapper userMapper;
+    private final PolicyMapper policyMapper;
     private final PaymentService paymentService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectProvider<UserPolicyIndex> userPolicyIndex;
+    private final SyncTombstoneService syncTombstoneService;
+    private final SingleFlightRegistry singleFlights;
+    
+    // Chunk sizes for the batch purchase: IN-list lookups and JDBC insert batches
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+    private static final int INSERT_BATCH_SIZE = 500;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final String USER_POLICY_BY_ID_FLIGHT = "user-policy-by-id";
+    private static final String ACTIVE_HOLDING_INDEX = "uk_user_policies_active_holding";
+    private static final String INSERT_USER_POLICY_SQL =
+            "INSERT INTO user_policies (user_id, policy_id, policy_version_id, start_date, end_date, status, " +
+            "next_premium_due, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
     
     // Purchase a policy for a user
     @Transactional
     public UserPolicyDto purchasePolicy(UserPolicyCreateRequest request) {
         log.info("Processing policy purchase request for user {} and policy {}", 
                 request.getUserId(), request.getPolicyId());
-        User user = userRepository.findById(request.getUserId())
-                .orElseThrow(() -> new PolicyPurchaseException("User not found with ID: " + request.getUserId()));
-        Policy policy = policyRepository.findById(request.getPolicyId())
-                .orElseThrow(() -> new PolicyPurchaseException("Policy not found with ID: " + request.getPolicyId()));
-        if (userPolicyRepository.existsActiveUserPolicy(request.getUserId(), request.getPolicyId())) {
-            throw PolicyPurchaseException.userAlreadyHasPolicy(request.getUserId(), request.getPolicyId());
-        }
         validatePolicyStartDate(request.getStartDate());
+        
+        // One combined lookup; the one-live-holding rule is enforced by uk_user_policies_active_holding
+        List<Object[]> found = userPolicyRepository.findPolicyAndUser(request.getPolicyId(), request.getUserId());
+        if (found.isEmpty()) {
+            throw missingPurchaseTarget(request);
+        }
+        Policy policy = (Policy) found.get(0)[0];
+        User user = (User) found.get(0)[1];
+        if (policy.isRetired()) {
+            throw PolicyPurchaseException.policyNotAvailable(policy.getId());
+        }
         UserPolicy userPolicy = userPolicyMapper.toEntity(request);
         userPolicy.setUser(user);
         userPolicy.setPolicy(policy);
+        userPolicy.setPolicyVersionId(policy.getCurrentVersionId());
         
         // Calculate end date based on policy term years
         LocalDate endDate = request.getStartDate().plusYears(policy.getTermYears());
@@ -50,10 +106,156 @@ public class UserPolicyService {
         
         // Calculate next premium due date based on policy frequency
         userPolicy.setNextPremiumDue(calculateNextPremiumDue(request.getStartDate(), policy));
-        UserPolicy savedUserPolicy = userPolicyRepository.save(userPolicy);
+        UserPolicy savedUserPolicy = saveHolding(userPolicy,
+                () -> PolicyPurchaseException.userAlreadyHasPolicy(request.getUserId(), request.getPolicyId()));
+        eventPublisher.publishEvent(UserPolicyStatusChangedEvent.of(savedUserPolicy, null));
         return userPolicyMapper.toDto(savedUserPolicy);
     }
     
+    // Error path only: work out which side of the combined lookup was missing
+    private PolicyPurchaseException missingPurchaseTarget(UserPolicyCreateRequest request) {
+        if (!userRepository.existsById(request.getUserId())) {
+            return new PolicyPurchaseException("User not found with ID: " + request.getUserId());
+        }
+        return new PolicyPurchaseException("Policy not found with ID: " + request.getPolicyId());
+    }
+    
+    // Save and flush so a second live holding surfaces here, mapped to the caller's error
+    private UserPolicy saveHolding(UserPolicy userPolicy, Supplier<? extends RuntimeException> alreadyHeld) {
+        try {
+            return userPolicyRepository.saveAndFlush(userPolicy);
+        } catch (DataIntegrityViolationException e) {
+            if (isActiveHoldingViolation(e)) {
+                throw alreadyHeld.get();
+            }
+            throw e;
+        }
+    }
+    
+    private static boolean isActiveHoldingViolation(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.toLowerCase().contains(ACTIVE_HOLDING_INDEX);
+    }
+    
+    // Purchase one policy for many users (group / employer enrolment)
+    @Transactional
+    public UserPolicyBatchPurchaseResultDto purchasePolicyBatch(UserPolicyBatchPurchaseRequest request) {
+        log.info("Processing batch purchase of policy {} for {} users", request.getPolicyId(), request.getUserIds().size());
+        Policy policy = policyRepository.findById(request.getPolicyId())
+                .orElseThrow(() -> new PolicyPurchaseException("Policy not found with ID: " + request.getPolicyId()));
+        if (policy.isRetired()) {
+            throw PolicyPurchaseException.policyNotAvailable(policy.getId());
+        }
+        validatePolicyStartDate(request.getStartDate());
+        
+        // Set-based validation: one query per chunk for existing users and one for ACTIVE or PENDING holdings
+        List<Long> distinctUserIds = request.getUserIds().stream().distinct().toList();
+        Set<Long> existingUsers = new HashSet<>();
+        Set<Long> currentHolders = new HashSet<>();
+        for (List<Long> chunk : chunks(distinctUserIds, LOOKUP_CHUNK_SIZE)) {
+            existingUsers.addAll(userRepository.findExistingIds(chunk));
+            currentHolders.addAll(userPolicyRepository.findUserIdsHoldingPolicy(policy.getId(), chunk));
+        }
+        
+        List<UserPolicyBatchPurchaseResultDto.RowResult> results = new ArrayList<>(request.getUserIds().size());
+        List<UserPolicyBatchPurchaseResultDto.RowResult> toCreate = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        for (Long userId : request.getUserIds()) {
+            UserPolicyBatchPurchaseResultDto.RowResult result = new UserPolicyBatchPurchaseResultDto.RowResult(userId, null, null);
+            if (!seen.add(userId)) {
+                result.setOutcome(UserPolicyBatchPurchaseResultDto.Outcome.DUPLICATE_IN_REQUEST);
+            } else if (!existingUsers.contains(userId)) {
+                result.setOutcome(UserPolicyBatchPurchaseResultDto.Outcome.USER_NOT_FOUND);
+            } else if (currentHolders.contains(userId)) {
+                result.setOutcome(UserPolicyBatchPurchaseResultDto.Outcome.ALREADY_HOLDS_POLICY);
+            } else {
+                result.setOutcome(UserPolicyBatchPurchaseResultDto.Outcome.CREATED);
+                toCreate.add(result);
+            }
+            results.add(result);
+        }
+        
+        LocalDate startDate = request.getStartDate();
+        LocalDate endDate = startDate.plusYears(policy.getTermYears());
+        LocalDate nextPremiumDue = calculateNextPremiumDue(startDate, policy);
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        for (List<UserPolicyBatchPurchaseResultDto.RowResult> chunk : chunks(toCreate, INSERT_BATCH_SIZE)) {
+            // JDBC savepoint on the transaction's connection; the JPA dialect does not support savepoints
+            Savepoint savepoint = jdbcTemplate.execute((ConnectionCallback<Savepoint>) Connection::setSavepoint);
+            try {
+                insertHoldings(chunk, policy, startDate, endDate, nextPremiumDue, createdAt);
+                jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                    connection.releaseSavepoint(savepoint);
+                    return null;
+                });
+            } catch (DataIntegrityViolationException e) {
+                if (!isActiveHoldingViolation(e)) {
+                    throw e;
+                }
+                // A concurrent purchase took some of these users after the lookup: undo the chunk and
+                // insert it row by row so only the conflicting rows are reported
+                jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                    connection.rollback(savepoint);
+                    return null;
+                });
+                for (UserPolicyBatchPurchaseResultDto.RowResult row : chunk) {
+                    try {
+                        insertHoldings(List.of(row), policy, startDate, endDate, nextPremiumDue, createdAt);
+                    } catch (DataIntegrityViolationException rowError) {
+                        if (!isActiveHoldingViolation(rowError)) {
+                            throw rowError;
+                        }
+                        row.setOutcome(UserPolicyBatchPurchaseResultDto.Outcome.ALREADY_HOLDS_POLICY);
+                    }
+                }
+            }
+        }
+        
+        int created = 0;
+        for (UserPolicyBatchPurchaseResultDto.RowResult row : toCreate) {
+            if (row.getOutcome() == UserPolicyBatchPurchaseResultDto.Outcome.CREATED) {
+                created++;
+                eventPublisher.publishEvent(new UserPolicyStatusChangedEvent(row.getUserPolicyId(), row.getUserId(),
+                        policy.getId(), policy.getType(), null, UserPolicy.Status.PENDING));
+            }
+        }
+        
+        log.info("Batch purchase of policy {} created {} of {} user policies", policy.getId(), created, results.size());
+        return new UserPolicyBatchPurchaseResultDto(policy.getId(), results.size(), created,
+                results.size() - created, results);
+    }
+    
+    // One JDBC batch insert of PENDING holdings; generated ids are written back to the rows
+    private void insertHoldings(List<UserPolicyBatchPurchaseResultDto.RowResult> rows, Policy policy, LocalDate startDate,
+                                LocalDate endDate, LocalDate nextPremiumDue, Timestamp createdAt) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_USER_POLICY_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ps.setLong(1, rows.get(i).getUserId());
+                        ps.setLong(2, policy.getId());
+                        ps.setObject(3, policy.getCurrentVersionId(), Types.BIGINT);
+                        ps.setDate(4, Date.valueOf(startDate));
+                        ps.setDate(5, Date.valueOf(endDate));
+                        ps.setString(6, UserPolicy.Status.PENDING.name());
+                        ps.setDate(7, Date.valueOf(nextPremiumDue));
+                        ps.setTimestamp(8, createdAt);
+                    }
+                    
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                },
+                keyHolder);
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < rows.size(); i++) {
+            rows.get(i).setUserPolicyId(((Number) keys.get(i).values().iterator().next()).longValue());
+        }
+    }
+    
     // Get all policies for a specific user
     @Transactional(readOnly = true)
     public List<UserPolicyDto> getUserPolicies(Long userId) {        
@@ -61,6 +263,14 @@ public class UserPolicyService {
         return userPolicyMapper.toDtoList(userPolicies);
     }
     
+    // Delta sync of a user's policies: everything for an empty token, otherwise changes and removals since it
+    @Transactional(readOnly = true)
+    public DeltaSyncResponse<UserPolicyDto> getUserPolicyChanges(Long userId, String since) {
+        return syncTombstoneService.delta(userId, SyncTombstoneService.EntityType.USER_POLICY, since,
+                () -> getUserPolicies(userId),
+                changedSince -> userPolicyMapper.toDtoList(userPolicyRepository.findChangedByUserId(userId, changedSince)));
+    }
+    
     // Get active policies for a specific user
     @Transactional(readOnly = true)
     public List<UserPolicyDto> getActivePoliciesForUser(Long userId) {
@@ -68,13 +278,15 @@ public class UserPolicyService {
         return userPolicyMapper.toDtoList(activePolicies);
     }
     
-    // Get user policy by ID
-    @Transactional(readOnly = true)
+    // Get user policy by ID; concurrent requests for the same id share one query. Runs outside a
+    // transaction so waiting callers do not each hold a pooled connection
+    @Transactional(propagation = Propagation.SUPPORTS)
     public UserPolicyDto getUserPolicyById(Long id) {
-        UserPolicy userPolicy = userPolicyRepository.findById(id)
-                .orElseThrow(() -> new UserPolicyNotFoundException(id));
-        
-        return userPolicyMapper.toDto(userPolicy);
+        SingleFlight<Long, UserPolicyDto> flight = singleFlights.get(USER_POLICY_BY_ID_FLIGHT);
+        return flight.execute(id, () -> userPolicyRepository.findByIdInWithDetails(List.of(id)).stream()
+                .findFirst()
+                .map(userPolicyMapper::toDto)
+                .orElseThrow(() -> new UserPolicyNotFoundException(id)));
     }
     
     // Update user policy
@@ -87,8 +299,12 @@ public class UserPolicyService {
         if (request.getStatus() != null) {
             validateStatusTransition(userPolicy.getStatus(), request.getStatus());
         }
+        UserPolicy.Status previousStatus = userPolicy.getStatus();
         userPolicyMapper.updateEntityFromDto(request, userPolicy);
-        UserPolicy updatedUserPolicy = userPolicyRepository.save(userPolicy);
+        // Reactivating a cancelled holding conflicts with any live holding bought since
+        UserPolicy updatedUserPolicy = saveHolding(userPolicy,
+                () -> PolicyOperationException.alreadyHeld(userPolicy.getUser().getId(), userPolicy.getPolicy().getId()));
+        eventPublisher.publishEvent(UserPolicyStatusChangedEvent.of(updatedUserPolicy, previousStatus));
         return userPolicyMapper.toDto(updatedUserPolicy);
     }
     
@@ -106,8 +322,13 @@ public class UserPolicyService {
         if (userPolicy.getStatus() == UserPolicy.Status.LAPSED) {
             throw PolicyOperationException.cannotCancel("Cannot cancel a lapsed policy");
         }
+        if (userPolicy.getStatus() == UserPolicy.Status.EXPIRED) {
+            throw PolicyOperationException.cannotCancel("Cannot cancel an expired policy");
+        }
+        UserPolicy.Status previousStatus = userPolicy.getStatus();
         userPolicy.setStatus(UserPolicy.Status.CANCELLED);
         UserPolicy updatedUserPolicy = userPolicyRepository.save(userPolicy);
+        eventPublisher.publishEvent(UserPolicyStatusChangedEvent.of(updatedUserPolicy, previousStatus));
         return userPolicyMapper.toDto(updatedUserPolicy);
     }
     
@@ -122,22 +343,52 @@ public class UserPolicyService {
         }
         // Extend policy by its original term
         Policy policy = userPolicy.getPolicy();
+        if (policy.isRetired()) {
+            throw PolicyOperationException.cannotRenew("Policy " + policy.getId() + " has been retired");
+        }
         LocalDate newEndDate = userPolicy.getEndDate().plusYears(policy.getTermYears());
         LocalDate newPremiumDue = calculateNextPremiumDue(LocalDate.now(), policy);
         
         userPolicy.setEndDate(newEndDate);
         userPolicy.setNextPremiumDue(newPremiumDue);
+        // A renewal is a new term bought at the policy's current terms
+        userPolicy.setPolicyVersionId(policy.getCurrentVersionId());
+        UserPolicy.Status previousStatus = userPolicy.getStatus();
         userPolicy.setStatus(UserPolicy.Status.ACTIVE);
-        UserPolicy renewedUserPolicy = userPolicyRepository.save(userPolicy);
+        // A lapsed or expired holding may have been replaced by a new purchase in the meantime
+        UserPolicy renewedUserPolicy = saveHolding(userPolicy,
+                () -> PolicyOperationException.cannotRenew("User " + userPolicy.getUser().getId()
+                        + " already has an active or pending holding of policy " + policy.getId()));
+        eventPublisher.publishEvent(UserPolicyStatusChangedEvent.of(renewedUserPolicy, previousStatus));
         return userPolicyMapper.toDto(renewedUserPolicy);
     }
     
+    // Opt a user policy in or out of nightly auto-renewal
+    @Transactional
+    public UserPolicyDto setAutoRenew(Long userPolicyId, boolean enabled) {
+        UserPolicy userPolicy = userPolicyRepository.findById(userPolicyId)
+                .orElseThrow(() -> new UserPolicyNotFoundException(userPolicyId));
+        
+        if (enabled && userPolicy.getStatus() != UserPolicy.Status.ACTIVE && userPolicy.getStatus() != UserPolicy.Status.PENDING) {
+            throw PolicyOperationException.cannotRenew("Auto-renewal requires an active or pending policy");
+        }
+        userPolicy.setAutoRenew(enabled);
+        UserPolicy updatedUserPolicy = userPolicyRepository.save(userPolicy);
+        eventPublisher.publishEvent(UserPolicyStatusChangedEvent.of(updatedUserPolicy, updatedUserPolicy.getStatus()));
+        return userPolicyMapper.toDto(updatedUserPolicy);
+    }
+    
     // Get policies expiring within specified days
     @Transactional(readOnly = true)
     public List<UserPolicyDto> getPoliciesExpiringIn(int days) {
         LocalDate startDate = LocalDate.now();
         LocalDate endDate = startDate.plusDays(days);
         
+        UserPolicyIndex index = readyIndex();
+        if (index != null) {
+            return hydrate(index.findIds(new UserPolicyIndex.Filter(null, null, UserPolicy.Status.ACTIVE, null,
+                    startDate, endDate, null, null), 0L, Integer.MAX_VALUE));
+        }
         List<UserPolicy> expiringPolicies = userPolicyRepository.findPoliciesExpiringBetween(startDate, endDate);
         return userPolicyMapper.toDtoList(expiringPolicies);
     }
@@ -148,6 +399,11 @@ public class UserPolicyService {
         LocalDate today = LocalDate.now();
         LocalDate dueDate = today.plusDays(daysAhead);
         
+        UserPolicyIndex index = readyIndex();
+        if (index != null) {
+            return hydrate(index.findIds(new UserPolicyIndex.Filter(null, null, UserPolicy.Status.ACTIVE, null,
+                    null, null, today, dueDate), 0L, Integer.MAX_VALUE));
+        }
         List<UserPolicy> policiesDueForRenewal = userPolicyRepository.findPoliciesDueForRenewal(today, dueDate);
         return userPolicyMapper.toDtoList(policiesDueForRenewal);
     }
@@ -155,12 +411,16 @@ public class UserPolicyService {
     // Get user policies by policy type
     @Transactional(readOnly = true)
     public List<UserPolicyDto> getUserPoliciesByType(Long userId, Policy.PolicyType policyType) {
+        UserPolicyIndex index = readyIndex();
+        if (index != null) {
+            return hydrate(index.findIds(new UserPolicyIndex.Filter(userId, null, null, policyType,
+                    null, null, null, null), 0L, Integer.MAX_VALUE));
+        }
         List<UserPolicy> userPolicies = userPolicyRepository.findByUserIdAndPolicyType(userId, policyType);
         return userPolicyMapper.toDtoList(userPolicies);
     }
     
     // Count active policies for a user
-    @Transactional(readOnly = true)
     public long countActivePoliciesForUser(Long userId) {
         return userPolicyRepository.countActiveByUserId(userId);
     }
@@ -180,6 +440,81 @@ public class UserPolicyService {
         return userPolicyMapper.toDtoList(allUserPolicies);
     }
     
+    // Get one page of user policies after the given id (Admin only); filtered in memory when the index is enabled
+    @Transactional(readOnly = true)
+    public List<UserPolicyDto> getUserPoliciesPage(UserPolicy.Status status, Policy.PolicyType policyType,
+                                                   long afterId, int limit) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        UserPolicyIndex index = readyIndex();
+        if (index != null) {
+            return hydrate(index.findIds(new UserPolicyIndex.Filter(null, null, status, policyType,
+                    null, null, null, null), afterId, pageSize));
+        }
+        return userPolicyMapper.toDtoList(userPolicyRepository.findPage(status, policyType, afterId, Limit.of(pageSize)));
+    }
+    
+    // Admin search combining any of the criteria in one query, one keyset page ordered by id
+    @Transactional(readOnly = true)
+    public List<UserPolicyDto> searchUserPolicies(UserPolicySearchCriteria criteria) {
+        int pageSize = Math.min(Math.max(criteria.getLimit(), 1), MAX_PAGE_SIZE);
+        List<UserPolicy> page = userPolicyRepository.findBy(UserPolicySpecifications.matching(criteria),
+                query -> query.sortBy(Sort.by("id")).limit(pageSize).all());
+        return userPolicyMapper.toDtoList(page);
+    }
+    
+    // Get all user policies in normalized form: flat rows plus one entry per distinct user and policy (Admin only)
+    @Transactional(readOnly = true)
+    public NormalizedUserPolicyListDto getAllUserPoliciesNormalized() {
+        return normalize(userPolicyRepository.findAllRows());
+    }
+    
+    // Admin search returning one page in normalized form
+    @Transactional(readOnly = true)
+    public NormalizedUserPolicyListDto searchUserPoliciesNormalized(UserPolicySearchCriteria criteria) {
+        int pageSize = Math.min(Math.max(criteria.getLimit(), 1), MAX_PAGE_SIZE);
+        List<UserPolicy> page = userPolicyRepository.findBy(UserPolicySpecifications.matching(criteria),
+                query -> query.sortBy(Sort.by("id")).limit(pageSize).all());
+        // User and policy are already fetch-joined by the search, so the dictionaries are built from the page
+        Map<Long, UserDto> users = new LinkedHashMap<>();
+        Map<Long, PolicyDto> policies = new LinkedHashMap<>();
+        List<UserPolicyRowDto> rows = new ArrayList<>(page.size());
+        for (UserPolicy userPolicy : page) {
+            rows.add(UserPolicyRowDto.of(userPolicy));
+            users.computeIfAbsent(userPolicy.getUser().getId(), id -> userMapper.toDto(userPolicy.getUser()));
+            policies.computeIfAbsent(userPolicy.getPolicy().getId(), id -> policyMapper.toDto(userPolicy.getPolicy()));
+        }
+        return new NormalizedUserPolicyListDto(rows, users, policies);
+    }
+    
+    // Load each referenced user and policy once and map it to a single shared DTO
+    private NormalizedUserPolicyListDto normalize(List<UserPolicyRowDto> rows) {
+        List<Long> userIds = rows.stream().map(UserPolicyRowDto::getUserId).distinct().toList();
+        List<Long> policyIds = rows.stream().map(UserPolicyRowDto::getPolicyId).distinct().toList();
+        Map<Long, UserDto> users = new LinkedHashMap<>(userIds.size() * 2);
+        for (List<Long> chunk : chunks(userIds, LOOKUP_CHUNK_SIZE)) {
+            userRepository.findAllById(chunk).forEach(user -> users.put(user.getId(), userMapper.toDto(user)));
+        }
+        Map<Long, PolicyDto> policies = new LinkedHashMap<>(policyIds.size() * 2);
+        for (List<Long> chunk : chunks(policyIds, LOOKUP_CHUNK_SIZE)) {
+            policyRepository.findAllById(chunk).forEach(policy -> policies.put(policy.getId(), policyMapper.toDto(policy)));
+        }
+        return new NormalizedUserPolicyListDto(rows, users, policies);
+    }
+    
+    private UserPolicyIndex readyIndex() {
+        UserPolicyIndex index = userPolicyIndex.getIfAvailable();
+        return index != null && index.isReady() ? index : null;
+    }
+    
+    // Load only the matched rows, in chunks, preserving id order
+    private List<UserPolicyDto> hydrate(List<Long> ids) {
+        List<UserPolicyDto> result = new ArrayList<>(ids.size());
+        for (List<Long> chunk : chunks(ids, LOOKUP_CHUNK_SIZE)) {
+            result.addAll(userPolicyMapper.toDtoList(userPolicyRepository.findByIdInWithDetails(chunk)));
+        }
+        return result;
+    }
+    
     // Private helper methods
     
     private void validatePolicyStartDate(LocalDate startDate) {
@@ -208,14 +543,23 @@ public class UserPolicyService {
             throw PolicyOperationException.invalidStatusTransition(currentStatus.name(), newStatus.name());
         }
         
-        // Prevent transitions from LAPSED to ACTIVE (should use renewal instead)
-        if (currentStatus == UserPolicy.Status.LAPSED && newStatus == UserPolicy.Status.ACTIVE) {
+        // Prevent transitions from LAPSED or EXPIRED to ACTIVE (should use renewal instead)
+        if ((currentStatus == UserPolicy.Status.LAPSED || currentStatus == UserPolicy.Status.EXPIRED)
+                && newStatus == UserPolicy.Status.ACTIVE) {
             throw PolicyOperationException.invalidStatusTransition(currentStatus.name(), newStatus.name());
         }
         
         // Add more validation rules as needed
     }
     
+    private static <T> List<List<T>> chunks(List<T> items, int size) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += size) {
+            chunks.add(items.subList(from, Math.min(from + size, items.size())));
+        }
+        return chunks;
+    }
+    
     private LocalDate calculateNextPremiumDue(LocalDate startDate, Policy policy) {
         // Calculate next premium due based on premium frequency
         int monthsBetweenPayments = policy.getPremiumFrequency().getMonthsBetweenPayments();
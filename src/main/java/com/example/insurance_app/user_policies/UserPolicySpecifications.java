@@ -0,0 +1,65 @@
+package com.example.insurance_app.user_policies;
+
+import com.example.insurance_app.policies.Policy;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// Builds the single dynamic query behind the admin user policy search
+final class UserPolicySpecifications {
+    
+    private UserPolicySpecifications() {
+    }
+    
+    // All given criteria ANDed, plus the id cursor; user and policy are fetch-joined so mapping needs no extra queries
+    @SuppressWarnings("unchecked")
+    static Specification<UserPolicy> matching(UserPolicySearchCriteria criteria) {
+        return (root, query, cb) -> {
+            Join<UserPolicy, Policy> policy;
+            if (Long.class == query.getResultType() || long.class == query.getResultType()) {
+                policy = root.join("policy", JoinType.INNER);
+            } else {
+                root.fetch("user", JoinType.INNER);
+                policy = (Join<UserPolicy, Policy>) root.<UserPolicy, Policy>fetch("policy", JoinType.INNER);
+            }
+            
+            List<Predicate> predicates = new ArrayList<>();
+            if (criteria.getStatus() != null && !criteria.getStatus().isEmpty()) {
+                predicates.add(root.get("status").in(criteria.getStatus()));
+            }
+            if (criteria.getPolicyType() != null) {
+                predicates.add(cb.equal(policy.get("type"), criteria.getPolicyType()));
+            }
+            if (criteria.getUserId() != null) {
+                predicates.add(cb.equal(root.get("user").get("id"), criteria.getUserId()));
+            }
+            if (criteria.getPolicyId() != null) {
+                predicates.add(cb.equal(policy.get("id"), criteria.getPolicyId()));
+            }
+            addRange(predicates, cb, root.get("startDate"), criteria.getStartFrom(), criteria.getStartTo());
+            addRange(predicates, cb, root.get("endDate"), criteria.getEndFrom(), criteria.getEndTo());
+            addRange(predicates, cb, root.get("nextPremiumDue"), criteria.getDueFrom(), criteria.getDueTo());
+            if (criteria.getAfterId() != null) {
+                predicates.add(cb.greaterThan(root.get("id"), criteria.getAfterId()));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+    
+    private static void addRange(List<Predicate> predicates, CriteriaBuilder cb, Path<LocalDate> path,
+                                 LocalDate from, LocalDate to) {
+        if (from != null) {
+            predicates.add(cb.greaterThanOrEqualTo(path, from));
+        }
+        if (to != null) {
+            predicates.add(cb.lessThanOrEqualTo(path, to));
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.insurance_app.user_policies;
+
+import com.example.insurance_app.policies.Policy;
+
+// Published inside the writing transaction; listeners use @TransactionalEventListener to act after commit
+public record UserPolicyStatusChangedEvent(Long userPolicyId,
+                                           Long userId,
+                                           Long policyId,
+                                           Policy.PolicyType policyType,
+                                           UserPolicy.Status previousStatus,
+                                           UserPolicy.Status newStatus) {
+    
+    public static UserPolicyStatusChangedEvent of(UserPolicy userPolicy, UserPolicy.Status previousStatus) {
+        return new UserPolicyStatusChangedEvent(userPolicy.getId(), userPolicy.getUser().getId(),
+                userPolicy.getPolicy().getId(), userPolicy.getPolicy().getType(),
+                previousStatus, userPolicy.getStatus());
+    }
+}
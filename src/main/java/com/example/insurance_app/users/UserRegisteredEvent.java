@@ -0,0 +1,5 @@
+package com.example.insurance_app.users;
+
+// Published when a user is created; registration is not transactional, so listeners need fallbackExecution
+public record UserRegisteredEvent(Long userId) {
+}
@@ -0,0 +1,3 @@
+-- Tracking ID for claims accepted through the queued intake endpoint
+ALTER TABLE claims ADD COLUMN tracking_id VARCHAR(36) NULL;
+CREATE UNIQUE INDEX uk_claims_tracking_id ON claims(tracking_id);
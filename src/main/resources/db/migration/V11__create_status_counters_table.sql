@@ -0,0 +1,8 @@
+-- Periodic snapshot of the in-memory claim and user policy counters, one row per user and counter
+CREATE TABLE status_counters (
+    user_id BIGINT NOT NULL,
+    counter_key VARCHAR(60) NOT NULL,
+    counter_value BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (user_id, counter_key)
+);
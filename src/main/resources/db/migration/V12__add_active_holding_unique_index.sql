@@ -0,0 +1,8 @@
+-- Enforce at most one ACTIVE/PENDING holding per user and policy.
+-- active_holding is 1 for live holdings and NULL otherwise; MySQL unique indexes
+-- allow repeated NULLs, so cancelled/lapsed history rows are not constrained.
+-- Any existing duplicate live holdings must be resolved before this migration runs.
+ALTER TABLE user_policies
+    ADD COLUMN active_holding TINYINT
+        GENERATED ALWAYS AS (IF(status IN ('ACTIVE', 'PENDING'), 1, NULL)) STORED;
+CREATE UNIQUE INDEX uk_user_policies_active_holding ON user_policies(user_id, policy_id, active_holding);
@@ -0,0 +1,25 @@
+-- EXPIRED status for user policies past their end date
+ALTER TABLE user_policies MODIFY COLUMN status ENUM('PENDING', 'ACTIVE', 'LAPSED', 'CANCELLED', 'EXPIRED') NOT NULL DEFAULT 'PENDING';
+
+-- Drive the lifecycle job's expiry and lapse scans
+CREATE INDEX idx_user_policies_status_end_date ON user_policies(status, end_date);
+CREATE INDEX idx_user_policies_status_premium_due ON user_policies(status, next_premium_due);
+
+-- Audit trail of status transitions applied by the lifecycle job
+CREATE TABLE user_policy_transitions (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_policy_id BIGINT NOT NULL,
+    from_status VARCHAR(20) NOT NULL,
+    to_status VARCHAR(20) NOT NULL,
+    reason VARCHAR(100) NOT NULL,
+    transitioned_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (user_policy_id) REFERENCES user_policies(id) ON DELETE CASCADE,
+    INDEX idx_user_policy_transitions_user_policy (user_policy_id)
+);
+
+-- Lease-based locks so a scheduled job runs on one node at a time
+CREATE TABLE job_locks (
+    job_name VARCHAR(100) PRIMARY KEY,
+    locked_by VARCHAR(255) NULL,
+    locked_until TIMESTAMP NULL
+);
@@ -0,0 +1,5 @@
+-- Opt-in flag for the nightly auto-renewal engine
+ALTER TABLE user_policies ADD COLUMN auto_renew BOOLEAN NOT NULL DEFAULT FALSE;
+
+-- Keyset scan over (end_date, id) for opted-in active policies; InnoDB appends id to the index
+CREATE INDEX idx_user_policies_auto_renew ON user_policies(status, auto_renew, end_date);
@@ -0,0 +1,22 @@
+-- Change tracking for delta sync of per-user lists
+ALTER TABLE user_policies ADD COLUMN updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP;
+UPDATE user_policies SET updated_at = COALESCE(created_at, CURRENT_TIMESTAMP);
+CREATE INDEX idx_user_policies_user_updated ON user_policies(user_id, updated_at);
+
+ALTER TABLE claims ADD COLUMN updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP;
+UPDATE claims SET updated_at = COALESCE(claim_date, CURRENT_TIMESTAMP);
+CREATE INDEX idx_claims_user_policy_updated ON claims(user_policy_id, updated_at);
+
+CREATE INDEX idx_payments_user_policy_updated ON payments(user_policy_id, updated_at);
+
+-- Removed rows, so clients can drop them locally; written by the application because
+-- FK cascades do not fire triggers
+CREATE TABLE sync_tombstones (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    entity_type VARCHAR(20) NOT NULL,
+    entity_id BIGINT NOT NULL,
+    deleted_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_sync_tombstones_user_type_deleted (user_id, entity_type, deleted_at),
+    INDEX idx_sync_tombstones_deleted (deleted_at)
+);
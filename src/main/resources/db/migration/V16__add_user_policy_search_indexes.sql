@@ -0,0 +1,9 @@
+-- Composite indexes for the admin user policy search; each ends in id so the keyset
+-- cursor (id > ? ORDER BY id) is served from the index for the leading equality filters
+CREATE INDEX idx_user_policies_status_id ON user_policies(status, id);
+CREATE INDEX idx_user_policies_policy_status_id ON user_policies(policy_id, status, id);
+CREATE INDEX idx_user_policies_user_status_id ON user_policies(user_id, status, id);
+CREATE INDEX idx_user_policies_status_start_date ON user_policies(status, start_date);
+
+-- Policy type filters drive the join from the small policies table
+CREATE INDEX idx_policies_type ON policies(type);
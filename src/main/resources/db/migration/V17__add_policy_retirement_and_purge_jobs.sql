@@ -0,0 +1,18 @@
+-- Retired policies stay in place for existing holders but leave the catalog and cannot be purchased
+ALTER TABLE policies ADD COLUMN retired_at TIMESTAMP NULL;
+CREATE INDEX idx_policies_retired_at ON policies(retired_at);
+
+-- Background removal of a retired policy's holdings, payments and claims in small chunks
+CREATE TABLE policy_purge_jobs (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    policy_id BIGINT NOT NULL,
+    status ENUM('PENDING', 'RUNNING', 'COMPLETED', 'FAILED') NOT NULL DEFAULT 'PENDING',
+    claims_deleted BIGINT NOT NULL DEFAULT 0,
+    payments_deleted BIGINT NOT NULL DEFAULT 0,
+    user_policies_deleted BIGINT NOT NULL DEFAULT 0,
+    error_message VARCHAR(1000) NULL,
+    requested_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    started_at TIMESTAMP NULL,
+    finished_at TIMESTAMP NULL,
+    INDEX idx_policy_purge_jobs_status (status, id)
+);
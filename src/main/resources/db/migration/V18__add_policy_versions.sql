@@ -0,0 +1,32 @@
+-- Immutable snapshots of a policy's terms; a new row is written whenever the terms change
+CREATE TABLE policy_versions (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    policy_id BIGINT NOT NULL,
+    version_number INT NOT NULL,
+    type ENUM('HEALTH', 'LIFE', 'VEHICLE', 'TRAVEL') NOT NULL,
+    description TEXT,
+    coverage_amount DECIMAL(15,2) NOT NULL,
+    premium_amount DECIMAL(15,2) NOT NULL,
+    term_years INT NOT NULL,
+    premium_frequency VARCHAR(20) NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE KEY uk_policy_versions_policy_version (policy_id, version_number),
+    FOREIGN KEY (policy_id) REFERENCES policies(id) ON DELETE CASCADE
+);
+
+-- Every existing policy starts at version 1 with its current terms
+INSERT INTO policy_versions (policy_id, version_number, type, description, coverage_amount, premium_amount,
+                             term_years, premium_frequency, created_at)
+SELECT id, 1, type, description, coverage_amount, premium_amount, term_years, premium_frequency, created_at
+FROM policies;
+
+-- Version new purchases are pinned to
+ALTER TABLE policies ADD COLUMN current_version_id BIGINT NULL;
+UPDATE policies p JOIN policy_versions v ON v.policy_id = p.id AND v.version_number = 1
+SET p.current_version_id = v.id;
+
+-- Version each holding was bought (or last renewed) at
+ALTER TABLE user_policies ADD COLUMN policy_version_id BIGINT NULL,
+    ADD CONSTRAINT fk_user_policies_policy_version FOREIGN KEY (policy_version_id) REFERENCES policy_versions(id);
+UPDATE user_policies up JOIN policies p ON p.id = up.policy_id
+SET up.policy_version_id = p.current_version_id;
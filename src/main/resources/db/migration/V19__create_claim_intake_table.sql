@@ -0,0 +1,16 @@
+-- Durable staging for queued claim intake: a row is written before the submission is acknowledged
+-- and deleted when the claim is persisted; rejected and failed rows are kept for status lookups
+CREATE TABLE claim_intake (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    tracking_id VARCHAR(36) NOT NULL,
+    user_policy_id BIGINT NOT NULL,
+    claim_amount DECIMAL(15,2) NOT NULL,
+    description TEXT,
+    submitted_at TIMESTAMP NOT NULL,
+    state ENUM('QUEUED', 'REJECTED', 'FAILED') NOT NULL DEFAULT 'QUEUED',
+    message VARCHAR(255) NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    UNIQUE KEY uk_claim_intake_tracking_id (tracking_id),
+    INDEX idx_claim_intake_state (state, id)
+);
@@ -0,0 +1,2 @@
+-- Lets SLA discovery find recently written pending claims without scanning every pending claim
+CREATE INDEX idx_claims_status_updated ON claims(status, updated_at);
@@ -0,0 +1,25 @@
+-- A bulk reprice as a resumable job: the premium change is committed together with one item per
+-- policy; moved holdings are re-pinned with each chunk, so a run cut short is finished where it stopped
+CREATE TABLE policy_reprice_jobs (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    status ENUM('RUNNING', 'COMPLETED') NOT NULL DEFAULT 'RUNNING',
+    payments_updated BIGINT NOT NULL DEFAULT 0,
+    payment_chunks BIGINT NOT NULL DEFAULT 0,
+    holdings_repinned BIGINT NOT NULL DEFAULT 0,
+    error_message VARCHAR(1000) NULL,
+    started_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    finished_at TIMESTAMP NULL,
+    INDEX idx_policy_reprice_jobs_status (status, id)
+);
+
+CREATE TABLE policy_reprice_items (
+    job_id BIGINT NOT NULL,
+    policy_id BIGINT NOT NULL,
+    old_premium DECIMAL(15,2) NOT NULL,
+    new_premium DECIMAL(15,2) NOT NULL,
+    old_version_id BIGINT NULL,
+    new_version_id BIGINT NOT NULL,
+    completed BOOLEAN NOT NULL DEFAULT FALSE,
+    PRIMARY KEY (job_id, policy_id),
+    FOREIGN KEY (job_id) REFERENCES policy_reprice_jobs(id) ON DELETE CASCADE
+);
@@ -0,0 +1,3 @@
+-- Support keyset pagination on (claim_date, id) for the claim listing endpoints
+CREATE INDEX idx_claims_claim_date_id ON claims(claim_date, id);
+CREATE INDEX idx_claims_status_claim_date_id ON claims(status, claim_date, id);
@@ -0,0 +1,146 @@
+package com.example.insurance_app.claims;
+
+import com.example.insurance_app.user_policies.UserPolicy;
+import com.example.insurance_app.user_policies.UserPolicyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ClaimIntakeServiceTests {
+
+	private static final int MAX_ATTEMPTS = 3;
+	private static final long BAD_ROW_ID = 2L;
+
+	@Mock
+	private ClaimRepository claimRepository;
+
+	@Mock
+	private UserPolicyRepository userPolicyRepository;
+
+	@Mock
+	private JdbcTemplate jdbcTemplate;
+
+	@Mock
+	private TransactionTemplate transactionTemplate;
+
+	@Mock
+	private ApplicationEventPublisher eventPublisher;
+
+	private ClaimIntakeService service;
+
+	private final List<List<Object>> failureUpdates = new ArrayList<>();
+	private final List<List<Object>> deletedBatches = new ArrayList<>();
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		service = new ClaimIntakeService(claimRepository, userPolicyRepository, jdbcTemplate, transactionTemplate,
+				eventPublisher, 10, 10, 200L, 30_000L, MAX_ATTEMPTS, 60L);
+
+		// Staging assigns sequential row ids
+		AtomicLong nextId = new AtomicLong();
+		lenient().doAnswer(invocation -> {
+			invocation.getArgument(1, KeyHolder.class).getKeyList().add(Map.of("id", nextId.incrementAndGet()));
+			return 1;
+		}).when(jdbcTemplate).update(any(PreparedStatementCreator.class), any(KeyHolder.class));
+
+		doAnswer(invocation -> {
+			invocation.getArgument(0, Consumer.class).accept(mock(TransactionStatus.class));
+			return null;
+		}).when(transactionTemplate).executeWithoutResult(any());
+
+		// Every staged row refers to user policy 50, which is active
+		when(jdbcTemplate.query(startsWith("SELECT id, tracking_id"), any(RowMapper.class), any(Object[].class)))
+				.thenAnswer(invocation -> {
+					RowMapper<Object> mapper = invocation.getArgument(1);
+					Object[] ids = invocation.getRawArguments()[2] instanceof Object[] raw ? raw : new Object[0];
+					List<Object> rows = new ArrayList<>();
+					for (Object id : ids) {
+						rows.add(mapper.mapRow(stagedRow((Long) id), rows.size()));
+					}
+					return rows;
+				});
+		when(userPolicyRepository.findStatusesByIds(anyCollection()))
+				.thenReturn(List.<Object[]>of(new Object[]{50L, 7L, UserPolicy.Status.ACTIVE}));
+		lenient().when(claimRepository.findIdsByTrackingIds(anyCollection())).thenReturn(List.of());
+
+		// Deleting the bad row's staging entry fails, as a constraint violation on its claim would
+		doAnswer(invocation -> {
+			String sql = invocation.getArgument(0);
+			List<Object> args = Arrays.asList(invocation.getArguments()).subList(1, invocation.getArguments().length);
+			if (sql.startsWith("DELETE FROM claim_intake WHERE id IN")) {
+				if (args.contains(BAD_ROW_ID)) {
+					throw new DataIntegrityViolationException("bad row");
+				}
+				deletedBatches.add(args);
+			} else if (sql.startsWith("UPDATE claim_intake SET state = CASE")) {
+				failureUpdates.add(args);
+			}
+			return 1;
+		}).when(jdbcTemplate).update(anyString(), any(Object[].class));
+	}
+
+	@Test
+	void aFailingRowUsesOnlyItsOwnRetryBudget() throws InterruptedException {
+		for (int i = 0; i < 3; i++) {
+			service.enqueue(request());
+		}
+
+		service.stop();
+
+		// The batch fails as a whole, then rows 1 and 3 are saved on their own
+		assertEquals(List.of(List.of(1L), List.of(3L)), deletedBatches);
+		assertEquals(List.of(List.of(MAX_ATTEMPTS, MAX_ATTEMPTS, BAD_ROW_ID)), failureUpdates);
+	}
+
+	private static ClaimCreateRequest request() {
+		ClaimCreateRequest request = new ClaimCreateRequest();
+		request.setUserPolicyId(50L);
+		request.setClaimAmount(new BigDecimal("100.00"));
+		request.setDescription("Broken window");
+		return request;
+	}
+
+	private static ResultSet stagedRow(long id) throws Exception {
+		ResultSet rs = mock(ResultSet.class);
+		when(rs.getLong(1)).thenReturn(id);
+		when(rs.getString(2)).thenReturn("tracking-" + id);
+		when(rs.getLong(3)).thenReturn(50L);
+		when(rs.getBigDecimal(4)).thenReturn(new BigDecimal("100.00"));
+		when(rs.getString(5)).thenReturn("Broken window");
+		when(rs.getTimestamp(6)).thenReturn(Timestamp.valueOf(LocalDateTime.now()));
+		return rs;
+	}
+}
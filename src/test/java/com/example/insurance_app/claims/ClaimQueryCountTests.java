@@ -0,0 +1,106 @@
+package com.example.insurance_app.claims;
+
+import com.example.insurance_app.policies.Policy;
+import com.example.insurance_app.user_policies.UserPolicy;
+import com.example.insurance_app.users.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Statistics are global, so background pollers are slowed down to keep them out of the counts
+@SpringBootTest(properties = {
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		"claims.sla.discovery-interval-ms=3600000"
+})
+@Transactional
+class ClaimQueryCountTests {
+
+	@Autowired
+	private ClaimService claimService;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@ParameterizedTest
+	@ValueSource(ints = {1, 25})
+	void listingEndpointsIssueOneStatementRegardlessOfResultSize(int claimCount) {
+		User customer = persistUser(User.Role.CUSTOMER);
+		User agent = persistUser(User.Role.AGENT);
+		UserPolicy userPolicy = persistUserPolicy(customer);
+		for (int i = 0; i < claimCount; i++) {
+			persistClaim(userPolicy, i % 2 == 0 ? agent : null);
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+		statistics.clear();
+		List<ClaimDto> byUser = claimService.getClaimsByUserId(customer.getId(), null, null, 100);
+		assertEquals(claimCount, byUser.size());
+		assertEquals(1, statistics.getPrepareStatementCount());
+
+		statistics.clear();
+		claimService.getPendingClaims(null, null, 100);
+		assertEquals(1, statistics.getPrepareStatementCount());
+
+		statistics.clear();
+		claimService.getAllClaims(null, null, 100);
+		assertEquals(1, statistics.getPrepareStatementCount());
+	}
+
+	private User persistUser(User.Role role) {
+		User user = new User();
+		user.setName("Claim Test " + role);
+		user.setEmail(UUID.randomUUID() + "@claims.test");
+		user.setPassword("secret");
+		user.setRole(role);
+		entityManager.persist(user);
+		return user;
+	}
+
+	private UserPolicy persistUserPolicy(User user) {
+		Policy policy = new Policy();
+		policy.setPolicyNumber("TST-" + UUID.randomUUID().toString().substring(0, 8));
+		policy.setType(Policy.PolicyType.HEALTH);
+		policy.setCoverageAmount(new BigDecimal("100000.00"));
+		policy.setPremiumAmount(new BigDecimal("1200.00"));
+		policy.setTermYears(1);
+		entityManager.persist(policy);
+
+		UserPolicy userPolicy = new UserPolicy();
+		userPolicy.setUser(user);
+		userPolicy.setPolicy(policy);
+		userPolicy.setStartDate(LocalDate.now());
+		userPolicy.setEndDate(LocalDate.now().plusYears(1));
+		userPolicy.setStatus(UserPolicy.Status.ACTIVE);
+		entityManager.persist(userPolicy);
+		return userPolicy;
+	}
+
+	private void persistClaim(UserPolicy userPolicy, User processedBy) {
+		Claim claim = new Claim();
+		claim.setUserPolicy(userPolicy);
+		claim.setClaimAmount(new BigDecimal("250.00"));
+		claim.setDescription("Statement count fixture");
+		claim.setStatus(processedBy == null ? Claim.ClaimStatus.PENDING : Claim.ClaimStatus.APPROVED);
+		claim.setProcessedBy(processedBy);
+		entityManager.persist(claim);
+	}
+}
@@ -0,0 +1,105 @@
+package com.example.insurance_app.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTests {
+
+	private static final int CALLERS = 8;
+
+	private final SingleFlightRegistry registry = new SingleFlightRegistry();
+
+	@Test
+	void concurrentCallersShareOneLoad() throws Exception {
+		SingleFlight<Long, List<String>> flight = registry.get("test");
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger loaderRuns = new AtomicInteger();
+		List<String> loaded = List.of("value");
+
+		List<Future<List<String>>> results = runConcurrently(() -> flight.execute(1L, () -> {
+			loaderRuns.incrementAndGet();
+			await(release);
+			return loaded;
+		}), () -> flight.stats().coalesced() == CALLERS - 1);
+		release.countDown();
+
+		for (Future<List<String>> result : results) {
+			assertSame(loaded, result.get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(1, loaderRuns.get());
+		assertEquals(new SingleFlightStatsDto("test", 1, CALLERS - 1, 0), flight.stats());
+	}
+
+	@Test
+	void waitersSeeTheLeadersExceptionAndTheNextCallLoadsAgain() throws Exception {
+		SingleFlight<Long, String> flight = registry.get("failing");
+		CountDownLatch release = new CountDownLatch(1);
+		IllegalStateException failure = new IllegalStateException("database unavailable");
+
+		List<Future<String>> results = runConcurrently(() -> flight.execute(1L, () -> {
+			await(release);
+			throw failure;
+		}), () -> flight.stats().coalesced() == CALLERS - 1);
+		release.countDown();
+
+		for (Future<String> result : results) {
+			Exception thrown = assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS));
+			assertSame(failure, thrown.getCause());
+		}
+		// Nothing is cached after the flight lands
+		assertEquals("fresh", flight.execute(1L, () -> "fresh"));
+		assertEquals(2, flight.stats().loads());
+	}
+
+	@Test
+	void differentKeysLoadIndependentlyAndStatsAreListedByName() {
+		SingleFlight<Long, Long> flight = registry.get("by-key");
+		registry.get("another");
+
+		assertEquals(1L, flight.execute(1L, () -> 1L));
+		assertEquals(2L, flight.execute(2L, () -> 2L));
+
+		assertEquals(new SingleFlightStatsDto("by-key", 2, 0, 0), flight.stats());
+		assertEquals(List.of("another", "by-key"), registry.stats().stream().map(SingleFlightStatsDto::name).toList());
+	}
+
+	// Start every caller, then wait until all but the leader have joined its flight
+	private static <T> List<Future<T>> runConcurrently(Callable<T> call, BooleanSupplier joined)
+			throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+		List<Future<T>> results = new ArrayList<>();
+		for (int i = 0; i < CALLERS; i++) {
+			results.add(executor.submit(call));
+		}
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!joined.getAsBoolean() && System.nanoTime() < deadline) {
+			Thread.sleep(5);
+		}
+		assertTrue(joined.getAsBoolean(), "callers did not coalesce");
+		executor.shutdown();
+		return results;
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,45 @@
+package com.example.insurance_app.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SyncTokenTests {
+
+	@Test
+	void encodedTokenParsesBackToTheSameMillisecond() {
+		SyncToken token = new SyncToken(Instant.parse("2026-03-01T10:15:30.123456Z"));
+
+		String encoded = token.encode();
+
+		assertFalse(encoded.contains("="));
+		assertEquals(Instant.parse("2026-03-01T10:15:30.123Z"), SyncToken.parse(encoded).issuedAt());
+	}
+
+	@Test
+	void changesAreReadFromFiveSecondsBeforeTheToken() {
+		Instant issuedAt = Instant.parse("2026-03-01T10:15:30Z");
+
+		LocalDateTime since = new SyncToken(issuedAt).changedSince();
+
+		assertEquals(LocalDateTime.ofInstant(issuedAt.minusSeconds(5), ZoneId.systemDefault()), since);
+	}
+
+	@Test
+	void malformedTokensAreRejected() {
+		String wrongPrefix = Base64.getUrlEncoder().encodeToString("v0:123".getBytes(StandardCharsets.UTF_8));
+		String notANumber = Base64.getUrlEncoder().encodeToString("v1:abc".getBytes(StandardCharsets.UTF_8));
+
+		assertThrows(IllegalArgumentException.class, () -> SyncToken.parse("not base64!"));
+		assertThrows(IllegalArgumentException.class, () -> SyncToken.parse(wrongPrefix));
+		assertThrows(IllegalArgumentException.class, () -> SyncToken.parse(notANumber));
+	}
+}
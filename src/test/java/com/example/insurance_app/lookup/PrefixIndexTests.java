@@ -0,0 +1,103 @@
+package com.example.insurance_app.lookup;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrefixIndexTests {
+
+	@Test
+	void findsPrefixMatchesInKeyOrderUpToTheLimit() {
+		PrefixIndex index = new PrefixIndex(16);
+		index.replaceAll(List.of(
+				PrefixIndex.Entry.of(3L, 0L, "POL-300", "Life"),
+				PrefixIndex.Entry.of(1L, 0L, "POL-100", "Health"),
+				PrefixIndex.Entry.of(2L, 0L, "pol-200", "Vehicle"),
+				PrefixIndex.Entry.of(4L, 0L, "PAY-400", "Home")));
+
+		assertEquals(List.of(1L, 2L, 3L), ids(index.find("pol-", 10)));
+		assertEquals(List.of(1L, 2L), ids(index.find("pol-", 2)));
+		assertEquals(List.of(4L), ids(index.find(PrefixIndex.normalize(" PAY"), 10)));
+		assertTrue(index.find("zzz", 10).isEmpty());
+	}
+
+	@Test
+	void deltaWritesMaskAndMergeWithTheBase() {
+		PrefixIndex index = new PrefixIndex(16);
+		index.replaceAll(List.of(
+				PrefixIndex.Entry.of(1L, 0L, "alice@example.com", "Alice"),
+				PrefixIndex.Entry.of(2L, 0L, "bob@example.com", "Bob"),
+				PrefixIndex.Entry.of(3L, 0L, "carol@example.com", "Carol")));
+
+		// An email change moves the entry; the old key no longer matches
+		index.upsert(PrefixIndex.Entry.of(2L, 0L, "alan@example.com", "Bob"));
+		index.upsert(PrefixIndex.Entry.of(4L, 0L, "albert@example.com", "Albert"));
+		index.remove(3L);
+
+		assertEquals(List.of(2L, 4L, 1L), ids(index.find("al", 10)));
+		assertTrue(index.find("bob", 10).isEmpty());
+		assertTrue(index.find("carol", 10).isEmpty());
+		assertEquals(List.of("alan@example.com"), index.find("alan", 10).stream().map(PrefixIndex.Entry::value).toList());
+	}
+
+	@Test
+	void removeGroupDropsBaseAndDeltaEntriesOfThatGroup() {
+		PrefixIndex index = new PrefixIndex(16);
+		index.replaceAll(List.of(
+				PrefixIndex.Entry.of(10L, 1L, "10", "first"),
+				PrefixIndex.Entry.of(11L, 2L, "11", "second"),
+				PrefixIndex.Entry.of(12L, 1L, "12", "third")));
+		index.upsert(PrefixIndex.Entry.of(13L, 1L, "13", "fourth"));
+
+		index.removeGroup(1L);
+
+		assertEquals(List.of(11L), ids(index.find("1", 10)));
+	}
+
+	@Test
+	void matchesAPlainSortedMapAcrossCompactions() {
+		// A low threshold compacts many times along the way
+		PrefixIndex index = new PrefixIndex(8);
+		TreeMap<String, Long> expected = new TreeMap<>();
+		List<PrefixIndex.Entry> initial = new ArrayList<>();
+		for (long id = 1; id <= 200; id += 2) {
+			initial.add(PrefixIndex.Entry.of(id, 0L, key(id, 0), null));
+			expected.put(key(id, 0), id);
+		}
+		index.replaceAll(initial);
+
+		Random random = new Random(42);
+		for (int step = 1; step <= 2000; step++) {
+			long id = 1 + random.nextInt(200);
+			expected.values().remove(id);
+			if (random.nextInt(4) == 0) {
+				index.remove(id);
+			} else {
+				index.upsert(PrefixIndex.Entry.of(id, 0L, key(id, step), null));
+				expected.put(key(id, step), id);
+			}
+			if (step % 100 == 0) {
+				for (String prefix : List.of("k", "k1", "k2", "k3", "k12")) {
+					List<Long> want = expected.subMap(prefix, prefix + Character.MAX_VALUE).values().stream()
+							.limit(25).toList();
+					assertEquals(want, ids(index.find(prefix, 25)), "prefix " + prefix + " after step " + step);
+				}
+			}
+		}
+	}
+
+	// Distinct per id, so key order alone decides the expected order
+	private static String key(long id, int step) {
+		return "k" + (step % 37) + "-" + id;
+	}
+
+	private static List<Long> ids(List<PrefixIndex.Entry> entries) {
+		return entries.stream().map(PrefixIndex.Entry::id).toList();
+	}
+}
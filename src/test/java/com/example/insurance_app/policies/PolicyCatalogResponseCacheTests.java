@@ -0,0 +1,138 @@
+package com.example.insurance_app.policies;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PolicyCatalogResponseCacheTests {
+
+	@Mock
+	private PolicyCatalog policyCatalog;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private PolicyCatalogResponseCache cache;
+
+	private String plainEtag;
+	private String gzipEtag;
+
+	@BeforeEach
+	void setUp() {
+		PolicyCatalog.Snapshot snapshot = snapshot(1L, List.of(policy(1L, "500.00"), policy(2L, "750.00")));
+		when(policyCatalog.snapshot()).thenReturn(snapshot);
+		cache = new PolicyCatalogResponseCache(policyCatalog, objectMapper);
+		plainEtag = cache.allPolicies(null, null).getHeaders().getETag();
+		gzipEtag = cache.allPolicies(null, "gzip").getHeaders().getETag();
+	}
+
+	@Test
+	void servesPlainJsonWithoutGzipInAcceptEncoding() throws IOException {
+		ResponseEntity<byte[]> response = cache.allPolicies(null, "deflate, br");
+
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+		assertEquals(plainEtag, response.getHeaders().getETag());
+		assertEquals(List.of(HttpHeaders.ACCEPT_ENCODING), response.getHeaders().getVary());
+		assertEquals(2, objectMapper.readTree(response.getBody()).size());
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"gzip", "GZIP", "deflate, gzip", "gzip;q=0.5", "br;q=1.0, gzip; q=1"})
+	void servesTheGzippedBytesWhenGzipIsAccepted(String acceptEncoding) throws IOException {
+		ResponseEntity<byte[]> response = cache.allPolicies(null, acceptEncoding);
+
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+		assertEquals(gzipEtag, response.getHeaders().getETag());
+		assertArrayEquals(cache.allPolicies(null, null).getBody(), gunzip(response.getBody()));
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"gzip;q=0", "gzip; q=0.0", "deflate, gzip;q=0.000", ""})
+	void treatsQZeroAsRefusingGzip(String acceptEncoding) {
+		ResponseEntity<byte[]> response = cache.allPolicies(null, acceptEncoding);
+
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+		assertEquals(plainEtag, response.getHeaders().getETag());
+	}
+
+	@Test
+	void answersNotModifiedForEitherEncodingsTag() {
+		// A client that received the gzip variant revalidates with its tag after switching encodings
+		ResponseEntity<byte[]> plainAfterGzip = cache.allPolicies(gzipEtag, null);
+		ResponseEntity<byte[]> gzipAfterPlain = cache.allPolicies(plainEtag, "gzip");
+
+		assertEquals(HttpStatus.NOT_MODIFIED, plainAfterGzip.getStatusCode());
+		assertNull(plainAfterGzip.getBody());
+		assertEquals(plainEtag, plainAfterGzip.getHeaders().getETag());
+		assertEquals(HttpStatus.NOT_MODIFIED, gzipAfterPlain.getStatusCode());
+		assertNull(gzipAfterPlain.getBody());
+		assertEquals(gzipEtag, gzipAfterPlain.getHeaders().getETag());
+	}
+
+	@Test
+	void matchesWeakTagsWildcardsAndTagLists() {
+		assertEquals(HttpStatus.NOT_MODIFIED, cache.allPolicies("W/" + plainEtag, null).getStatusCode());
+		assertEquals(HttpStatus.NOT_MODIFIED, cache.allPolicies("*", "gzip").getStatusCode());
+		assertEquals(HttpStatus.NOT_MODIFIED, cache.allPolicies("\"stale\", W/" + gzipEtag, "gzip").getStatusCode());
+		assertEquals(HttpStatus.OK, cache.allPolicies("\"stale\"", null).getStatusCode());
+		// The tag must match whole, not as a prefix of the gzip tag
+		assertEquals(HttpStatus.OK, cache.allPolicies(plainEtag.substring(0, plainEtag.length() - 1), null).getStatusCode());
+	}
+
+	@Test
+	void aCatalogReloadWithNewContentChangesTheTag() {
+		PolicyCatalog.Snapshot reloaded = snapshot(2L, List.of(policy(1L, "550.00"), policy(2L, "750.00")));
+		when(policyCatalog.snapshot()).thenReturn(reloaded);
+
+		ResponseEntity<byte[]> response = cache.allPolicies(plainEtag, null);
+
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertNotEquals(plainEtag, response.getHeaders().getETag());
+	}
+
+	private static PolicyCatalog.Snapshot snapshot(long version, List<PolicyDto> policies) {
+		PolicyCatalog.Snapshot snapshot = mock(PolicyCatalog.Snapshot.class);
+		when(snapshot.version()).thenReturn(version);
+		when(snapshot.newestFirst()).thenReturn(policies);
+		return snapshot;
+	}
+
+	private static PolicyDto policy(Long id, String premium) {
+		PolicyDto policy = new PolicyDto();
+		policy.setId(id);
+		policy.setPolicyNumber("POL-" + id);
+		policy.setType(Policy.PolicyType.LIFE);
+		policy.setPremiumAmount(new BigDecimal(premium));
+		return policy;
+	}
+
+	private static byte[] gunzip(byte[] bytes) throws IOException {
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+			return in.readAllBytes();
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package com.example.insurance_app.policies;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PolicyRangeIndexTests {
+
+	// Newest first, as the catalog snapshot hands them over
+	private final PolicyRangeIndex index = new PolicyRangeIndex(List.of(
+			policy(5L, Policy.PolicyType.HEALTH, "1200.00", "500000.00", 1, Policy.PremiumFrequency.MONTHLY),
+			policy(4L, Policy.PolicyType.LIFE, "999.99", "1000000.00", 20, Policy.PremiumFrequency.ANNUAL),
+			policy(3L, Policy.PolicyType.HEALTH, "1000.00", "250000.00", 2, Policy.PremiumFrequency.ANNUAL),
+			policy(2L, Policy.PolicyType.VEHICLE, "1000.00", "50000.00", 1, Policy.PremiumFrequency.QUARTERLY),
+			policy(1L, Policy.PolicyType.LIFE, "2500.50", "2000000.00", 30, Policy.PremiumFrequency.ANNUAL)));
+
+	@Test
+	void rangesAreInclusiveAndRoundedInwardsToTheCent() {
+		PolicyFilterCriteria criteria = new PolicyFilterCriteria();
+		criteria.setMinPremium(new BigDecimal("999.991"));
+		criteria.setMaxPremium(new BigDecimal("1200.009"));
+
+		// 999.99 is below the rounded-up lower bound; ties on premium fall back to id order
+		assertEquals(List.of(2L, 3L, 5L), ids(index.filter(criteria, 100)));
+	}
+
+	@Test
+	void filtersCombineWithAnd() {
+		PolicyFilterCriteria criteria = new PolicyFilterCriteria();
+		criteria.setFrequency(Policy.PremiumFrequency.ANNUAL);
+		criteria.setMinCoverage(new BigDecimal("250000"));
+		criteria.setMaxTerm(20);
+
+		assertEquals(List.of(4L, 3L), ids(index.filter(criteria, 100)));
+
+		criteria.setType(Policy.PolicyType.HEALTH);
+		assertEquals(List.of(3L), ids(index.filter(criteria, 100)));
+
+		criteria.setType(Policy.PolicyType.VEHICLE);
+		assertEquals(List.of(), ids(index.filter(criteria, 100)));
+	}
+
+	@Test
+	void resultsFollowTheRequestedSortAndLimit() {
+		PolicyFilterCriteria criteria = new PolicyFilterCriteria();
+
+		criteria.setSort(PolicyFilterCriteria.SortOrder.NEWEST);
+		assertEquals(List.of(5L, 4L, 3L), ids(index.filter(criteria, 3)));
+		criteria.setSort(PolicyFilterCriteria.SortOrder.PREMIUM_DESC);
+		assertEquals(List.of(1L, 5L, 3L, 2L, 4L), ids(index.filter(criteria, 100)));
+		criteria.setSort(PolicyFilterCriteria.SortOrder.COVERAGE_ASC);
+		assertEquals(List.of(2L, 3L), ids(index.filter(criteria, 2)));
+		criteria.setSort(PolicyFilterCriteria.SortOrder.TERM_DESC);
+		assertEquals(List.of(1L, 4L, 3L, 5L, 2L), ids(index.filter(criteria, 100)));
+	}
+
+	@Test
+	void toCentsUsesTheGivenRounding() {
+		assertEquals(100001L, PolicyRangeIndex.toCents(new BigDecimal("1000.005"), RoundingMode.HALF_UP));
+		assertEquals(100000L, PolicyRangeIndex.toCents(new BigDecimal("1000.009"), RoundingMode.FLOOR));
+		assertEquals(100001L, PolicyRangeIndex.toCents(new BigDecimal("1000.001"), RoundingMode.CEILING));
+	}
+
+	private static List<Long> ids(List<PolicyDto> policies) {
+		return policies.stream().map(PolicyDto::getId).toList();
+	}
+
+	private static PolicyDto policy(Long id, Policy.PolicyType type, String premium, String coverage, int termYears,
+									Policy.PremiumFrequency frequency) {
+		PolicyDto policy = new PolicyDto();
+		policy.setId(id);
+		policy.setType(type);
+		policy.setPremiumAmount(new BigDecimal(premium));
+		policy.setCoverageAmount(new BigDecimal(coverage));
+		policy.setTermYears(termYears);
+		policy.setPremiumFrequency(frequency);
+		return policy;
+	}
+}
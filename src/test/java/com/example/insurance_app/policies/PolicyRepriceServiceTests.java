@@ -0,0 +1,280 @@
+package com.example.insurance_app.policies;
+
+import com.example.insurance_app.common.JobLockService;
+import com.example.insurance_app.exceptions.PolicyOperationException;
+import com.example.insurance_app.payments.PaymentStatusChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PolicyRepriceServiceTests {
+
+	@Mock
+	private JdbcTemplate jdbcTemplate;
+
+	@Mock
+	private TransactionTemplate transactionTemplate;
+
+	@Mock
+	private ApplicationEventPublisher eventPublisher;
+
+	@Mock
+	private JobLockService jobLockService;
+
+	private PolicyRepriceService service;
+
+	@BeforeEach
+	void setUp() {
+		service = new PolicyRepriceService(jdbcTemplate, transactionTemplate, eventPublisher, jobLockService, 2, 10);
+	}
+
+	@Test
+	void refusesToStartWhileAnotherRepriceHoldsTheLock() {
+		when(jobLockService.tryAcquire(eq("policy-reprice"), any(Duration.class))).thenReturn(false);
+
+		assertThrows(PolicyOperationException.class, () -> service.reprice(
+				new PolicyRepriceRequest(Policy.PolicyType.LIFE, null, PolicyRepriceRequest.Adjustment.PERCENTAGE, BigDecimal.TEN)));
+
+		verifyNoInteractions(jdbcTemplate, transactionTemplate, eventPublisher);
+	}
+
+	@Test
+	void recordsOldAndNewPricesAndVersionsWithTheJob() throws SQLException {
+		when(jobLockService.tryAcquire(eq("policy-reprice"), any(Duration.class))).thenReturn(true);
+		when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+				invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+		when(jdbcTemplate.queryForList(anyString(), eq(Long.class))).thenReturn(List.of());
+		when(jdbcTemplate.query(startsWith("SELECT id, premium_amount"), any(RowMapper.class), any(), any()))
+				.thenAnswer(invocation -> {
+					RowMapper<?> mapper = invocation.getArgument(1);
+					return List.of(mapper.mapRow(policyRow(3L, "1000.00"), 0), mapper.mapRow(policyRow(4L, "250.00"), 1));
+				});
+		// Current versions before and after the new versions are written; policy 4 was never versioned
+		List<Map<Long, Long>> versions = new ArrayList<>(List.of(Map.of(3L, 30L), Map.of(3L, 31L, 4L, 41L)));
+		doAnswer(invocation -> {
+			Map<Long, Long> current = versions.remove(0);
+			RowCallbackHandler handler = invocation.getArgument(1);
+			for (long policyId : List.of(3L, 4L)) {
+				handler.processRow(versionRow(policyId, current.get(policyId)));
+			}
+			return null;
+		}).when(jdbcTemplate).query(startsWith("SELECT id, current_version_id"), any(RowCallbackHandler.class), any(), any());
+		lenient().doAnswer(invocation -> {
+			invocation.<KeyHolder>getArgument(1).getKeyList().add(Map.of("id", 9L));
+			return 1;
+		}).when(jdbcTemplate).update(any(PreparedStatementCreator.class), any(KeyHolder.class));
+		when(jdbcTemplate.query(startsWith("SELECT policy_id"), any(RowMapper.class), eq(9L))).thenReturn(List.of());
+		when(jdbcTemplate.queryForObject(anyString(), any(RowMapper.class), eq(9L)))
+				.thenReturn(new PolicyRepriceResultDto(2, 0, 0, 0, 0L));
+
+		PolicyRepriceResultDto result = service.reprice(new PolicyRepriceRequest(
+				null, List.of(3L, 4L), PolicyRepriceRequest.Adjustment.PERCENTAGE, BigDecimal.TEN));
+
+		assertEquals(2, result.getPoliciesUpdated());
+		ArgumentCaptor<ParameterizedPreparedStatementSetter<Map.Entry<Long, BigDecimal[]>>> setter =
+				ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+		ArgumentCaptor<List<Map.Entry<Long, BigDecimal[]>>> items = ArgumentCaptor.forClass(List.class);
+		verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO policy_reprice_items"), items.capture(), eq(2),
+				setter.capture());
+		PreparedStatement ps = mock(PreparedStatement.class);
+		setter.getValue().setValues(ps, items.getValue().get(1));
+		verify(ps).setLong(1, 9L);
+		verify(ps).setLong(2, 4L);
+		verify(ps).setBigDecimal(3, new BigDecimal("250.00"));
+		verify(ps).setBigDecimal(4, new BigDecimal("275.00"));
+		verify(ps).setObject(5, null, Types.BIGINT);
+		verify(ps).setLong(6, 41L);
+		verify(eventPublisher).publishEvent(new PolicyCatalogChangedEvent(null));
+		verify(jdbcTemplate).update(startsWith("UPDATE policy_reprice_jobs SET status = 'COMPLETED'"), any(), eq(9L));
+		verify(jobLockService).release("policy-reprice");
+	}
+
+	@Test
+	void resumedJobMovesOnlyHoldingsStillOnTheOldTerms() throws SQLException {
+		when(jobLockService.tryAcquire(eq("policy-reprice"), any(Duration.class))).thenReturn(true);
+		when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+				invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+		when(jdbcTemplate.queryForList(anyString(), eq(Long.class))).thenReturn(List.of(7L));
+		when(jdbcTemplate.query(startsWith("SELECT policy_id"), any(RowMapper.class), eq(7L))).thenAnswer(invocation ->
+				List.of(invocation.<RowMapper<?>>getArgument(1).mapRow(itemRow(3L, "100.00", "110.00", 30L, 31L), 0)));
+		// Holdings moved before the run was cut short no longer match; a full chunk of two, then one
+		List<List<Long>> chunks = new ArrayList<>(List.of(List.of(11L, 12L), List.of(13L)));
+		doAnswer(invocation -> {
+			RowCallbackHandler handler = invocation.getArgument(1);
+			for (Long userPolicyId : chunks.remove(0)) {
+				handler.processRow(holdingRow(userPolicyId));
+			}
+			return null;
+		}).when(jdbcTemplate).query(startsWith("SELECT id, user_id"), any(RowCallbackHandler.class), any(), any(), any(), any());
+		when(jdbcTemplate.query(startsWith("SELECT id, user_policy_id"), any(RowMapper.class), any(Object[].class)))
+				.thenAnswer(invocation -> {
+					RowMapper<?> mapper = invocation.getArgument(1);
+					Object[] args = invocation.getArguments();
+					List<Object> mapped = new ArrayList<>();
+					// One pending installment per holding, ids derived from the holding
+					for (int i = 2; i < args.length - 1; i++) {
+						mapped.add(mapper.mapRow(paymentRow(500L + (Long) args[i], (Long) args[i]), mapped.size()));
+					}
+					return mapped;
+				});
+
+		service.resumeUnfinishedJobs();
+
+		ArgumentCaptor<Object> cursors = ArgumentCaptor.forClass(Object.class);
+		verify(jdbcTemplate, times(2)).query(startsWith("SELECT id, user_id"), any(RowCallbackHandler.class), eq(3L),
+				eq(30L), cursors.capture(), eq(2));
+		assertEquals(List.of(0L, 12L), cursors.getAllValues());
+		verify(jdbcTemplate).update("UPDATE payments SET amount = ? WHERE id IN (?, ?)", new BigDecimal("110.00"), 511L, 512L);
+		verify(jdbcTemplate).update("UPDATE payments SET amount = ? WHERE id IN (?)", new BigDecimal("110.00"), 513L);
+		verify(jdbcTemplate).update("UPDATE user_policies SET policy_version_id = ? WHERE id IN (?, ?)", 31L, 11L, 12L);
+		verify(jdbcTemplate).update("UPDATE user_policies SET policy_version_id = ? WHERE id IN (?)", 31L, 13L);
+		verify(jdbcTemplate).update(startsWith("UPDATE policy_reprice_jobs SET payments_updated"), eq(2), eq(2), eq(7L));
+		verify(jdbcTemplate).update(startsWith("UPDATE policy_reprice_jobs SET payments_updated"), eq(1), eq(1), eq(7L));
+		ArgumentCaptor<PaymentStatusChangedEvent> events = ArgumentCaptor.forClass(PaymentStatusChangedEvent.class);
+		verify(eventPublisher, times(3)).publishEvent(events.capture());
+		assertEquals(List.of(111L, 112L, 113L), events.getAllValues().stream().map(PaymentStatusChangedEvent::userId).toList());
+		verify(jdbcTemplate).update(startsWith("UPDATE policy_reprice_items SET completed"), eq(7L), eq(3L));
+		verify(jdbcTemplate).update(startsWith("UPDATE policy_reprice_jobs SET status = 'COMPLETED'"), any(), eq(7L));
+		verify(jobLockService).release("policy-reprice");
+	}
+
+	@Test
+	void leavesDueTodayAndPaidInstallmentsAtTheOldPrice() throws SQLException {
+		when(jobLockService.tryAcquire(eq("policy-reprice"), any(Duration.class))).thenReturn(true);
+		when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+				invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+		when(jdbcTemplate.queryForList(anyString(), eq(Long.class))).thenReturn(List.of(7L));
+		when(jdbcTemplate.query(startsWith("SELECT policy_id"), any(RowMapper.class), eq(7L))).thenAnswer(invocation ->
+				List.of(invocation.<RowMapper<?>>getArgument(1).mapRow(itemRow(3L, "100.00", "110.00", 30L, 31L), 0)));
+		doAnswer(invocation -> {
+			invocation.<RowCallbackHandler>getArgument(1).processRow(holdingRow(11L));
+			return null;
+		}).when(jdbcTemplate).query(startsWith("SELECT id, user_id"), any(RowCallbackHandler.class), any(), any(), any(), any());
+		// The holding's installments as stored: due today, already paid, and due tomorrow
+		LocalDate today = LocalDate.now();
+		List<Object[]> installments = List.of(
+				new Object[]{601L, "PENDING", today},
+				new Object[]{602L, "PAID", today.plusMonths(1)},
+				new Object[]{603L, "PENDING", today.plusDays(1)});
+		when(jdbcTemplate.query(startsWith("SELECT id, user_policy_id"), any(RowMapper.class), any(Object[].class)))
+				.thenAnswer(invocation -> {
+					String sql = invocation.getArgument(0);
+					RowMapper<?> mapper = invocation.getArgument(1);
+					Object[] args = invocation.getArguments();
+					LocalDate dueAfter = ((Date) args[args.length - 1]).toLocalDate();
+					List<Object> mapped = new ArrayList<>();
+					// Apply the filters the query declares, against the bound due date
+					for (Object[] installment : installments) {
+						boolean pending = !sql.contains("status = 'PENDING'") || installment[1].equals("PENDING");
+						boolean notDue = !sql.contains("due_date > ?") || ((LocalDate) installment[2]).isAfter(dueAfter);
+						if (pending && notDue) {
+							mapped.add(mapper.mapRow(paymentRow((Long) installment[0], 11L), mapped.size()));
+						}
+					}
+					return mapped;
+				});
+
+		service.resumeUnfinishedJobs();
+
+		verify(jdbcTemplate).update("UPDATE payments SET amount = ? WHERE id IN (?)", new BigDecimal("110.00"), 603L);
+		verify(jdbcTemplate, times(1)).update(startsWith("UPDATE payments"), any(Object[].class));
+		ArgumentCaptor<PaymentStatusChangedEvent> events = ArgumentCaptor.forClass(PaymentStatusChangedEvent.class);
+		verify(eventPublisher).publishEvent(events.capture());
+		assertEquals(603L, events.getValue().paymentId());
+	}
+
+	@Test
+	void leavesAFailedJobRunningWithItsError() throws SQLException {
+		when(jobLockService.tryAcquire(eq("policy-reprice"), any(Duration.class))).thenReturn(true);
+		when(transactionTemplate.execute(any())).thenThrow(new IllegalStateException("lock wait timeout"));
+		when(jdbcTemplate.queryForList(anyString(), eq(Long.class))).thenReturn(List.of(7L));
+		when(jdbcTemplate.query(startsWith("SELECT policy_id"), any(RowMapper.class), eq(7L))).thenAnswer(invocation ->
+				List.of(invocation.<RowMapper<?>>getArgument(1).mapRow(itemRow(3L, "100.00", "110.00", 30L, 31L), 0)));
+
+		service.resumeUnfinishedJobs();
+
+		verify(jdbcTemplate).update(startsWith("UPDATE policy_reprice_jobs SET error_message"), eq("lock wait timeout"), eq(7L));
+		verify(jdbcTemplate, times(0)).update(startsWith("UPDATE policy_reprice_jobs SET status"), any(), any());
+		verify(jobLockService).release("policy-reprice");
+	}
+
+	private static ResultSet policyRow(long id, String premium) throws SQLException {
+		ResultSet rs = mock(ResultSet.class);
+		when(rs.getLong(1)).thenReturn(id);
+		when(rs.getBigDecimal(2)).thenReturn(new BigDecimal(premium));
+		return rs;
+	}
+
+	private static ResultSet versionRow(long policyId, Long versionId) throws SQLException {
+		ResultSet rs = mock(ResultSet.class);
+		when(rs.getLong(1)).thenReturn(policyId);
+		when(rs.getObject(2, Long.class)).thenReturn(versionId);
+		return rs;
+	}
+
+	private static ResultSet itemRow(long policyId, String oldPremium, String newPremium, Long oldVersionId,
+									 long newVersionId) throws SQLException {
+		ResultSet rs = mock(ResultSet.class);
+		when(rs.getLong("policy_id")).thenReturn(policyId);
+		when(rs.getBigDecimal("old_premium")).thenReturn(new BigDecimal(oldPremium));
+		when(rs.getBigDecimal("new_premium")).thenReturn(new BigDecimal(newPremium));
+		when(rs.getObject("old_version_id", Long.class)).thenReturn(oldVersionId);
+		when(rs.getLong("new_version_id")).thenReturn(newVersionId);
+		return rs;
+	}
+
+	private static ResultSet holdingRow(long userPolicyId) throws SQLException {
+		ResultSet rs = mock(ResultSet.class);
+		when(rs.getLong(1)).thenReturn(userPolicyId);
+		when(rs.getLong(2)).thenReturn(100L + userPolicyId);
+		return rs;
+	}
+
+	private static ResultSet paymentRow(long paymentId, long userPolicyId) throws SQLException {
+		ResultSet rs = mock(ResultSet.class);
+		when(rs.getLong(1)).thenReturn(paymentId);
+		when(rs.getLong(2)).thenReturn(userPolicyId);
+		when(rs.getBigDecimal(3)).thenReturn(new BigDecimal("100.00"));
+		when(rs.getDate(4)).thenReturn(Date.valueOf(LocalDate.now().plusMonths(1)));
+		return rs;
+	}
+}
@@ -0,0 +1,60 @@
+package com.example.insurance_app.policies;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PolicyTextIndexTests {
+
+	private final PolicyTextIndex index = new PolicyTextIndex(List.of(
+			policy(1L, Policy.PolicyType.HEALTH, "Family health cover with dental and dental-surgery add-ons"),
+			policy(2L, Policy.PolicyType.HEALTH, "Individual health plan"),
+			policy(3L, Policy.PolicyType.LIFE, "Term life cover for families"),
+			policy(4L, Policy.PolicyType.VEHICLE, null),
+			policy(5L, Policy.PolicyType.HEALTH, "Healthcare savings account")));
+
+	@Test
+	void tokenizesOnNonAlphanumericsAndLowerCases() {
+		assertEquals(List.of("dental", "surgery", "add", "ons"), PolicyTextIndex.tokenize("Dental-Surgery add-ons"));
+		assertEquals(List.of(), PolicyTextIndex.tokenize("  "));
+		assertEquals(List.of(), PolicyTextIndex.tokenize(null));
+	}
+
+	@Test
+	void allModeRequiresEveryTermAndAnyModeRanksByScore() {
+		assertEquals(List.of(1L), ids(index.search("health dental", PolicyTextIndex.MatchMode.ALL, false, null)));
+		// Policy 1 repeats "dental", so it outranks the plain "health" match
+		assertEquals(List.of(1L, 2L), ids(index.search("health dental", PolicyTextIndex.MatchMode.ANY, false, null)));
+	}
+
+	@Test
+	void prefixExpansionRanksBelowAnExactToken() {
+		assertTrue(index.search("famil", PolicyTextIndex.MatchMode.ANY, false, null).isEmpty());
+		// "family" and "families" both expand from the prefix; neither is an exact hit
+		assertEquals(List.of(1L, 3L), ids(index.search("famil", PolicyTextIndex.MatchMode.ANY, true, null)));
+		// "healthcare" only matches through the prefix, so it ranks after both exact "health" hits
+		assertEquals(List.of(1L, 2L, 5L), ids(index.search("health", PolicyTextIndex.MatchMode.ANY, true, null)));
+	}
+
+	@Test
+	void typeFilterAndEmptyQueries() {
+		assertEquals(List.of(3L), ids(index.search("cover", PolicyTextIndex.MatchMode.ANY, false, Policy.PolicyType.LIFE)));
+		assertTrue(index.search(" - ", PolicyTextIndex.MatchMode.ANY, true, null).isEmpty());
+		assertTrue(new PolicyTextIndex(List.of()).search("health", PolicyTextIndex.MatchMode.ANY, true, null).isEmpty());
+	}
+
+	private static List<Long> ids(List<PolicyDto> policies) {
+		return policies.stream().map(PolicyDto::getId).toList();
+	}
+
+	private static PolicyDto policy(Long id, Policy.PolicyType type, String description) {
+		PolicyDto policy = new PolicyDto();
+		policy.setId(id);
+		policy.setType(type);
+		policy.setDescription(description);
+		return policy;
+	}
+}
@@ -0,0 +1,46 @@
+package com.example.insurance_app.quotes;
+
+import com.example.insurance_app.policies.Policy;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class QuoteServiceTests {
+
+	// Integer rounding must agree with the BigDecimal split PaymentService bills
+	@Test
+	void installmentCentsMatchesBigDecimalHalfUpForEveryFrequency() {
+		for (Policy.PremiumFrequency frequency : Policy.PremiumFrequency.values()) {
+			int paymentsPerYear = frequency.getPaymentsPerYear();
+			for (long annualCents = 0; annualCents <= 250_000; annualCents++) {
+				long expected = billedCents(annualCents, paymentsPerYear);
+				long actual = QuoteService.installmentCents(annualCents, paymentsPerYear);
+				if (expected != actual) {
+					fail(frequency + " installment of " + annualCents + " cents: expected " + expected + " but was " + actual);
+				}
+			}
+		}
+	}
+
+	@Test
+	void installmentCentsMatchesAtLargeAmounts() {
+		long[] amounts = {999_999_999L, 1_000_000_006L, 123_456_789_012L, 9_999_999_999_999L};
+		for (Policy.PremiumFrequency frequency : Policy.PremiumFrequency.values()) {
+			for (long annualCents : amounts) {
+				assertEquals(billedCents(annualCents, frequency.getPaymentsPerYear()),
+						QuoteService.installmentCents(annualCents, frequency.getPaymentsPerYear()));
+			}
+		}
+	}
+
+	private static long billedCents(long annualCents, int paymentsPerYear) {
+		return BigDecimal.valueOf(annualCents, 2)
+				.divide(BigDecimal.valueOf(paymentsPerYear), 2, RoundingMode.HALF_UP)
+				.movePointRight(2)
+				.longValueExact();
+	}
+}
@@ -0,0 +1,149 @@
+package com.example.insurance_app.recommendations;
+
+import com.example.insurance_app.policies.PolicyCatalog;
+import com.example.insurance_app.policies.PolicyDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RecommendationServiceTests {
+
+	private static final long USER_ID = 100L;
+
+	// user -> policies held; 60 is retired, 40 is the most held overall
+	private static final Map<Long, List<Long>> BASKETS = Map.of(
+			1L, List.of(10L, 20L, 50L, 60L),
+			2L, List.of(10L, 20L, 50L, 60L),
+			3L, List.of(10L, 30L, 60L),
+			4L, List.of(40L),
+			5L, List.of(40L),
+			6L, List.of(40L),
+			7L, List.of(40L),
+			8L, List.of(50L));
+
+	@Mock
+	private JdbcTemplate jdbcTemplate;
+
+	@Mock
+	private PolicyCatalog policyCatalog;
+
+	private RecommendationService service;
+
+	@BeforeEach
+	void setUp() {
+		Map<Long, PolicyDto> policies = Map.of(
+				10L, policy(10L, null), 20L, policy(20L, null), 30L, policy(30L, null),
+				40L, policy(40L, null), 50L, policy(50L, null), 60L, policy(60L, LocalDateTime.now()));
+		PolicyCatalog.Snapshot snapshot = mock(PolicyCatalog.Snapshot.class);
+		when(snapshot.allPolicies()).thenReturn(policies.values());
+		when(snapshot.findById(anyLong())).thenAnswer(invocation -> Optional.ofNullable(policies.get(invocation.<Long>getArgument(0))));
+		when(policyCatalog.snapshot()).thenReturn(snapshot);
+
+		when(jdbcTemplate.queryForObject(startsWith("SELECT MIN(user_id)"), any(RowMapper.class)))
+				.thenReturn(new long[]{1L, 8L});
+		doAnswer(invocation -> {
+			String sql = invocation.getArgument(0);
+			RowCallbackHandler handler = invocation.getArgument(1);
+			if (sql.contains("user_id >= ?")) {
+				for (long userId = 1; userId <= 8; userId++) {
+					for (Long policyId : BASKETS.get(userId)) {
+						handler.processRow(row(userId, policyId));
+					}
+				}
+			} else {
+				// The user holds 10 and once held 20
+				handler.processRow(holding(10L, "ACTIVE"));
+				handler.processRow(holding(20L, "CANCELLED"));
+			}
+			return null;
+		}).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+
+		service = new RecommendationService(jdbcTemplate, policyCatalog, 2, 50_000, 50);
+	}
+
+	@AfterEach
+	void tearDown() {
+		service.shutdown();
+	}
+
+	@Test
+	void ranksByCosineSkippingHeldAndRetiredPoliciesThenTopsUpWithPopular() throws InterruptedException {
+		List<RecommendationDto> recommendations = recommendAfterRebuild(5);
+
+		// 60 (similarity 1.0) is retired and 20 was held; 50 = 2/sqrt(3*3), 30 = 1/sqrt(3*1)
+		assertEquals(List.of(50L, 30L, 40L), recommendations.stream().map(r -> r.policy().getId()).toList());
+		assertEquals(RecommendationDto.Source.CO_OWNERSHIP, recommendations.get(0).source());
+		// The cancelled holding is excluded but doesn't add its own neighbours to the scores
+		assertEquals(2 / 3.0, recommendations.get(0).score(), 1e-6);
+		assertEquals(RecommendationDto.Source.CO_OWNERSHIP, recommendations.get(1).source());
+		assertEquals(1 / Math.sqrt(3), recommendations.get(1).score(), 1e-6);
+		assertEquals(RecommendationDto.Source.POPULAR, recommendations.get(2).source());
+		assertEquals(4, recommendations.get(2).holders());
+	}
+
+	@Test
+	void stopsAtTheLimitBeforeToppingUp() throws InterruptedException {
+		List<RecommendationDto> recommendations = recommendAfterRebuild(1);
+
+		assertEquals(1, recommendations.size());
+		assertEquals(50L, recommendations.get(0).policy().getId());
+	}
+
+	// The rebuild runs on its own thread, so wait for the first model to be published
+	private List<RecommendationDto> recommendAfterRebuild(int limit) throws InterruptedException {
+		assertTrue(service.requestRebuild());
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		List<RecommendationDto> recommendations = service.recommend(USER_ID, limit);
+		while (recommendations.isEmpty() && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+			recommendations = service.recommend(USER_ID, limit);
+		}
+		return recommendations;
+	}
+
+	private static PolicyDto policy(Long id, LocalDateTime retiredAt) {
+		PolicyDto policy = new PolicyDto();
+		policy.setId(id);
+		policy.setPolicyNumber("POL-" + id);
+		policy.setRetiredAt(retiredAt);
+		return policy;
+	}
+
+	private static ResultSet row(long userId, long policyId) throws Exception {
+		ResultSet rs = mock(ResultSet.class);
+		when(rs.getLong(1)).thenReturn(userId);
+		when(rs.getLong(2)).thenReturn(policyId);
+		return rs;
+	}
+
+	private static ResultSet holding(long policyId, String status) throws Exception {
+		ResultSet rs = mock(ResultSet.class);
+		when(rs.getLong(1)).thenReturn(policyId);
+		when(rs.getString(2)).thenReturn(status);
+		return rs;
+	}
+}
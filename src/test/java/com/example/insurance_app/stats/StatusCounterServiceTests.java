@@ -0,0 +1,121 @@
+package com.example.insurance_app.stats;
+
+import com.example.insurance_app.claims.Claim;
+import com.example.insurance_app.claims.ClaimRepository;
+import com.example.insurance_app.claims.ClaimStatusChangedEvent;
+import com.example.insurance_app.user_policies.UserPolicyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class StatusCounterServiceTests {
+
+	private static final long PERSIST_INTERVAL_MILLIS = 300_000L;
+
+	@Mock
+	private ClaimRepository claimRepository;
+
+	@Mock
+	private UserPolicyRepository userPolicyRepository;
+
+	@Mock
+	private JdbcTemplate jdbcTemplate;
+
+	private StatusCounterService service;
+
+	@BeforeEach
+	void setUp() {
+		service = new StatusCounterService(claimRepository, userPolicyRepository, jdbcTemplate, PERSIST_INTERVAL_MILLIS);
+	}
+
+	@Test
+	void transitionsCommittedWhileCountingSurviveTheSwap() {
+		// The claim is approved after the GROUP BY read it as PENDING
+		when(claimRepository.countByUserIdAndStatus()).thenAnswer(invocation -> {
+			service.onClaimStatusChanged(claimEvent(7L, Claim.ClaimStatus.PENDING, Claim.ClaimStatus.APPROVED));
+			return List.<Object[]>of(new Object[]{7L, Claim.ClaimStatus.PENDING, 1L});
+		});
+		when(userPolicyRepository.countByUserIdStatusAndPolicyType()).thenReturn(List.of());
+
+		service.reconcile();
+
+		StatusCountsDto counts = service.getUserCounts(7L);
+		assertEquals(0L, counts.getClaimsByStatus().get(Claim.ClaimStatus.PENDING));
+		assertEquals(1L, counts.getClaimsByStatus().get(Claim.ClaimStatus.APPROVED));
+	}
+
+	@Test
+	void persistAddsOnlyChangesSinceTheLastPersist() {
+		service.onClaimStatusChanged(claimEvent(7L, null, Claim.ClaimStatus.PENDING));
+		service.onClaimStatusChanged(claimEvent(7L, Claim.ClaimStatus.PENDING, Claim.ClaimStatus.APPROVED));
+		service.onClaimStatusChanged(claimEvent(8L, null, Claim.ClaimStatus.PENDING));
+
+		service.persist();
+
+		ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+		verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO status_counters"), rows.capture());
+		List<String> written = new ArrayList<>();
+		rows.getValue().forEach(row -> written.add(row[0] + "/" + row[1] + "/" + row[2]));
+		// Other nodes add their own changes to the same rows, so only deltas are written
+		assertEquals(2, written.size());
+		assertTrue(written.containsAll(List.of("7/CLAIM:APPROVED/1", "8/CLAIM:PENDING/1")));
+		ArgumentCaptor<Object[]> stamp = ArgumentCaptor.forClass(Object[].class);
+		verify(jdbcTemplate).update(anyString(), stamp.capture());
+		assertEquals(0L, stamp.getValue()[0]);
+		assertEquals("SNAPSHOT:PERSISTED_AT", stamp.getValue()[1]);
+
+		service.persist();
+		verify(jdbcTemplate).batchUpdate(anyString(), any(List.class));
+	}
+
+	@Test
+	void recountsOnStartupWhenTheSnapshotIsStale() {
+		long staleMillis = System.currentTimeMillis() - 2 * PERSIST_INTERVAL_MILLIS;
+		when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any(), any())).thenReturn(List.of(staleMillis));
+		when(claimRepository.countByUserIdAndStatus()).thenReturn(List.<Object[]>of(new Object[]{7L, Claim.ClaimStatus.PENDING, 3L}));
+		when(userPolicyRepository.countByUserIdStatusAndPolicyType()).thenReturn(List.of());
+
+		service.load();
+
+		verify(jdbcTemplate, never()).query(anyString(), any(RowCallbackHandler.class), any());
+		assertEquals(3L, service.getGlobalCounts().getClaimsByStatus().get(Claim.ClaimStatus.PENDING));
+	}
+
+	@Test
+	void loadsAFreshSnapshotWithoutRecounting() {
+		when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any(), any()))
+				.thenReturn(List.of(System.currentTimeMillis() - 1_000L));
+
+		service.load();
+
+		ArgumentCaptor<Object> excluded = ArgumentCaptor.forClass(Object.class);
+		verify(jdbcTemplate).query(startsWith("SELECT user_id, counter_key"), any(RowCallbackHandler.class), excluded.capture());
+		assertArrayEquals(new Object[]{0L}, excluded.getAllValues().toArray());
+		verify(claimRepository, never()).countByUserIdAndStatus();
+	}
+
+	private static ClaimStatusChangedEvent claimEvent(long userId, Claim.ClaimStatus previous, Claim.ClaimStatus next) {
+		return new ClaimStatusChangedEvent(1L, userId, 10L, previous, next, LocalDateTime.now());
+	}
+}
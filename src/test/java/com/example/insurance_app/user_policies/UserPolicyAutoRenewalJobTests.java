@@ -0,0 +1,152 @@
+package com.example.insurance_app.user_policies;
+
+import com.example.insurance_app.common.JobLockService;
+import com.example.insurance_app.exceptions.PolicyOperationException;
+import com.example.insurance_app.payments.PaymentStatusChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserPolicyAutoRenewalJobTests {
+
+	@Mock
+	private JdbcTemplate jdbcTemplate;
+
+	@Mock
+	private TransactionTemplate transactionTemplate;
+
+	@Mock
+	private ApplicationEventPublisher eventPublisher;
+
+	@Mock
+	private JobLockService jobLockService;
+
+	private UserPolicyAutoRenewalJob job;
+
+	@BeforeEach
+	void setUp() {
+		job = new UserPolicyAutoRenewalJob(jdbcTemplate, transactionTemplate, eventPublisher, jobLockService, 100, 7, 30);
+		lenient().when(jobLockService.tryAcquire(eq("user-policy-auto-renewal"), any(Duration.class))).thenReturn(true);
+		lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+				invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+	}
+
+	@Test
+	void rejectsAWindowAsLongAsTheShortestTerm() {
+		// A holding renewed early in a year-long window would come up again before the run ends
+		assertThrows(PolicyOperationException.class, () -> job.run(365));
+		assertThrows(PolicyOperationException.class, () -> job.run(0));
+
+		verifyNoInteractions(jobLockService, jdbcTemplate, transactionTemplate, eventPublisher);
+	}
+
+	@Test
+	void insertsOneInstallmentOfThePinnedVersionAndOnlyAdvancesADueDateAtTheEndOfTerm() throws SQLException {
+		LocalDate endDate = LocalDate.now().plusDays(3);
+		List<Object[]> rows = List.of(
+				// Fully paid up: due date sits on the end of the term
+				new Object[]{1L, 10L, endDate, endDate, 7L, 1, "1000.00", "MONTHLY"},
+				// Still owes an installment in the current term
+				new Object[]{2L, 11L, endDate, endDate.minusMonths(1), 8L, 2, "1000.00", "QUARTERLY"});
+		stubCandidates(rows);
+		List<Long> generatedIds = List.of(501L, 502L);
+		// Lenient: the renew batch goes through another batchUpdate overload
+		lenient().doAnswer(invocation -> {
+			KeyHolder keyHolder = invocation.getArgument(2);
+			generatedIds.forEach(id -> keyHolder.getKeyList().add(Map.of("id", id)));
+			return new int[]{1, 1};
+		}).when(jdbcTemplate).batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class),
+				any(KeyHolder.class));
+
+		assertEquals(2, job.run(7).orElseThrow().getRenewed());
+
+		ArgumentCaptor<ParameterizedPreparedStatementSetter<Object>> renewSetter =
+				ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+		ArgumentCaptor<List<Object>> candidates = ArgumentCaptor.forClass(List.class);
+		verify(jdbcTemplate).batchUpdate(anyString(), candidates.capture(), eq(2), renewSetter.capture());
+		PreparedStatement paidUp = mock(PreparedStatement.class);
+		renewSetter.getValue().setValues(paidUp, candidates.getValue().get(0));
+		verify(paidUp).setDate(1, Date.valueOf(endDate.plusYears(1)));
+		verify(paidUp).setDate(2, Date.valueOf(endDate));
+		PreparedStatement owing = mock(PreparedStatement.class);
+		renewSetter.getValue().setValues(owing, candidates.getValue().get(1));
+		verify(owing).setDate(1, Date.valueOf(endDate.plusYears(2)));
+		verify(owing).setDate(2, Date.valueOf(endDate.minusMonths(1)));
+
+		ArgumentCaptor<BatchPreparedStatementSetter> premiumSetter = ArgumentCaptor.forClass(BatchPreparedStatementSetter.class);
+		verify(jdbcTemplate).batchUpdate(any(PreparedStatementCreator.class), premiumSetter.capture(), any(KeyHolder.class));
+		PreparedStatement monthly = mock(PreparedStatement.class);
+		premiumSetter.getValue().setValues(monthly, 0);
+		verify(monthly).setBigDecimal(2, new BigDecimal("83.33"));
+		PreparedStatement quarterly = mock(PreparedStatement.class);
+		premiumSetter.getValue().setValues(quarterly, 1);
+		verify(quarterly).setBigDecimal(2, new BigDecimal("250.00"));
+
+		ArgumentCaptor<PaymentStatusChangedEvent> events = ArgumentCaptor.forClass(PaymentStatusChangedEvent.class);
+		verify(eventPublisher, times(2)).publishEvent(events.capture());
+		assertEquals(501L, events.getAllValues().get(0).paymentId());
+		assertEquals(new BigDecimal("83.33"), events.getAllValues().get(0).amount());
+		verify(jobLockService).release("user-policy-auto-renewal");
+	}
+
+	private void stubCandidates(List<Object[]> rows) {
+		when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(), any(), any(), any(), any()))
+				.thenAnswer(invocation -> {
+					RowMapper<?> mapper = invocation.getArgument(1);
+					List<Object> mapped = new ArrayList<>();
+					for (Object[] values : rows) {
+						mapped.add(mapper.mapRow(resultSet(values), mapped.size()));
+					}
+					return mapped;
+				});
+	}
+
+	private static ResultSet resultSet(Object[] values) throws SQLException {
+		ResultSet rs = mock(ResultSet.class);
+		when(rs.getLong(1)).thenReturn((Long) values[0]);
+		when(rs.getLong(2)).thenReturn((Long) values[1]);
+		when(rs.getDate(3)).thenReturn(Date.valueOf((LocalDate) values[2]));
+		when(rs.getDate(4)).thenReturn(Date.valueOf((LocalDate) values[3]));
+		when(rs.getObject(5, Long.class)).thenReturn((Long) values[4]);
+		when(rs.getInt(6)).thenReturn((Integer) values[5]);
+		when(rs.getBigDecimal(7)).thenReturn(new BigDecimal((String) values[6]));
+		when(rs.getString(8)).thenReturn((String) values[7]);
+		return rs;
+	}
+}
@@ -0,0 +1,125 @@
+package com.example.insurance_app.user_policies;
+
+import com.example.insurance_app.policies.Policy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserPolicyIndexTests {
+
+	private static final UserPolicyIndex.Filter ALL = new UserPolicyIndex.Filter(null, null, null, null, null, null, null, null);
+
+	@Mock
+	private JdbcTemplate jdbcTemplate;
+
+	// The user_policies table as id -> user id
+	private final TreeMap<Long, Long> table = new TreeMap<>();
+
+	private UserPolicyIndex index;
+
+	@BeforeEach
+	void setUp() {
+		// Full loads pass (lastId, chunkSize); refreshes pass the dirty ids
+		doAnswer(invocation -> {
+			String sql = invocation.getArgument(0);
+			RowCallbackHandler handler = invocation.getArgument(1);
+			Object[] args = Arrays.copyOfRange(invocation.getArguments(), 2, invocation.getArguments().length);
+			boolean refresh = sql.contains(" IN (");
+			Map<Long, Long> rows = refresh ? table : table.tailMap((Long) args[0], false);
+			for (Map.Entry<Long, Long> row : rows.entrySet()) {
+				if (!refresh || Arrays.asList(args).contains(row.getKey())) {
+					handler.processRow(resultSet(row.getKey(), row.getValue()));
+				}
+			}
+			return null;
+		}).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+		index = new UserPolicyIndex(jdbcTemplate, 50000);
+		table.putAll(Map.of(1L, 10L, 2L, 20L, 5L, 10L));
+		index.rebuild();
+	}
+
+	@Test
+	void outOfOrderCommitsAreFoundInIdOrderBeforeAndAfterTheRebuild() {
+		commit(4L, 10L);
+		commit(3L, 20L);
+		commit(6L, 30L);
+		index.refreshDirty();
+
+		assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L), index.findIds(ALL, 0L, 10));
+		assertEquals(List.of(3L, 4L), index.findIds(ALL, 2L, 2));
+		assertEquals(List.of(1L, 4L, 5L), index.findIds(userFilter(10L), 0L, 10));
+		assertEquals(List.of(2L, 3L), index.findIds(userFilter(20L), 0L, 10));
+
+		index.rebuild();
+		assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L), index.findIds(ALL, 0L, 10));
+		assertEquals(List.of(1L, 4L, 5L), index.findIds(userFilter(10L), 0L, 10));
+	}
+
+	@Test
+	void overflowRowsAreFoundAgainOnRefreshAndMergedOnceTheTailIsLarge() {
+		commit(3L, 20L);
+		index.refreshDirty();
+		assertEquals(List.of(2L, 3L), index.findIds(userFilter(20L), 0L, 10));
+
+		// Deleted in the database: the refresh finds no row for the dirty id
+		table.remove(3L);
+		markDirty(3L, 20L);
+		index.refreshDirty();
+		assertEquals(List.of(2L), index.findIds(userFilter(20L), 0L, 10));
+
+		// Thousands of rows commit after a higher id, well past the overflow bound
+		commit(1_000_000L, 50L);
+		index.refreshDirty();
+		LongStream.range(100, 5100).forEach(id -> commit(id, 50L));
+		index.refreshDirty();
+
+		assertEquals(List.of(100L, 101L, 102L), index.findIds(userFilter(50L), 0L, 3));
+		assertEquals(List.of(5L, 100L, 101L), index.findIds(ALL, 2L, 3));
+		List<Long> all = index.findIds(ALL, 0L, Integer.MAX_VALUE);
+		assertEquals(List.copyOf(table.keySet()), all);
+	}
+
+	private static UserPolicyIndex.Filter userFilter(long userId) {
+		return new UserPolicyIndex.Filter(userId, null, null, null, null, null, null, null);
+	}
+
+	private void commit(long id, long userId) {
+		table.put(id, userId);
+		markDirty(id, userId);
+	}
+
+	private void markDirty(long id, long userId) {
+		index.onUserPolicyStatusChanged(new UserPolicyStatusChangedEvent(id, userId, 1L,
+				Policy.PolicyType.LIFE, null, UserPolicy.Status.ACTIVE));
+	}
+
+	private static ResultSet resultSet(long id, long userId) throws SQLException {
+		ResultSet rs = mock(ResultSet.class);
+		when(rs.getLong(1)).thenReturn(id);
+		when(rs.getLong(2)).thenReturn(userId);
+		when(rs.getLong(3)).thenReturn(1L);
+		when(rs.getString(4)).thenReturn("ACTIVE");
+		when(rs.getString(5)).thenReturn("LIFE");
+		return rs;
+	}
+}
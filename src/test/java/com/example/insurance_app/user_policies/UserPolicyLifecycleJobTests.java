@@ -0,0 +1,122 @@
+package com.example.insurance_app.user_policies;
+
+import com.example.insurance_app.common.JobLockService;
+import com.example.insurance_app.policies.Policy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserPolicyLifecycleJobTests {
+
+	@Mock
+	private JdbcTemplate jdbcTemplate;
+
+	@Mock
+	private TransactionTemplate transactionTemplate;
+
+	@Mock
+	private ApplicationEventPublisher eventPublisher;
+
+	@Mock
+	private JobLockService jobLockService;
+
+	private UserPolicyLifecycleJob job;
+
+	@BeforeEach
+	void setUp() {
+		job = new UserPolicyLifecycleJob(jdbcTemplate, transactionTemplate, eventPublisher, jobLockService, 2, 30);
+	}
+
+	@Test
+	void skipsTheRunWhenAnotherNodeHoldsTheLock() {
+		when(jobLockService.tryAcquire(eq("user-policy-lifecycle"), any(Duration.class))).thenReturn(false);
+
+		job.run();
+
+		verifyNoInteractions(jdbcTemplate, transactionTemplate, eventPublisher);
+		verify(jobLockService, never()).release(anyString());
+	}
+
+	@Test
+	void expiresPastEndDateChunkByChunkAndNeverLapses() throws SQLException {
+		when(jobLockService.tryAcquire(eq("user-policy-lifecycle"), any(Duration.class))).thenReturn(true);
+		when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+				invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+		// A full chunk of two, then a final partial chunk of one
+		List<List<Object[]>> chunks = new ArrayList<>(List.of(
+				List.<Object[]>of(row(1, 10, 100, "LIFE", "ACTIVE"), row(2, 11, 100, "LIFE", "PENDING")),
+				List.<Object[]>of(row(3, 12, 101, "HEALTH", "ACTIVE"))));
+		when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(), anyInt())).thenAnswer(invocation -> {
+			RowMapper<?> mapper = invocation.getArgument(1);
+			List<Object> mapped = new ArrayList<>();
+			for (Object[] values : chunks.remove(0)) {
+				mapped.add(mapper.mapRow(resultSet(values), mapped.size()));
+			}
+			return mapped;
+		});
+
+		job.run();
+
+		ArgumentCaptor<String> selects = ArgumentCaptor.forClass(String.class);
+		verify(jdbcTemplate, times(2)).query(selects.capture(), any(RowMapper.class), any(), eq(2));
+		selects.getAllValues().forEach(sql -> assertTrue(sql.contains("up.end_date < ?")));
+		verify(jdbcTemplate, times(2)).batchUpdate(anyString(), any(List.class), anyInt(),
+				any(ParameterizedPreparedStatementSetter.class));
+
+		ArgumentCaptor<Object[]> updateArgs = ArgumentCaptor.forClass(Object[].class);
+		verify(jdbcTemplate, times(2)).update(anyString(), updateArgs.capture());
+		assertArrayEquals(new Object[]{"EXPIRED", 1L, 2L}, updateArgs.getAllValues().get(0));
+		assertArrayEquals(new Object[]{"EXPIRED", 3L}, updateArgs.getAllValues().get(1));
+
+		ArgumentCaptor<UserPolicyStatusChangedEvent> events = ArgumentCaptor.forClass(UserPolicyStatusChangedEvent.class);
+		verify(eventPublisher, times(3)).publishEvent(events.capture());
+		assertEquals(new UserPolicyStatusChangedEvent(2L, 11L, 100L, Policy.PolicyType.LIFE,
+				UserPolicy.Status.PENDING, UserPolicy.Status.EXPIRED), events.getAllValues().get(1));
+		events.getAllValues().forEach(event -> assertEquals(UserPolicy.Status.EXPIRED, event.newStatus()));
+		verify(jobLockService).release("user-policy-lifecycle");
+	}
+
+	private static Object[] row(long id, long userId, long policyId, String type, String status) {
+		return new Object[]{id, userId, policyId, type, status};
+	}
+
+	private static ResultSet resultSet(Object[] values) throws SQLException {
+		ResultSet rs = mock(ResultSet.class);
+		when(rs.getLong(1)).thenReturn((Long) values[0]);
+		when(rs.getLong(2)).thenReturn((Long) values[1]);
+		when(rs.getLong(3)).thenReturn((Long) values[2]);
+		when(rs.getString(4)).thenReturn((String) values[3]);
+		when(rs.getString(5)).thenReturn((String) values[4]);
+		return rs;
+	}
+}
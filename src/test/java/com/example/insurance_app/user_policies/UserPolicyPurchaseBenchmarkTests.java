@@ -0,0 +1,117 @@
+package com.example.insurance_app.user_policies;
+
+import com.example.insurance_app.policies.Policy;
+import com.example.insurance_app.users.User;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Latency of a single policy purchase against the configured database, end to end through
+ * the service transaction and its after-commit listeners. Each purchase is by a different
+ * user, so no request hits the one-live-holding index. Skipped unless asked for, since the
+ * numbers only mean something against a real MySQL instance:
+ *
+ * mvn test -Dtest=UserPolicyPurchaseBenchmarkTests -Dbenchmark=true [-Dbenchmark.warmup=200 -Dbenchmark.iterations=2000]
+ */
+@SpringBootTest
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class UserPolicyPurchaseBenchmarkTests {
+
+	private static final String EMAIL_DOMAIN = "@purchase-bench.test";
+
+	@Autowired
+	private UserPolicyService userPolicyService;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private final int warmup = Integer.getInteger("benchmark.warmup", 200);
+	private final int iterations = Integer.getInteger("benchmark.iterations", 2000);
+
+	private Long policyId;
+	private List<Long> userIds;
+
+	@BeforeEach
+	void setUp() {
+		transactionTemplate.executeWithoutResult(tx -> {
+			Policy policy = new Policy();
+			policy.setPolicyNumber("BENCH-" + UUID.randomUUID().toString().substring(0, 8));
+			policy.setType(Policy.PolicyType.HEALTH);
+			policy.setCoverageAmount(new BigDecimal("100000.00"));
+			policy.setPremiumAmount(new BigDecimal("1200.00"));
+			policy.setTermYears(1);
+			entityManager.persist(policy);
+			policyId = policy.getId();
+
+			userIds = new ArrayList<>(warmup + iterations);
+			for (int i = 0; i < warmup + iterations; i++) {
+				User user = new User();
+				user.setName("Purchase Bench " + i);
+				user.setEmail(UUID.randomUUID() + EMAIL_DOMAIN);
+				user.setPassword("secret");
+				user.setRole(User.Role.CUSTOMER);
+				entityManager.persist(user);
+				userIds.add(user.getId());
+			}
+		});
+	}
+
+	@AfterEach
+	void tearDown() {
+		jdbcTemplate.update("DELETE FROM user_policies WHERE policy_id = ?", policyId);
+		jdbcTemplate.update("DELETE FROM users WHERE email LIKE ?", "%" + EMAIL_DOMAIN);
+		jdbcTemplate.update("DELETE FROM policies WHERE id = ?", policyId);
+	}
+
+	@Test
+	void purchasePolicyLatency() {
+		for (int i = 0; i < warmup; i++) {
+			userPolicyService.purchasePolicy(new UserPolicyCreateRequest(userIds.get(i), policyId));
+		}
+
+		long[] nanos = new long[iterations];
+		long started = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			UserPolicyCreateRequest request = new UserPolicyCreateRequest(userIds.get(warmup + i), policyId);
+			long before = System.nanoTime();
+			userPolicyService.purchasePolicy(request);
+			nanos[i] = System.nanoTime() - before;
+		}
+		long elapsed = System.nanoTime() - started;
+
+		Arrays.sort(nanos);
+		System.out.printf("purchasePolicy over %d calls (%d warmup): %.0f/s, p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+				iterations, warmup, iterations * 1e9 / elapsed, millis(nanos, 0.50), millis(nanos, 0.90),
+				millis(nanos, 0.99), nanos[iterations - 1] / 1e6);
+		assertEquals(warmup + iterations, jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM user_policies WHERE policy_id = ?", Integer.class, policyId));
+	}
+
+	private static double millis(long[] sorted, double percentile) {
+		int index = Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1);
+		return sorted[Math.max(index, 0)] / 1e6;
+	}
+}